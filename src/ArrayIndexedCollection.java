@@ -1,5 +1,8 @@
 package hr.fer.zemris.java.custom.collections;
 
+import java.util.Spliterator;
+import java.util.Spliterators;
+
 /**
  * Represents a resizable array-backed collection of objects.
  * Duplicate elements are allowed; storage of null references is not allowed.
@@ -170,6 +173,19 @@ public class ArrayIndexedCollection extends Collection{
 		size = 0;
 	}
 	
+	/**
+	 * Creates a Spliterator over the backing array, which splits by halving
+	 * its range of indexes, so parallel streams get balanced parts without
+	 * copying. The collection must not be modified while the Spliterator
+	 * is in use.
+	 * @return The newly made Spliterator.
+	 */
+	@Override
+	public Spliterator<Object> spliterator(){
+		return Spliterators.spliterator(elements, 0, size,
+				Spliterator.ORDERED | Spliterator.NONNULL);
+	}
+	
 	/**
 	 * Returns the object that is stored in backing array at position index.
 	 * @param index Element at this index will be returned. Valid indexes are
@@ -267,6 +283,7 @@ public class ArrayIndexedCollection extends Collection{
 		for(int i = 0; i < capacity; i++){
 			elements[i] = temporary[i];
 		}
+		capacity *= 2;
 	}
 }
 
@@ -1,18 +1,38 @@
 package hr.fer.zemris.java.cstr;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.CharBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import hr.fer.zemris.java.custom.collections.ArrayIndexedCollection;
+
 /**
- * Represents a custom implementation of a String. It has all functionalities just like the original implementation.
+ * Represents a custom implementation of a String. It has all functionalities just like the original implementation
+ * and can be used wherever a CharSequence is expected.
  * Substring operations and similar create new objects, but they do not instantiate a new array containing string
  * characters, its char array just points to the old string char array, with its own offset representing the
  * begin point of a string, and its own length variable representing a length of a string, starting from offset.
+ * <p>
+ * A string whose characters all fit into Latin-1 (0 to 255) can be stored compactly, one byte per character,
+ * instead of one char per character. Such a string is inflated into a char array only when a character outside
+ * of Latin-1 is added to it.
  * 
  * @author Mislav Gillinger
  */
 
-public class CString {
+public class CString implements CharSequence, Comparable<CString> {
+	
+	/** Number of characters inflated at once when compact string is written to a writer. */
+	private static final int INFLATE_CHUNK = 4096;
 	
-	/** Character array containing characters of a string. */
+	/** Character array containing characters of a string, null if the string is stored compactly. */
 	private char[] data;
+	/** Byte array containing Latin-1 characters of a compact string, null if the string is not compact. */
+	private byte[] latin1;
 	/** Index of starting point in char array of a string. */
 	private int offset;
 	/** Length of a string, starting from offset. */
@@ -50,10 +70,8 @@ public class CString {
 			throw new NullPointerException("Data in constructor must not be null!");
 		}
 		
-		String assistant = String.valueOf(data);
-		
 		this.data = data;
-		this.length = assistant.length();
+		this.length = data.length;
 		this.offset = 0;
 	}
 
@@ -69,6 +87,19 @@ public class CString {
 			throw new NullPointerException("Original string in constructor must not be null!");
 		}
 
+		if(original.latin1 != null){
+			byte[] assistantByteArray = original.latin1;
+			if(original.offset != 0 || original.length != original.latin1.length){
+				assistantByteArray = new byte[original.length];
+				System.arraycopy(original.latin1, original.offset, assistantByteArray, 0, original.length);
+			}
+			
+			this.latin1 = assistantByteArray;
+			this.length = original.length;
+			this.offset = 0;
+			return;
+		}
+
 		char[] assistantCharArray = new char[original.length];
 		if(original.offset != 0 || original.length != original.data.length){
 			assistantCharArray = original.toCharArray();
@@ -82,6 +113,40 @@ public class CString {
 		this.offset = 0;
 	}
 	
+	/**
+	 * Creates a new compact instance of a CString which uses the given Latin-1 bytes as its characters.
+	 * @param latin1 Byte array containing Latin-1 characters of a string.
+	 * @param offset Index of starting point in byte array of a string.
+	 * @param length Length of a string, starting from offset.
+	 */
+	private CString(byte[] latin1, int offset, int length) {
+		this.latin1 = latin1;
+		this.offset = offset;
+		this.length = length;
+	}
+	
+	/**
+	 * Instantiates new compact CString object whose characters are the given Latin-1 bytes. The given array
+	 * is not copied.
+	 * @param latin1 Byte array containing Latin-1 characters of a string.
+	 * @param offset Index of starting point in byte array of a string.
+	 * @param length Length of a string, starting from offset.
+	 * @return Instance of a new compact CString.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IndexOutOfBoundsException If provided offset is invalid.
+	 */
+	public static CString fromLatin1(byte[] latin1, int offset, int length){
+		if(latin1 == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+		
+		if(offset < 0 || length < 0 || offset + length > latin1.length){
+			throw new IndexOutOfBoundsException("CString does not contain that much symbols!");
+		}
+		
+		return new CString(latin1, offset, length);
+	}
+	
 	/**
 	 * Instantiates new CString object which has the same character data as given Java's String object.
 	 * @param s New CString will be made out of this string's data.
@@ -92,14 +157,50 @@ public class CString {
 		if(s == null){
 			throw new NullPointerException("Argument must not be null!");
 		}
- 		
-		return new CString(s.toCharArray());
+		
+		byte[] compact = new byte[s.length()];
+		for(int i = 0; i < compact.length; i++){
+			char c = s.charAt(i);
+			if(c > 0xFF){
+				return new CString(s.toCharArray());
+			}
+			compact[i] = (byte) c;
+		}
+		
+		return new CString(compact, 0, compact.length);
+	}
+	
+	/**
+	 * Checks whether this CString stores its characters compactly, one byte per character.
+	 * @return True if this CString is compact, false otherwise.
+	 */
+	public boolean isCompact(){
+		return latin1 != null;
+	}
+	
+	/**
+	 * Returns a compact CString with the same characters as this one, if all of them fit into Latin-1.
+	 * Otherwise, or if this CString is already compact, returns this CString.
+	 * @return Compact CString with the same characters, or this CString.
+	 */
+	public CString compact(){
+		if(latin1 != null || !isLatin1()){
+			return this;
+		}
+		
+		byte[] compact = new byte[length];
+		for(int i = offset, j = 0; i < offset + length; i++){
+			compact[j++] = (byte) data[i];
+		}
+		
+		return new CString(compact, 0, length);
 	}
 	
 	/**
 	 * Returns length of this CString.
 	 * @return Length of this CString.
 	 */
+	@Override
 	public int length(){
 		return length;
 	}
@@ -110,15 +211,20 @@ public class CString {
 	 * @return Char at position index.
 	 * @throws IndexOutOfBoundsException If index is invalid.
 	 */
+	@Override
 	public char charAt(int index){
 		if(index < 0){
 			throw new IndexOutOfBoundsException("Index must be a positive number!");
 		}
 		
-		if(index > length){
+		if(index >= length){
 			throw new IndexOutOfBoundsException("Argument index is invalid!");
 		}
 		
+		if(latin1 != null){
+			return (char) (latin1[offset + index] & 0xFF);
+		}
+		
 		return data[offset + index];
 	}
 	
@@ -128,10 +234,14 @@ public class CString {
 	 */
 	public char[] toCharArray(){
 		char[] charArray = new char[length];
-		for(int i = offset, j = 0; i < offset + length; i++){
-			charArray[j++] = data[i];
+		if(latin1 != null){
+			inflate(latin1, offset, charArray, 0, length);
+			
+			return charArray;
 		}
 		
+		System.arraycopy(data, offset, charArray, 0, length);
+		
 		return charArray;
 	}
 	
@@ -139,12 +249,108 @@ public class CString {
 	 * Converts this CString into a String and returns it.
 	 * @return String made out of this CString.
 	 */
+	@Override
 	public String toString(){
-		StringBuilder sb = new StringBuilder();
+		if(latin1 != null){
+			return new String(latin1, offset, length, StandardCharsets.ISO_8859_1);
+		}
+		
+		return new String(data, offset, length);
+	}
+	
+	/**
+	 * Returns new CString which represents a part of this string, as required by CharSequence.
+	 * Complexity is O(1), the returned string shares the backing array of this one.
+	 * @param start Start point of a new CString.
+	 * @param end End point of a new CString, which does not belong to it.
+	 * @return New CString which was a part of this string.
+	 * @throws IndexOutOfBoundsException If index is invalid.
+	 */
+	@Override
+	public CString subSequence(int start, int end){
+		return substring(start, end);
+	}
+	
+	/**
+	 * Writes characters of this string to the given writer, copying them in bulk from the backing array.
+	 * @param writer Writer to which the characters are written.
+	 * @throws IOException if writing fails.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public void writeTo(Writer writer) throws IOException {
+		if(writer == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+		
+		if(latin1 == null){
+			writer.write(data, offset, length);
+			return;
+		}
+		
+		char[] chunk = new char[Math.min(length, INFLATE_CHUNK)];
+		for(int done = 0; done < length; done += chunk.length){
+			int n = Math.min(chunk.length, length - done);
+			inflate(latin1, offset + done, chunk, 0, n);
+			writer.write(chunk, 0, n);
+		}
+	}
+	
+	/**
+	 * Puts characters of this string into the given buffer, copying them in bulk from the backing array.
+	 * @param buffer Buffer into which the characters are put.
+	 * @throws BufferOverflowException if there is not enough space remaining in the buffer.
+	 * @throws ReadOnlyBufferException if the buffer is read-only.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public void writeTo(CharBuffer buffer){
+		if(buffer == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+		
+		if(latin1 == null){
+			buffer.put(data, offset, length);
+			return;
+		}
+		
+		if(buffer.remaining() < length){
+			throw new BufferOverflowException();
+		}
+		
+		if(buffer.hasArray()){
+			inflate(latin1, offset, buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+			buffer.position(buffer.position() + length);
+			return;
+		}
+		
 		for(int i = offset; i < offset + length; i++){
-			sb.append(data[i]);
+			buffer.put((char) (latin1[i] & 0xFF));
+		}
+	}
+	
+	/**
+	 * Appends characters of this string to the given appendable. Writers, character buffers and string
+	 * builders receive the characters in bulk from the backing array.
+	 * @param appendable Appendable to which the characters are appended.
+	 * @throws IOException if appending fails.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public void appendTo(Appendable appendable) throws IOException {
+		if(appendable == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+		
+		if(appendable instanceof Writer){
+			writeTo((Writer) appendable);
+		}
+		else if(appendable instanceof CharBuffer){
+			writeTo((CharBuffer) appendable);
+		}
+		else if(appendable instanceof StringBuilder && latin1 == null){
+			((StringBuilder) appendable).append(data, offset, length);
+		}
+		else{
+			appendable.append(this);
 		}
-		return sb.toString();
 	}
 	
 	/**
@@ -153,13 +359,34 @@ public class CString {
 	 * @return Index of first occurrence of the given char or -1.
 	 */
 	public int indexOf(char c){
-		for(int index = offset; index < offset + length; index++){
-			if(data[index] == c){
-				return index - offset;
+		return indexOf(c, 0);
+	}
+	
+	/**
+	 * Returns index of first occurrence of the given char, starting the search at the given position, or -1.
+	 * Negative position is treated as 0.
+	 * @param c Index of first occurrence of this char will be returned.
+	 * @param fromIndex Position where the search starts.
+	 * @return Index of first occurrence of the given char or -1.
+	 */
+	public int indexOf(char c, int fromIndex){
+		if(fromIndex < 0){
+			fromIndex = 0;
+		}
+		
+		int index;
+		if(latin1 != null){
+			if(c > 0xFF){
+				return -1;
 			}
+			
+			index = CStringKernels.indexOf(latin1, offset + fromIndex, offset + length, (byte) c);
+		}
+		else{
+			index = CStringKernels.indexOf(data, offset + fromIndex, offset + length, c);
 		}
 		
-		return -1;
+		return index == -1 ? -1 : index - offset;
 	}
 	
 	/**
@@ -177,14 +404,7 @@ public class CString {
 			return false;
 		}
 		
-		boolean same = true;
-		for(int i = offset, j = 0; i < s.length + offset; i++){
-			if(s.data[j++] != data[i]){
-				same = false;
-			}
-		}
-		
-		return same;
+		return regionMatches(0, s, s.length);
 	}
 	
 	/**
@@ -202,14 +422,7 @@ public class CString {
 			return false;
 		}
 		
-		boolean same = true;
-		for(int i = offset + length - 1, j = s.length - 1; j >= s.offset; i--){
-			if(s.data[j--] != data[i]){
-				same = false;
-			}
-		}
-		
-		return same;
+		return regionMatches(length - s.length, s, s.length);
 	}
 	
 	/**
@@ -227,17 +440,191 @@ public class CString {
 			return false;
 		}
 		
-		for(int i = offset, j = 0; i < offset + length; i++){
-			if(data[i] == s.data[j]){
-				if(j == s.length-1){
-					return true;
+		return indexOf(s, 0) != -1;
+	}
+	
+	/**
+	 * Returns index of first occurrence of the given string, starting the search at the given position, or -1.
+	 * Negative position is treated as 0.
+	 * @param s String to be searched for.
+	 * @param fromIndex Position where the search starts.
+	 * @return Index of first occurrence of the given string or -1.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public int indexOf(CString s, int fromIndex){
+		if(s == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+		
+		if(fromIndex < 0){
+			fromIndex = 0;
+		}
+		
+		if(s.length == 0){
+			return fromIndex <= length ? fromIndex : -1;
+		}
+		
+		char first = s.charAt(0);
+		for(int i = indexOf(first, fromIndex); i != -1 && i <= length - s.length; i = indexOf(first, i + 1)){
+			if(regionMatches(i, s, s.length)){
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Splits this string around each occurrence of the given delimiter. Parts are views which share the
+	 * character array of this string, so no characters are copied. Empty parts are kept.
+	 * @param delimiter Character which separates the parts.
+	 * @return Collection of CString parts of this string, in order.
+	 */
+	public ArrayIndexedCollection split(char delimiter){
+		return split(new CStringTokenizer(this, delimiter));
+	}
+	
+	/**
+	 * Splits this string around each occurrence of the given delimiter. Parts are views which share the
+	 * character array of this string, so no characters are copied. Empty parts are kept.
+	 * @param delimiter String which separates the parts. Must not be empty.
+	 * @return Collection of CString parts of this string, in order.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the delimiter is empty.
+	 */
+	public ArrayIndexedCollection split(CString delimiter){
+		return split(new CStringTokenizer(this, delimiter));
+	}
+	
+	/**
+	 * Collects all parts returned by the given tokenizer.
+	 * @param tokenizer Tokenizer whose parts are collected.
+	 * @return Collection of CString parts, in order.
+	 */
+	private static ArrayIndexedCollection split(CStringTokenizer tokenizer){
+		ArrayIndexedCollection parts = new ArrayIndexedCollection();
+		while(tokenizer.hasNext()){
+			parts.add(tokenizer.next());
+		}
+		
+		return parts;
+	}
+	
+	/**
+	 * Checks whether the given object is a CString containing the same characters as this one.
+	 * @param obj Object to be compared with this string.
+	 * @return True if the given object is a CString with the same characters, false otherwise.
+	 */
+	@Override
+	public boolean equals(Object obj){
+		if(this == obj){
+			return true;
+		}
+		
+		if(!(obj instanceof CString)){
+			return false;
+		}
+		
+		CString other = (CString) obj;
+		return length == other.length && regionMatches(0, other, length);
+	}
+	
+	/**
+	 * Compares this string with the given one lexicographically, the same way as String does. Characters are
+	 * compared in place in the backing arrays.
+	 * @param other String to be compared with this one.
+	 * @return Negative value if this string is less than the given one, 0 if they are equal,
+	 * 		positive value otherwise.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	@Override
+	public int compareTo(CString other){
+		int n = Math.min(length, other.length);
+		int i = offset;
+		int j = other.offset;
+		
+		if(latin1 != null && other.latin1 != null){
+			for(int end = i + n; i < end; i++, j++){
+				if(latin1[i] != other.latin1[j]){
+					return (latin1[i] & 0xFF) - (other.latin1[j] & 0xFF);
 				}
-				j++;
-				continue;
 			}
-			j = 0;
 		}
-		return false;
+		else if(latin1 == null && other.latin1 == null){
+			for(int end = i + n; i < end; i++, j++){
+				if(data[i] != other.data[j]){
+					return data[i] - other.data[j];
+				}
+			}
+		}
+		else{
+			for(int k = 0; k < n; k++){
+				char c1 = at(k);
+				char c2 = other.at(k);
+				if(c1 != c2){
+					return c1 - c2;
+				}
+			}
+		}
+		
+		return length - other.length;
+	}
+	
+	/**
+	 * Returns a hash code of this string, calculated from its characters the same way as for String.
+	 * @return A hash code of this string.
+	 */
+	@Override
+	public int hashCode(){
+		int hash = 0;
+		if(latin1 != null){
+			for(int i = offset; i < offset + length; i++){
+				hash = 31 * hash + (latin1[i] & 0xFF);
+			}
+		}
+		else{
+			for(int i = offset; i < offset + length; i++){
+				hash = 31 * hash + data[i];
+			}
+		}
+		
+		return hash;
+	}
+	
+	/**
+	 * Checks whether the first n characters of the given string match characters of this string starting
+	 * at the given position. Comparison is specialized for each combination of compact and non compact strings,
+	 * strings with the same representation are compared block by block.
+	 * @param position Position in this string where comparison starts.
+	 * @param s String whose characters are compared.
+	 * @param n Number of characters to compare.
+	 * @return True if characters match, false otherwise.
+	 */
+	private boolean regionMatches(int position, CString s, int n){
+		int i = offset + position;
+		int j = s.offset;
+		
+		if(latin1 != null && s.latin1 != null){
+			return CStringKernels.equals(latin1, i, s.latin1, j, n);
+		}
+		else if(latin1 != null){
+			for(int end = i + n; i < end; i++, j++){
+				if((latin1[i] & 0xFF) != s.data[j]){
+					return false;
+				}
+			}
+		}
+		else if(s.latin1 != null){
+			for(int end = i + n; i < end; i++, j++){
+				if(data[i] != (s.latin1[j] & 0xFF)){
+					return false;
+				}
+			}
+		}
+		else{
+			return CStringKernels.equals(data, i, s.data, j, n);
+		}
+		
+		return true;
 	}
 	
 	/**
@@ -254,7 +641,11 @@ public class CString {
 			throw new IndexOutOfBoundsException("Invalid start or end index!");
 		}
 		
-		return new CString(data, offset + startIndex, offset + endIndex - (offset + startIndex));
+		if(endIndex > length){
+			throw new IndexOutOfBoundsException("Original CString does not contain that much symbols!");
+		}
+		
+		return view(offset + startIndex, endIndex - startIndex);
 	}
 	
 	/**
@@ -272,7 +663,7 @@ public class CString {
 			throw new IndexOutOfBoundsException("Original CString does not contain that much symbols!");
 		}
 		
-		return new CString(data, offset, n);
+		return view(offset, n);
 	}
 	
 	/**
@@ -290,7 +681,76 @@ public class CString {
 			throw new IndexOutOfBoundsException("Original CString does not contain that much symbols!");
 		}
 		
-		return new CString(data, offset + length - n, n);
+		return view(offset + length - n, n);
+	}
+	
+	/**
+	 * Returns the character array backing this string, for classes of this package which scan it directly.
+	 * @return Backing character array, or null if this string is compact.
+	 */
+	char[] data(){
+		return data;
+	}
+	
+	/**
+	 * Returns the Latin-1 byte array backing this string, for classes of this package which scan it directly.
+	 * @return Backing byte array, or null if this string is not compact.
+	 */
+	byte[] latin1(){
+		return latin1;
+	}
+	
+	/**
+	 * Returns index of the first character of this string in its backing array.
+	 * @return Offset of this string in its backing array.
+	 */
+	int offset(){
+		return offset;
+	}
+	
+	/**
+	 * Returns a char which stands on a given position, without checking the position.
+	 * @param index Char at this position will be returned. Must be between 0 and length-1.
+	 * @return Char at position index.
+	 */
+	char at(int index){
+		if(latin1 != null){
+			return (char) (latin1[offset + index] & 0xFF);
+		}
+		
+		return data[offset + index];
+	}
+	
+	/**
+	 * Returns new CString which shares the backing array of this string, keeping its representation.
+	 * @param start Index of starting point in backing array of a new string.
+	 * @param n Length of a new string.
+	 * @return New CString which shares the backing array of this string.
+	 */
+	private CString view(int start, int n){
+		if(latin1 != null){
+			return new CString(latin1, start, n);
+		}
+		
+		return new CString(data, start, n);
+	}
+	
+	/**
+	 * Checks whether all characters of this string fit into Latin-1.
+	 * @return True if all characters of this string fit into Latin-1, false otherwise.
+	 */
+	private boolean isLatin1(){
+		if(latin1 != null){
+			return true;
+		}
+		
+		for(int i = offset; i < offset + length; i++){
+			if(data[i] > 0xFF){
+				return false;
+			}
+		}
+		
+		return true;
 	}
 	
 	/**
@@ -304,23 +764,67 @@ public class CString {
 			throw new NullPointerException("Argument must not be null!");
 		}
 		
-		if(offset + length + s.length > data.length){
-			char[] resizedArray = new char[data.length * 2];
-			for(int i = 0; i < data.length; i++){
-				resizedArray[i] = data[i];
+		if(latin1 != null && s.isLatin1()){
+			if(offset + length + s.length > latin1.length){
+				latin1 = Arrays.copyOf(latin1, Math.max(latin1.length * 2, offset + length + s.length));
+			}
+			
+			if(s.latin1 != null){
+				System.arraycopy(s.latin1, s.offset, latin1, offset + length, s.length);
 			}
-			data = resizedArray;
+			else{
+				int j = s.offset;
+				for(int i = offset + length; i < offset + length + s.length; i++){
+					latin1[i] = (byte) s.data[j++];
+				}
+			}
+			length += s.length;
+			
+			return new CString(latin1, offset, length);
 		}
 		
-		int j = s.offset;
-		for(int i = offset + length; i < offset + length + s.length; i++){
-			data[i] = s.data[j++];
+		if(latin1 != null){
+			inflate();
+		}
+		
+		if(offset + length + s.length > data.length){
+			data = Arrays.copyOf(data, Math.max(data.length * 2, offset + length + s.length));
+		}
+		
+		if(s.latin1 != null){
+			inflate(s.latin1, s.offset, data, offset + length, s.length);
+		}
+		else{
+			System.arraycopy(s.data, s.offset, data, offset + length, s.length);
 		}
 		length += s.length;
 		
 		return new CString(data, offset, length);
 	}
 	
+	/**
+	 * Switches this compact string to a char array representation, keeping its offset.
+	 */
+	private void inflate(){
+		data = new char[latin1.length];
+		inflate(latin1, 0, data, 0, latin1.length);
+		latin1 = null;
+	}
+	
+	/**
+	 * Copies n Latin-1 bytes from source array into destination character array, widening each of them.
+	 * @param src Source array.
+	 * @param i Starting index in the source array.
+	 * @param dst Destination array.
+	 * @param j Starting index in the destination array.
+	 * @param n Number of characters to copy.
+	 */
+	private static void inflate(byte[] src, int i, char[] dst, int j, int n){
+		for(int k = 0; k < n; k++){
+			dst[j + k] = (char) (src[i + k] & 0xFF);
+		}
+	}
+	
 	/**
 	 * Creates a new CString in which each occurrence of old character is replaced with new character.
 	 * @param oldChar 
@@ -328,19 +832,29 @@ public class CString {
 	 * @return A new CString in which each occurrence of old character is replaced with new character.
 	 */
 	public CString replaceAll(char oldChar, char newChar){
-		char[] dataCopy = new char[data.length];
-		
-		for(int i = 0; i < data.length; i++){
-			dataCopy[i] = data[i];
+		if(latin1 != null && (newChar <= 0xFF || indexOf(oldChar) == -1)){
+			byte[] latin1Copy = new byte[length];
+			if(oldChar <= 0xFF){
+				CStringKernels.replace(latin1, offset, latin1Copy, 0, length, (byte) oldChar, (byte) newChar);
+			}
+			else{
+				System.arraycopy(latin1, offset, latin1Copy, 0, length);
+			}
+			
+			return new CString(latin1Copy, 0, length);
 		}
 		
-		for(int i = offset; i < offset + length; i++){
-			if(dataCopy[i] == oldChar){
-				dataCopy[i] = newChar;
-			}
+		if(latin1 != null){
+			char[] dataCopy = toCharArray();
+			CStringKernels.replace(dataCopy, 0, dataCopy, 0, length, oldChar, newChar);
+			
+			return new CString(dataCopy, 0, length);
 		}
 		
-		return new CString(dataCopy, offset, length);
+		char[] dataCopy = new char[length];
+		CStringKernels.replace(data, offset, dataCopy, 0, length, oldChar, newChar);
+		
+		return new CString(dataCopy, 0, length);
 	}
 	
 	/**
@@ -355,12 +869,16 @@ public class CString {
 			throw new NullPointerException("Method replaceAll doesn't expects null as argument");
 		}
 		
+		if (latin1 != null && oldStr.isLatin1() && newStr.isLatin1()) {
+			return replaceAllCompact(oldStr, newStr);
+		}
+		
 		boolean changed = false;
 		char[] dataCopy = this.toCharArray();
 		
 		for (int i = 0; i <= dataCopy.length - oldStr.length; i++) {
 			for (int j = 0; j < oldStr.length; j++) {
-				if (dataCopy[i + j] != oldStr.data[oldStr.offset + j]) {
+				if (dataCopy[i + j] != oldStr.charAt(j)) {
 					break;
 				}
 				if (j == oldStr.length - 1) {
@@ -376,6 +894,44 @@ public class CString {
 			return this;
 	}
 
+	/**
+	 * Replaces each occurrence of old substring with the new substring in this compact string, working directly
+	 * on Latin-1 bytes. All of the strings must fit into Latin-1.
+	 * @param oldStr
+	 * @param newStr
+	 * @return A new compact CString in which each occurrence of old substring is replaced with the new substring.
+	 */
+	private CString replaceAllCompact(CString oldStr, CString newStr) {
+		if (oldStr.length == 0) {
+			return this;
+		}
+		
+		int count = 0;
+		for (int i = 0; i <= length - oldStr.length; i++) {
+			if (regionMatches(i, oldStr, oldStr.length)) {
+				count++;
+				i += oldStr.length - 1;
+			}
+		}
+		if (count == 0) {
+			return this;
+		}
+		
+		byte[] newBytes = new byte[length + count * (newStr.length - oldStr.length)];
+		int k = 0;
+		for (int i = 0; i < length; i++) {
+			if (i <= length - oldStr.length && regionMatches(i, oldStr, oldStr.length)) {
+				for (int j = 0; j < newStr.length; j++) {
+					newBytes[k++] = (byte) newStr.charAt(j);
+				}
+				i += oldStr.length - 1;
+			} else {
+				newBytes[k++] = latin1[offset + i];
+			}
+		}
+		return new CString(newBytes, 0, newBytes.length);
+	}
+
 	/**
 	 * Returns an array with the given newString inserted on a position of an oldString.
 	 * @param array Array containing an old string.
@@ -387,15 +943,10 @@ public class CString {
 	private static char[] insert(char[] array, char[] newStr, int oldStrLength, int position) {
 		int newStrLength = newStr.length;
 		char[] newArray = new char[array.length + newStrLength - oldStrLength];
-		for (int i = 0; i < position; i++) {
-			newArray[i] = array[i];
-		}
-		for (int i = position; i < position + newStrLength; i++) {
-			newArray[i] = newStr[i - position];
-		}
-		for (int i = position + newStrLength; i < newArray.length; i++) {
-			newArray[i] = array[i - newStrLength + oldStrLength];
-		}
+		System.arraycopy(array, 0, newArray, 0, position);
+		System.arraycopy(newStr, 0, newArray, position, newStrLength);
+		System.arraycopy(array, position + oldStrLength, newArray, position + newStrLength,
+				newArray.length - position - newStrLength);
 		return newArray;
 
 	}
@@ -0,0 +1,416 @@
+package hr.fer.zemris.java.cstr;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes and decodes CStrings directly to and from byte buffers, in UTF-8 or ISO-8859-1 (Latin-1), without
+ * going through String. Characters are read from and written to the backing arrays of CStrings, so a string is
+ * copied only once on the way between bytes and characters. Latin-1 text is decoded into a compact CString and
+ * compact strings are encoded to Latin-1 with a single bulk copy.
+ * <p>
+ * Encoding and decoding can be performed piece by piece into buffers provided by the caller, so input and output
+ * of any size can be streamed through buffers of a fixed size. Malformed UTF-8 input is decoded as recommended by
+ * the Unicode standard, replacing each maximal part of a malformed sequence by a single U+FFFD. String may replace
+ * some malformed sequences by fewer U+FFFD characters, so the two do not always agree on malformed input, while
+ * they always agree on well-formed input. Characters which can not be encoded are written as '?'.
+ *
+ * @author Mislav Gillinger
+ */
+public final class CStringCodec {
+
+	/** Character which replaces malformed input. */
+	private static final char REPLACEMENT = '\uFFFD';
+	/** Byte which replaces characters which can not be encoded. */
+	private static final byte UNMAPPABLE = '?';
+	/** Size of the buffer used when whole channel is read. */
+	private static final int READ_BUFFER_SIZE = 8192;
+
+	/**
+	 * Private constructor, class only contains static methods.
+	 */
+	private CStringCodec() {
+	}
+
+	/**
+	 * Encodes characters of the given string, starting from the given position, into the given buffer until
+	 * the buffer is full or the string is encoded. A surrogate pair is encoded only if both of its characters
+	 * fit, so encoding can always continue from the returned position.
+	 * @param s String to be encoded.
+	 * @param fromIndex Position of the first character to be encoded.
+	 * @param target Buffer which receives encoded bytes.
+	 * @param charset UTF-8 or ISO-8859-1.
+	 * @return Position of the first character which was not encoded, length of the string if all were.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the charset is not supported.
+	 * @throws IndexOutOfBoundsException if the position is invalid.
+	 */
+	public static int encode(CString s, int fromIndex, ByteBuffer target, Charset charset){
+		boolean utf8 = isUtf8(charset);
+		if(s == null || target == null){
+			throw new NullPointerException("Arguments must not be null!");
+		}
+
+		if(fromIndex < 0 || fromIndex > s.length()){
+			throw new IndexOutOfBoundsException("Argument index is invalid!");
+		}
+
+		return utf8 ? encodeUtf8(s, fromIndex, target) : encodeLatin1(s, fromIndex, target);
+	}
+
+	/**
+	 * Encodes the whole given string and writes it to the given channel, reusing the given buffer for
+	 * all writes.
+	 * @param s String to be written.
+	 * @param channel Channel to which the string is written.
+	 * @param buffer Buffer used for writing. Its content is overwritten.
+	 * @param charset UTF-8 or ISO-8859-1.
+	 * @throws IOException if writing fails.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the charset is not supported or the buffer has capacity less
+	 * 		than 4 bytes.
+	 */
+	public static void write(CString s, WritableByteChannel channel, ByteBuffer buffer, Charset charset)
+			throws IOException {
+		if(channel == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		if(buffer.capacity() < 4){
+			throw new IllegalArgumentException("Buffer must hold at least 4 bytes!");
+		}
+
+		int position = 0;
+		do{
+			buffer.clear();
+			position = encode(s, position, buffer, charset);
+			buffer.flip();
+			while(buffer.hasRemaining()){
+				channel.write(buffer);
+			}
+		} while(position < s.length());
+	}
+
+	/**
+	 * Decodes all remaining bytes of the given buffer into a new CString. Latin-1 input produces a compact
+	 * CString.
+	 * @param source Buffer with encoded bytes. All of its remaining bytes are consumed.
+	 * @param charset UTF-8 or ISO-8859-1.
+	 * @return The decoded string.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the charset is not supported.
+	 */
+	public static CString decode(ByteBuffer source, Charset charset){
+		boolean utf8 = isUtf8(charset);
+		if(source == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		if(!utf8){
+			byte[] bytes = new byte[source.remaining()];
+			source.get(bytes);
+			return CString.fromLatin1(bytes, 0, bytes.length);
+		}
+
+		char[] chars = new char[source.remaining()];
+		int length = decodeUtf8(source, chars, 0, chars.length, true);
+		return new CString(chars, 0, length);
+	}
+
+	/**
+	 * Decodes bytes of the given buffer into the given character array until the array is full or the buffer
+	 * is decoded, and returns a view of the decoded characters. An incomplete UTF-8 sequence at the end of the
+	 * buffer is left unconsumed, unless this is the end of input, so the caller can add more bytes after it and
+	 * continue decoding. The array can be reused for the next piece once the returned view is not needed.
+	 * @param source Buffer with encoded bytes.
+	 * @param buffer Array which receives decoded characters. Must hold at least 2 characters.
+	 * @param endOfInput True if no more bytes will follow those in the buffer.
+	 * @param charset UTF-8 or ISO-8859-1.
+	 * @return CString view of the decoded characters in the given array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the charset is not supported or the array is too small.
+	 */
+	public static CString decode(ByteBuffer source, char[] buffer, boolean endOfInput, Charset charset){
+		boolean utf8 = isUtf8(charset);
+		if(source == null || buffer == null){
+			throw new NullPointerException("Arguments must not be null!");
+		}
+
+		if(buffer.length < 2){
+			throw new IllegalArgumentException("Buffer must hold at least 2 characters!");
+		}
+
+		int length = utf8
+				? decodeUtf8(source, buffer, 0, buffer.length, endOfInput)
+				: decodeLatin1(source, buffer, 0, buffer.length);
+		return new CString(buffer, 0, length);
+	}
+
+	/**
+	 * Reads the given channel to its end and decodes it into a new CString. Latin-1 input produces a compact
+	 * CString. The channel is not closed.
+	 * @param channel Channel to be read.
+	 * @param charset UTF-8 or ISO-8859-1.
+	 * @return The decoded string.
+	 * @throws IOException if reading fails.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the charset is not supported.
+	 */
+	public static CString read(ReadableByteChannel channel, Charset charset) throws IOException {
+		boolean utf8 = isUtf8(charset);
+		if(channel == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		if(!utf8){
+			ByteBuffer bytes = ByteBuffer.allocate(READ_BUFFER_SIZE);
+			while(channel.read(bytes) != -1){
+				if(!bytes.hasRemaining()){
+					bytes = ByteBuffer.wrap(Arrays.copyOf(bytes.array(), bytes.capacity() * 2), bytes.position(),
+							bytes.capacity());
+				}
+			}
+			return CString.fromLatin1(bytes.array(), 0, bytes.position());
+		}
+
+		ByteBuffer bytes = ByteBuffer.allocate(READ_BUFFER_SIZE);
+		char[] chars = new char[READ_BUFFER_SIZE];
+		int length = 0;
+		boolean endOfInput = false;
+		while(!endOfInput){
+			endOfInput = channel.read(bytes) == -1;
+			bytes.flip();
+			if(chars.length - length < bytes.remaining()){
+				chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + bytes.remaining()));
+			}
+			length = decodeUtf8(bytes, chars, length, chars.length, endOfInput);
+			bytes.compact();
+		}
+
+		return new CString(chars, 0, length);
+	}
+
+	/**
+	 * Checks which of the supported charsets is the given one.
+	 * @param charset Charset to be checked.
+	 * @return True for UTF-8, false for ISO-8859-1.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the charset is not supported.
+	 */
+	private static boolean isUtf8(Charset charset){
+		if(charset == null){
+			throw new NullPointerException("Charset must not be null!");
+		}
+
+		if(StandardCharsets.UTF_8.equals(charset)){
+			return true;
+		}
+		if(StandardCharsets.ISO_8859_1.equals(charset)){
+			return false;
+		}
+
+		throw new IllegalArgumentException("Only UTF-8 and ISO-8859-1 are supported!");
+	}
+
+	/**
+	 * Encodes characters of the given string as UTF-8.
+	 * @param s String to be encoded.
+	 * @param i Position of the first character to be encoded.
+	 * @param target Buffer which receives encoded bytes.
+	 * @return Position of the first character which was not encoded.
+	 */
+	private static int encodeUtf8(CString s, int i, ByteBuffer target){
+		int n = s.length();
+		while(i < n){
+			char c = s.at(i);
+			if(c < 0x80){
+				if(!target.hasRemaining()){
+					break;
+				}
+				target.put((byte) c);
+			}
+			else if(c < 0x800){
+				if(target.remaining() < 2){
+					break;
+				}
+				target.put((byte) (0xC0 | c >> 6));
+				target.put((byte) (0x80 | c & 0x3F));
+			}
+			else if(Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.at(i + 1))){
+				if(target.remaining() < 4){
+					break;
+				}
+				int codePoint = Character.toCodePoint(c, s.at(++i));
+				target.put((byte) (0xF0 | codePoint >> 18));
+				target.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+				target.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+				target.put((byte) (0x80 | codePoint & 0x3F));
+			}
+			else if(Character.isSurrogate(c)){
+				if(!target.hasRemaining()){
+					break;
+				}
+				target.put(UNMAPPABLE);
+			}
+			else{
+				if(target.remaining() < 3){
+					break;
+				}
+				target.put((byte) (0xE0 | c >> 12));
+				target.put((byte) (0x80 | c >> 6 & 0x3F));
+				target.put((byte) (0x80 | c & 0x3F));
+			}
+			i++;
+		}
+
+		return i;
+	}
+
+	/**
+	 * Encodes characters of the given string as Latin-1. Compact strings are copied in bulk.
+	 * @param s String to be encoded.
+	 * @param i Position of the first character to be encoded.
+	 * @param target Buffer which receives encoded bytes.
+	 * @return Position of the first character which was not encoded.
+	 */
+	private static int encodeLatin1(CString s, int i, ByteBuffer target){
+		int n = Math.min(s.length() - i, target.remaining());
+		if(s.latin1() != null){
+			target.put(s.latin1(), s.offset() + i, n);
+			return i + n;
+		}
+
+		int length = s.length();
+		for(int end = i + n; i < end; i++){
+			char c = s.at(i);
+			if(c <= 0xFF){
+				target.put((byte) c);
+				continue;
+			}
+
+			if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.at(i + 1))){
+				i++;
+				end = Math.min(end + 1, length);
+			}
+			target.put(UNMAPPABLE);
+		}
+
+		return i;
+	}
+
+	/**
+	 * Decodes Latin-1 bytes into the given range of a character array.
+	 * @param source Buffer with encoded bytes.
+	 * @param target Array which receives decoded characters.
+	 * @param from First position in the array.
+	 * @param to Position after the last one in the array.
+	 * @return Position after the last decoded character.
+	 */
+	private static int decodeLatin1(ByteBuffer source, char[] target, int from, int to){
+		int n = Math.min(source.remaining(), to - from);
+		for(int i = 0; i < n; i++){
+			target[from + i] = (char) (source.get() & 0xFF);
+		}
+
+		return from + n;
+	}
+
+	/**
+	 * Decodes UTF-8 bytes into the given range of a character array. Overlong forms, encoded surrogates and
+	 * values above U+10FFFF are malformed. Each maximal part of a malformed sequence which could start a valid
+	 * one is replaced by a single U+FFFD, as recommended by the Unicode standard.
+	 * @param source Buffer with encoded bytes.
+	 * @param target Array which receives decoded characters.
+	 * @param from First position in the array.
+	 * @param to Position after the last one in the array.
+	 * @param endOfInput True if an incomplete sequence at the end of the buffer is malformed, false if it
+	 * 		should be left unconsumed.
+	 * @return Position after the last decoded character.
+	 */
+	private static int decodeUtf8(ByteBuffer source, char[] target, int from, int to, boolean endOfInput){
+		int sp = source.position();
+		int sl = source.limit();
+		int dp = from;
+
+		while(sp < sl && dp < to){
+			int b = source.get(sp);
+			if(b >= 0){
+				target[dp++] = (char) b;
+				sp++;
+				continue;
+			}
+
+			b &= 0xFF;
+			int n;
+			int low = 0x80;
+			int high = 0xBF;
+			if(b >= 0xC2 && b <= 0xDF){
+				n = 2;
+			}
+			else if(b >= 0xE0 && b <= 0xEF){
+				n = 3;
+				if(b == 0xE0){
+					low = 0xA0;
+				}
+				else if(b == 0xED){
+					high = 0x9F;
+				}
+			}
+			else if(b >= 0xF0 && b <= 0xF4){
+				n = 4;
+				if(b == 0xF0){
+					low = 0x90;
+				}
+				else if(b == 0xF4){
+					high = 0x8F;
+				}
+			}
+			else{
+				target[dp++] = REPLACEMENT;
+				sp++;
+				continue;
+			}
+
+			int codePoint = b & (0xFF >> (n + 1));
+			int k = 1;
+			for(; k < n && sp + k < sl; k++){
+				int next = source.get(sp + k) & 0xFF;
+				if(next < low || next > high){
+					break;
+				}
+				codePoint = codePoint << 6 | next & 0x3F;
+				low = 0x80;
+				high = 0xBF;
+			}
+
+			if(k < n){
+				if(sp + k == sl && !endOfInput){
+					break;
+				}
+				target[dp++] = REPLACEMENT;
+				sp += k;
+				continue;
+			}
+
+			if(codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT){
+				if(dp + 1 >= to){
+					break;
+				}
+				target[dp++] = Character.highSurrogate(codePoint);
+				target[dp++] = Character.lowSurrogate(codePoint);
+			}
+			else{
+				target[dp++] = (char) codePoint;
+			}
+			sp += n;
+		}
+
+		source.position(sp);
+		return dp;
+	}
+}
@@ -0,0 +1,193 @@
+package hr.fer.zemris.java.cstr;
+
+import java.util.Random;
+
+/**
+ * Index of polynomial prefix hashes (Rabin-Karp style) over the characters of a CString. Once the index is
+ * built, the hash of any substring is calculated in O(1), so substrings can be compared for equality in O(1)
+ * instead of comparing them character by character. Hashes are calculated modulo two different primes,
+ * making the probability that two different substrings have the same hash negligible.
+ * <p>
+ * The index covers the characters which the string contains when the index is built. Building takes O(n)
+ * time and 16 bytes of memory per character.
+ *
+ * @author Mislav Gillinger
+ */
+public class CStringHashIndex {
+
+	/** First prime modulus. */
+	private static final long M1 = 1_000_000_007L;
+	/** Second prime modulus. */
+	private static final long M2 = 998_244_353L;
+	/** Source of random bases, so hash collisions can not be prepared in advance. */
+	private static final Random random = new Random();
+
+	/** String which is indexed. */
+	private CString text;
+	/** Base of the first polynomial hash. */
+	private long base1;
+	/** Base of the second polynomial hash. */
+	private long base2;
+	/** Hashes of all prefixes modulo the first prime; prefix1[i] is the hash of the first i characters. */
+	private int[] prefix1;
+	/** Hashes of all prefixes modulo the second prime. */
+	private int[] prefix2;
+	/** Powers of the first base modulo the first prime. */
+	private int[] power1;
+	/** Powers of the second base modulo the second prime. */
+	private int[] power2;
+
+	/**
+	 * Builds a new hash index over the given string.
+	 * @param text String to be indexed.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public CStringHashIndex(CString text) {
+		if(text == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		this.text = text;
+		synchronized(random){
+			this.base1 = 0x10000 + random.nextInt(1 << 24);
+			this.base2 = 0x10000 + random.nextInt(1 << 24);
+		}
+
+		int n = text.length();
+		prefix1 = new int[n + 1];
+		prefix2 = new int[n + 1];
+		power1 = new int[n + 1];
+		power2 = new int[n + 1];
+		power1[0] = 1;
+		power2[0] = 1;
+		for(int i = 0; i < n; i++){
+			char c = text.charAt(i);
+			prefix1[i + 1] = (int) ((prefix1[i] * base1 + c) % M1);
+			prefix2[i + 1] = (int) ((prefix2[i] * base2 + c) % M2);
+			power1[i + 1] = (int) (power1[i] * base1 % M1);
+			power2[i + 1] = (int) (power2[i] * base2 % M2);
+		}
+	}
+
+	/**
+	 * Returns the indexed string.
+	 * @return The indexed string.
+	 */
+	public CString getText(){
+		return text;
+	}
+
+	/**
+	 * Returns number of characters covered by this index.
+	 * @return Number of indexed characters.
+	 */
+	public int length(){
+		return prefix1.length - 1;
+	}
+
+	/**
+	 * Returns the hash of a substring of the indexed string. Position endIndex does not belong to the
+	 * substring. Complexity is O(1).
+	 * @param startIndex Start point of a substring.
+	 * @param endIndex End point of a substring.
+	 * @return Hash of the substring, first hash in the upper and second hash in the lower 32 bits.
+	 * @throws IndexOutOfBoundsException If index is invalid.
+	 */
+	public long hash(int startIndex, int endIndex){
+		if(startIndex < 0 || endIndex < startIndex || endIndex > length()){
+			throw new IndexOutOfBoundsException("Invalid start or end index!");
+		}
+
+		int n = endIndex - startIndex;
+		long h1 = (prefix1[endIndex] - prefix1[startIndex] * (long) power1[n] % M1 + M1) % M1;
+		long h2 = (prefix2[endIndex] - prefix2[startIndex] * (long) power2[n] % M2 + M2) % M2;
+		return h1 << 32 | h2;
+	}
+
+	/**
+	 * Checks whether two substrings of the indexed string of the given length are equal, by comparing their
+	 * hashes. Complexity is O(1).
+	 * @param first Start point of the first substring.
+	 * @param second Start point of the second substring.
+	 * @param n Length of the substrings.
+	 * @return True if the substrings are equal, false otherwise.
+	 * @throws IndexOutOfBoundsException If index is invalid.
+	 */
+	public boolean substringEquals(int first, int second, int n){
+		return hash(first, first + n) == hash(second, second + n);
+	}
+
+	/**
+	 * Calculates the hash of the given string the same way as hashes of indexed substrings are calculated.
+	 * @param s String to be hashed.
+	 * @return Hash of the given string, comparable to hashes returned by this index.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public long hashOf(CString s){
+		if(s == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		long h1 = 0;
+		long h2 = 0;
+		for(int i = 0, n = s.length(); i < n; i++){
+			char c = s.charAt(i);
+			h1 = (h1 * base1 + c) % M1;
+			h2 = (h2 * base2 + c) % M2;
+		}
+
+		return h1 << 32 | h2;
+	}
+
+	/**
+	 * Returns index of first occurrence of the given string in the indexed string, starting the search at the
+	 * given position, or -1. Candidate positions are found by comparing hashes of each window in O(1), and
+	 * every candidate is verified character by character, so the result is always exact.
+	 * @param s String to be searched for.
+	 * @param fromIndex Position where the search starts. Negative position is treated as 0.
+	 * @return Index of first occurrence of the given string or -1.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public int indexOf(CString s, int fromIndex){
+		long target = hashOf(s);
+		int m = s.length();
+
+		for(int i = Math.max(fromIndex, 0); i <= length() - m; i++){
+			if(hash(i, i + m) == target && matches(i, s)){
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Checks if the indexed string contains the given one, using the rolling hash search.
+	 * @param s String which is a potential substring of the indexed string.
+	 * @return True if the indexed string contains the given one, false otherwise.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public boolean contains(CString s){
+		if(s == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		return s.length() != 0 && indexOf(s, 0) != -1;
+	}
+
+	/**
+	 * Checks whether characters of the indexed string starting at the given position match the given string.
+	 * @param position Position in the indexed string.
+	 * @param s String whose characters are compared.
+	 * @return True if characters match, false otherwise.
+	 */
+	private boolean matches(int position, CString s){
+		for(int i = 0, n = s.length(); i < n; i++){
+			if(text.charAt(position + i) != s.charAt(i)){
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,166 @@
+package hr.fer.zemris.java.cstr;
+
+/**
+ * Scanning kernels used by CString. Each kernel processes a block of eight characters per iteration, testing
+ * the whole block with a single branch, and finishes the remaining characters one at a time. Blocks are
+ * written without dependencies between their elements so the JIT compiler can unroll and vectorize them.
+ *
+ * @author Mislav Gillinger
+ */
+final class CStringKernels {
+
+	/** Number of characters processed in one iteration of a kernel. */
+	private static final int BLOCK = 8;
+
+	/**
+	 * Private constructor, class only contains static methods.
+	 */
+	private CStringKernels() {
+	}
+
+	/**
+	 * Returns index of first occurrence of the given char between the given positions or -1.
+	 * @param a Array to be searched.
+	 * @param from Index where the search starts, inclusive.
+	 * @param to Index where the search ends, exclusive.
+	 * @param c Char to be searched for.
+	 * @return Index of first occurrence of the given char in the array or -1.
+	 */
+	static int indexOf(char[] a, int from, int to, char c){
+		int i = from;
+		for(; i <= to - BLOCK; i += BLOCK){
+			if(a[i] == c | a[i + 1] == c | a[i + 2] == c | a[i + 3] == c
+					| a[i + 4] == c | a[i + 5] == c | a[i + 6] == c | a[i + 7] == c){
+				break;
+			}
+		}
+
+		for(; i < to; i++){
+			if(a[i] == c){
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Returns index of first occurrence of the given byte between the given positions or -1.
+	 * @param a Array to be searched.
+	 * @param from Index where the search starts, inclusive.
+	 * @param to Index where the search ends, exclusive.
+	 * @param b Byte to be searched for.
+	 * @return Index of first occurrence of the given byte in the array or -1.
+	 */
+	static int indexOf(byte[] a, int from, int to, byte b){
+		int i = from;
+		for(; i <= to - BLOCK; i += BLOCK){
+			if(a[i] == b | a[i + 1] == b | a[i + 2] == b | a[i + 3] == b
+					| a[i + 4] == b | a[i + 5] == b | a[i + 6] == b | a[i + 7] == b){
+				break;
+			}
+		}
+
+		for(; i < to; i++){
+			if(a[i] == b){
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Checks whether n characters of the first array starting at i are equal to n characters of the second
+	 * array starting at j.
+	 * @param a First array.
+	 * @param i Starting index in the first array.
+	 * @param b Second array.
+	 * @param j Starting index in the second array.
+	 * @param n Number of characters to compare.
+	 * @return True if the ranges are equal, false otherwise.
+	 */
+	static boolean equals(char[] a, int i, char[] b, int j, int n){
+		int end = i + n;
+		for(; i <= end - BLOCK; i += BLOCK, j += BLOCK){
+			if(((a[i] ^ b[j]) | (a[i + 1] ^ b[j + 1]) | (a[i + 2] ^ b[j + 2]) | (a[i + 3] ^ b[j + 3])
+					| (a[i + 4] ^ b[j + 4]) | (a[i + 5] ^ b[j + 5]) | (a[i + 6] ^ b[j + 6])
+					| (a[i + 7] ^ b[j + 7])) != 0){
+				return false;
+			}
+		}
+
+		for(; i < end; i++, j++){
+			if(a[i] != b[j]){
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Checks whether n bytes of the first array starting at i are equal to n bytes of the second
+	 * array starting at j.
+	 * @param a First array.
+	 * @param i Starting index in the first array.
+	 * @param b Second array.
+	 * @param j Starting index in the second array.
+	 * @param n Number of bytes to compare.
+	 * @return True if the ranges are equal, false otherwise.
+	 */
+	static boolean equals(byte[] a, int i, byte[] b, int j, int n){
+		int end = i + n;
+		for(; i <= end - BLOCK; i += BLOCK, j += BLOCK){
+			if(((a[i] ^ b[j]) | (a[i + 1] ^ b[j + 1]) | (a[i + 2] ^ b[j + 2]) | (a[i + 3] ^ b[j + 3])
+					| (a[i + 4] ^ b[j + 4]) | (a[i + 5] ^ b[j + 5]) | (a[i + 6] ^ b[j + 6])
+					| (a[i + 7] ^ b[j + 7])) != 0){
+				return false;
+			}
+		}
+
+		for(; i < end; i++, j++){
+			if(a[i] != b[j]){
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Copies n characters from source to destination array, replacing each occurrence of old character with
+	 * the new one. The loop body has no branches, so it can be vectorized.
+	 * @param src Source array.
+	 * @param i Starting index in the source array.
+	 * @param dst Destination array.
+	 * @param j Starting index in the destination array.
+	 * @param n Number of characters to copy.
+	 * @param oldChar Character to be replaced.
+	 * @param newChar Replacement character.
+	 */
+	static void replace(char[] src, int i, char[] dst, int j, int n, char oldChar, char newChar){
+		for(int k = 0; k < n; k++){
+			char c = src[i + k];
+			dst[j + k] = c == oldChar ? newChar : c;
+		}
+	}
+
+	/**
+	 * Copies n bytes from source to destination array, replacing each occurrence of old byte with
+	 * the new one. The loop body has no branches, so it can be vectorized.
+	 * @param src Source array.
+	 * @param i Starting index in the source array.
+	 * @param dst Destination array.
+	 * @param j Starting index in the destination array.
+	 * @param n Number of bytes to copy.
+	 * @param oldByte Byte to be replaced.
+	 * @param newByte Replacement byte.
+	 */
+	static void replace(byte[] src, int i, byte[] dst, int j, int n, byte oldByte, byte newByte){
+		for(int k = 0; k < n; k++){
+			byte b = src[i + k];
+			dst[j + k] = b == oldByte ? newByte : b;
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package hr.fer.zemris.java.cstr;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import hr.fer.zemris.java.custom.collections.Processor;
+
+/**
+ * Incremental matcher which searches for a pattern in a text given as a sequence of CString chunks. The matcher
+ * remembers how much of the pattern was matched at the end of the previous chunk, so matches spanning chunk
+ * boundaries are found as well, while its memory use depends only on the pattern length. The search uses
+ * the Knuth-Morris-Pratt algorithm, so every character of the input is examined a constant number of times
+ * on average.
+ * <p>
+ * Each match is reported to a processor as a Long holding the absolute offset of the first character of the
+ * match, counted from the beginning of the whole input. Overlapping matches are all reported.
+ *
+ * @author Mislav Gillinger
+ */
+public class CStringMatcher {
+
+	/** Default number of characters read in one chunk. */
+	private static final int defaultChunkSize = 8192;
+
+	/** Pattern which is searched for. */
+	private char[] pattern;
+	/** Length of the longest proper prefix of the pattern which is also a suffix, for each pattern prefix. */
+	private int[] failure;
+	/** Number of pattern characters matched at the end of the input processed so far. */
+	private int matched;
+	/** Number of characters processed so far. */
+	private long position;
+
+	/**
+	 * Creates a new matcher which searches for the given pattern.
+	 * @param pattern Pattern to be searched for. Must not be empty.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the pattern is empty.
+	 */
+	public CStringMatcher(CString pattern) {
+		if(pattern == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		if(pattern.length() == 0){
+			throw new IllegalArgumentException("Pattern must not be empty!");
+		}
+
+		this.pattern = pattern.toCharArray();
+		this.failure = new int[this.pattern.length];
+		for(int i = 1, k = 0; i < this.pattern.length; i++){
+			while(k > 0 && this.pattern[i] != this.pattern[k]){
+				k = failure[k - 1];
+			}
+			if(this.pattern[i] == this.pattern[k]){
+				k++;
+			}
+			failure[i] = k;
+		}
+	}
+
+	/**
+	 * Processes the next chunk of the input and reports every match which ends in it.
+	 * @param chunk Next chunk of the input. It is not used after this method returns, so its backing array
+	 * 		can be reused for the following chunk.
+	 * @param processor Processor which receives the absolute offset of each match.
+	 * @return Number of matches which end in the given chunk.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public int feed(CString chunk, Processor processor){
+		if(chunk == null || processor == null){
+			throw new NullPointerException("Arguments must not be null!");
+		}
+
+		char[] data = chunk.data();
+		byte[] latin1 = chunk.latin1();
+		int offset = chunk.offset();
+		int count = 0;
+		int k = matched;
+		for(int i = 0, n = chunk.length(); i < n; i++){
+			char c = latin1 != null ? (char) (latin1[offset + i] & 0xFF) : data[offset + i];
+			while(k > 0 && c != pattern[k]){
+				k = failure[k - 1];
+			}
+			if(c == pattern[k]){
+				k++;
+			}
+			if(k == pattern.length){
+				processor.process(position + i - pattern.length + 1);
+				count++;
+				k = failure[k - 1];
+			}
+		}
+
+		matched = k;
+		position += chunk.length();
+		return count;
+	}
+
+	/**
+	 * Returns number of characters processed since the matcher was created or reset.
+	 * @return Number of characters processed so far.
+	 */
+	public long position(){
+		return position;
+	}
+
+	/**
+	 * Resets the matcher, so the next chunk is treated as the beginning of a new input.
+	 */
+	public void reset(){
+		matched = 0;
+		position = 0;
+	}
+
+	/**
+	 * Reads the whole given reader in fixed size chunks and reports every match. A single character array is
+	 * reused for all chunks, so memory use does not depend on the input size. The reader is not closed.
+	 * @param reader Reader to be searched.
+	 * @param processor Processor which receives the absolute offset of each match.
+	 * @return Number of matches found.
+	 * @throws IOException if reading fails.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public long search(Reader reader, Processor processor) throws IOException {
+		if(reader == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		char[] buffer = new char[defaultChunkSize];
+		long count = 0;
+		for(int n = reader.read(buffer); n != -1; n = reader.read(buffer)){
+			count += feed(new CString(buffer, 0, n), processor);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Reads the whole given channel in fixed size chunks, decoding them with the given charset, and reports
+	 * every match. Byte and character buffers are reused for all chunks, so memory use does not depend on the
+	 * input size. Malformed input is replaced by the charset's replacement character. The channel is not closed.
+	 * @param channel Channel to be searched.
+	 * @param charset Charset of the channel content.
+	 * @param processor Processor which receives the absolute offset of each match, in characters.
+	 * @return Number of matches found.
+	 * @throws IOException if reading fails.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public long search(ReadableByteChannel channel, Charset charset, Processor processor) throws IOException {
+		if(channel == null || charset == null){
+			throw new NullPointerException("Arguments must not be null!");
+		}
+
+		CharsetDecoder decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		ByteBuffer bytes = ByteBuffer.allocate(defaultChunkSize);
+		CharBuffer chars = CharBuffer.allocate(defaultChunkSize);
+		long count = 0;
+
+		boolean endOfInput = false;
+		while(!endOfInput){
+			endOfInput = channel.read(bytes) == -1;
+			bytes.flip();
+			CoderResult result;
+			do{
+				result = decoder.decode(bytes, chars, endOfInput);
+				count += drain(chars, processor);
+			} while(result.isOverflow());
+			bytes.compact();
+		}
+
+		while(decoder.flush(chars).isOverflow()){
+			count += drain(chars, processor);
+		}
+		count += drain(chars, processor);
+
+		return count;
+	}
+
+	/**
+	 * Feeds the decoded characters of the given buffer to the matcher and clears the buffer.
+	 * @param chars Buffer containing decoded characters.
+	 * @param processor Processor which receives the absolute offset of each match.
+	 * @return Number of matches found.
+	 */
+	private int drain(CharBuffer chars, Processor processor){
+		int count = feed(new CString(chars.array(), 0, chars.position()), processor);
+		chars.clear();
+		return count;
+	}
+}
@@ -0,0 +1,460 @@
+package hr.fer.zemris.java.cstr;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses numbers directly from characters of a CString, or of a range of a character array, without creating
+ * intermediate String objects. Accepted formats are the same as for Integer.parseInt, Long.parseLong and
+ * Double.parseDouble, and errors are reported with NumberFormatException in the same way, except that only
+ * ASCII digits are accepted, while Integer.parseInt and Long.parseLong also accept other Unicode digits.
+ * <p>
+ * Decimal numbers whose significant digits fit into 53 bits and whose exponent is at most 22 in magnitude,
+ * which covers most real data, are converted exactly with a single multiplication or division by a power of
+ * ten. All other forms, such as long mantissas, large exponents, NaN or hexadecimal notation, fall back to
+ * Double.parseDouble.
+ *
+ * @author Mislav Gillinger
+ */
+public final class CStringNumbers {
+
+	/** Powers of ten which are exactly representable as double. */
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+			1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	/** Largest mantissa which is exactly representable as double. */
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	/**
+	 * Private constructor, class only contains static methods.
+	 */
+	private CStringNumbers() {
+	}
+
+	/**
+	 * Parses the given string as a signed decimal int.
+	 * @param s String to be parsed.
+	 * @return The parsed number.
+	 * @throws NumberFormatException if the string does not contain a parsable int.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static int parseInt(CString s){
+		return parseInt(s, 0, s.length());
+	}
+
+	/**
+	 * Parses a part of the given string as a signed decimal int. Position endIndex does not belong to the part.
+	 * @param s String to be parsed.
+	 * @param startIndex Start point of the part.
+	 * @param endIndex End point of the part.
+	 * @return The parsed number.
+	 * @throws NumberFormatException if the part does not contain a parsable int.
+	 * @throws IndexOutOfBoundsException if index is invalid.
+	 */
+	public static int parseInt(CString s, int startIndex, int endIndex){
+		checkRange(s.length(), startIndex, endIndex);
+		return (int) parse(s.data(), s.latin1(), s.offset() + startIndex, s.offset() + endIndex,
+				Integer.MIN_VALUE, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Parses a range of the given character array as a signed decimal int.
+	 * @param data Character array to be parsed.
+	 * @param offset Index of the first character of the range.
+	 * @param length Length of the range.
+	 * @return The parsed number.
+	 * @throws NumberFormatException if the range does not contain a parsable int.
+	 * @throws IndexOutOfBoundsException if the range is invalid.
+	 */
+	public static int parseInt(char[] data, int offset, int length){
+		checkRange(data.length, offset, offset + length);
+		return (int) parse(data, null, offset, offset + length, Integer.MIN_VALUE, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Parses the given string as a signed decimal long.
+	 * @param s String to be parsed.
+	 * @return The parsed number.
+	 * @throws NumberFormatException if the string does not contain a parsable long.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static long parseLong(CString s){
+		return parseLong(s, 0, s.length());
+	}
+
+	/**
+	 * Parses a part of the given string as a signed decimal long. Position endIndex does not belong to the part.
+	 * @param s String to be parsed.
+	 * @param startIndex Start point of the part.
+	 * @param endIndex End point of the part.
+	 * @return The parsed number.
+	 * @throws NumberFormatException if the part does not contain a parsable long.
+	 * @throws IndexOutOfBoundsException if index is invalid.
+	 */
+	public static long parseLong(CString s, int startIndex, int endIndex){
+		checkRange(s.length(), startIndex, endIndex);
+		return parse(s.data(), s.latin1(), s.offset() + startIndex, s.offset() + endIndex,
+				Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Parses a range of the given character array as a signed decimal long.
+	 * @param data Character array to be parsed.
+	 * @param offset Index of the first character of the range.
+	 * @param length Length of the range.
+	 * @return The parsed number.
+	 * @throws NumberFormatException if the range does not contain a parsable long.
+	 * @throws IndexOutOfBoundsException if the range is invalid.
+	 */
+	public static long parseLong(char[] data, int offset, int length){
+		checkRange(data.length, offset, offset + length);
+		return parse(data, null, offset, offset + length, Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Parses the given string as a double.
+	 * @param s String to be parsed.
+	 * @return The parsed number.
+	 * @throws NumberFormatException if the string does not contain a parsable double.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static double parseDouble(CString s){
+		return parseDouble(s, 0, s.length());
+	}
+
+	/**
+	 * Parses a part of the given string as a double. Position endIndex does not belong to the part.
+	 * @param s String to be parsed.
+	 * @param startIndex Start point of the part.
+	 * @param endIndex End point of the part.
+	 * @return The parsed number.
+	 * @throws NumberFormatException if the part does not contain a parsable double.
+	 * @throws IndexOutOfBoundsException if index is invalid.
+	 */
+	public static double parseDouble(CString s, int startIndex, int endIndex){
+		checkRange(s.length(), startIndex, endIndex);
+		return parseDouble(s.data(), s.latin1(), s.offset() + startIndex, s.offset() + endIndex);
+	}
+
+	/**
+	 * Parses a range of the given character array as a double.
+	 * @param data Character array to be parsed.
+	 * @param offset Index of the first character of the range.
+	 * @param length Length of the range.
+	 * @return The parsed number.
+	 * @throws NumberFormatException if the range does not contain a parsable double.
+	 * @throws IndexOutOfBoundsException if the range is invalid.
+	 */
+	public static double parseDouble(char[] data, int offset, int length){
+		checkRange(data.length, offset, offset + length);
+		return parseDouble(data, null, offset, offset + length);
+	}
+
+	/**
+	 * Parses all parts of the given string separated by the given delimiter as ints. A delimiter at the very
+	 * end of the string is ignored, so newline terminated lines can be parsed.
+	 * @param s String to be parsed.
+	 * @param delimiter Character which separates the numbers.
+	 * @return Array of the parsed numbers, in order.
+	 * @throws NumberFormatException if any part does not contain a parsable int.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static int[] parseInts(CString s, char delimiter){
+		int[] numbers = new int[countParts(s, delimiter)];
+		for(int i = 0, start = 0; i < numbers.length; i++){
+			int end = partEnd(s, delimiter, start);
+			numbers[i] = parseInt(s, start, end);
+			start = end + 1;
+		}
+
+		return numbers;
+	}
+
+	/**
+	 * Parses all parts of the given string separated by the given delimiter as longs. A delimiter at the very
+	 * end of the string is ignored, so newline terminated lines can be parsed.
+	 * @param s String to be parsed.
+	 * @param delimiter Character which separates the numbers.
+	 * @return Array of the parsed numbers, in order.
+	 * @throws NumberFormatException if any part does not contain a parsable long.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static long[] parseLongs(CString s, char delimiter){
+		long[] numbers = new long[countParts(s, delimiter)];
+		for(int i = 0, start = 0; i < numbers.length; i++){
+			int end = partEnd(s, delimiter, start);
+			numbers[i] = parseLong(s, start, end);
+			start = end + 1;
+		}
+
+		return numbers;
+	}
+
+	/**
+	 * Parses all parts of the given string separated by the given delimiter as doubles. A delimiter at the very
+	 * end of the string is ignored, so newline terminated lines can be parsed.
+	 * @param s String to be parsed.
+	 * @param delimiter Character which separates the numbers.
+	 * @return Array of the parsed numbers, in order.
+	 * @throws NumberFormatException if any part does not contain a parsable double.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static double[] parseDoubles(CString s, char delimiter){
+		double[] numbers = new double[countParts(s, delimiter)];
+		for(int i = 0, start = 0; i < numbers.length; i++){
+			int end = partEnd(s, delimiter, start);
+			numbers[i] = parseDouble(s, start, end);
+			start = end + 1;
+		}
+
+		return numbers;
+	}
+
+	/**
+	 * Counts parts of the given string separated by the given delimiter, ignoring a delimiter at the very end.
+	 * @param s String whose parts are counted.
+	 * @param delimiter Character which separates the parts.
+	 * @return Number of parts, 0 for an empty string.
+	 */
+	private static int countParts(CString s, char delimiter){
+		int length = s.length();
+		if(length == 0){
+			return 0;
+		}
+
+		int count = 1;
+		for(int i = s.indexOf(delimiter, 0); i != -1 && i < length - 1; i = s.indexOf(delimiter, i + 1)){
+			count++;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Returns the end of the part of the given string which starts at the given position.
+	 * @param s String which is split into parts.
+	 * @param delimiter Character which separates the parts.
+	 * @param start Start of the part.
+	 * @return Position of the delimiter ending the part, or length of the string.
+	 */
+	private static int partEnd(CString s, char delimiter, int start){
+		int end = s.indexOf(delimiter, start);
+		return end == -1 ? s.length() : end;
+	}
+
+	/**
+	 * Checks whether the given range lies inside an array or string of the given length.
+	 * @param length Length of the array or string.
+	 * @param from Start of the range.
+	 * @param to End of the range.
+	 * @throws IndexOutOfBoundsException if the range is invalid.
+	 */
+	private static void checkRange(int length, int from, int to){
+		if(from < 0 || to < from || to > length){
+			throw new IndexOutOfBoundsException("Invalid start or end index!");
+		}
+	}
+
+	/**
+	 * Returns a character from either of the given arrays, whichever is not null.
+	 * @param chars Character array, or null.
+	 * @param bytes Latin-1 byte array, used if character array is null.
+	 * @param index Index of the character.
+	 * @return The character at the given index.
+	 */
+	private static char at(char[] chars, byte[] bytes, int index){
+		return chars != null ? chars[index] : (char) (bytes[index] & 0xFF);
+	}
+
+	/**
+	 * Parses a signed decimal integer and checks it against the given limits. The number is accumulated as a
+	 * negative value, so the minimal value of the type can be parsed as well.
+	 * @param chars Character array, or null.
+	 * @param bytes Latin-1 byte array, used if character array is null.
+	 * @param from Index of the first character.
+	 * @param to Index after the last character.
+	 * @param min Smallest allowed value.
+	 * @param max Largest allowed value.
+	 * @return The parsed number.
+	 * @throws NumberFormatException if the range does not contain a parsable number within limits.
+	 */
+	private static long parse(char[] chars, byte[] bytes, int from, int to, long min, long max){
+		if(from == to){
+			throw error(chars, bytes, from, to);
+		}
+
+		int i = from;
+		boolean negative = false;
+		char first = at(chars, bytes, i);
+		if(first == '-' || first == '+'){
+			negative = first == '-';
+			if(++i == to){
+				throw error(chars, bytes, from, to);
+			}
+		}
+
+		long limit = negative ? min : -max;
+		long multiplyLimit = limit / 10;
+		long result = 0;
+		for(; i < to; i++){
+			int digit = at(chars, bytes, i) - '0';
+			if(digit < 0 || digit > 9 || result < multiplyLimit){
+				throw error(chars, bytes, from, to);
+			}
+
+			result *= 10;
+			if(result < limit + digit){
+				throw error(chars, bytes, from, to);
+			}
+			result -= digit;
+		}
+
+		return negative ? result : -result;
+	}
+
+	/**
+	 * Parses a double. Leading and trailing characters up to space are ignored, as in Double.parseDouble.
+	 * @param chars Character array, or null.
+	 * @param bytes Latin-1 byte array, used if character array is null.
+	 * @param from Index of the first character.
+	 * @param to Index after the last character.
+	 * @return The parsed number.
+	 * @throws NumberFormatException if the range does not contain a parsable double.
+	 */
+	private static double parseDouble(char[] chars, byte[] bytes, int from, int to){
+		int start = from;
+		int end = to;
+		while(start < end && at(chars, bytes, start) <= ' '){
+			start++;
+		}
+		while(end > start && at(chars, bytes, end - 1) <= ' '){
+			end--;
+		}
+
+		int i = start;
+		boolean negative = false;
+		if(i < end && (at(chars, bytes, i) == '-' || at(chars, bytes, i) == '+')){
+			negative = at(chars, bytes, i) == '-';
+			i++;
+		}
+
+		long mantissa = 0;
+		int significantDigits = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean point = false;
+		for(; i < end; i++){
+			char c = at(chars, bytes, i);
+			if(c == '.' && !point){
+				point = true;
+				continue;
+			}
+			if(c < '0' || c > '9'){
+				break;
+			}
+
+			digits++;
+			if(mantissa == 0 && c == '0'){
+				if(point){
+					exponent--;
+				}
+				continue;
+			}
+			if(significantDigits == 18){
+				return fallback(chars, bytes, from, to);
+			}
+
+			mantissa = mantissa * 10 + (c - '0');
+			significantDigits++;
+			if(point){
+				exponent--;
+			}
+		}
+
+		if(digits == 0){
+			return fallback(chars, bytes, from, to);
+		}
+
+		if(i < end){
+			char c = at(chars, bytes, i);
+			if(c != 'e' && c != 'E'){
+				return fallback(chars, bytes, from, to);
+			}
+
+			boolean negativeExponent = false;
+			if(++i < end && (at(chars, bytes, i) == '-' || at(chars, bytes, i) == '+')){
+				negativeExponent = at(chars, bytes, i) == '-';
+				i++;
+			}
+			if(i == end){
+				throw error(chars, bytes, from, to);
+			}
+
+			int explicitExponent = 0;
+			for(; i < end; i++){
+				int digit = at(chars, bytes, i) - '0';
+				if(digit < 0 || digit > 9){
+					return fallback(chars, bytes, from, to);
+				}
+				if(explicitExponent < 100_000){
+					explicitExponent = explicitExponent * 10 + digit;
+				}
+			}
+			exponent += negativeExponent ? -explicitExponent : explicitExponent;
+		}
+
+		double value;
+		if(mantissa == 0){
+			value = 0;
+		}
+		else if(mantissa <= MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22){
+			value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+		}
+		else{
+			return fallback(chars, bytes, from, to);
+		}
+
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Parses a double with Double.parseDouble, for forms which are not handled directly.
+	 * @param chars Character array, or null.
+	 * @param bytes Latin-1 byte array, used if character array is null.
+	 * @param from Index of the first character.
+	 * @param to Index after the last character.
+	 * @return The parsed number.
+	 * @throws NumberFormatException if the range does not contain a parsable double.
+	 */
+	private static double fallback(char[] chars, byte[] bytes, int from, int to){
+		return Double.parseDouble(toString(chars, bytes, from, to));
+	}
+
+	/**
+	 * Creates an exception describing the given unparsable input.
+	 * @param chars Character array, or null.
+	 * @param bytes Latin-1 byte array, used if character array is null.
+	 * @param from Index of the first character.
+	 * @param to Index after the last character.
+	 * @return Exception to be thrown.
+	 */
+	private static NumberFormatException error(char[] chars, byte[] bytes, int from, int to){
+		return new NumberFormatException("For input string: \"" + toString(chars, bytes, from, to) + "\"");
+	}
+
+	/**
+	 * Creates a String from the given range.
+	 * @param chars Character array, or null.
+	 * @param bytes Latin-1 byte array, used if character array is null.
+	 * @param from Index of the first character.
+	 * @param to Index after the last character.
+	 * @return String containing the characters of the range.
+	 */
+	private static String toString(char[] chars, byte[] bytes, int from, int to){
+		if(chars != null){
+			return new String(chars, from, to - from);
+		}
+
+		return new String(bytes, from, to - from, StandardCharsets.ISO_8859_1);
+	}
+}
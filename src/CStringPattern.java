@@ -0,0 +1,481 @@
+package hr.fer.zemris.java.cstr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import hr.fer.zemris.java.custom.collections.ArrayIndexedCollection;
+
+/**
+ * Represents a compiled wildcard pattern which is matched directly against characters of CStrings. The pattern
+ * language is glob extended with anchors:
+ * <ul>
+ * <li>{@code *} matches any sequence of characters, including an empty one,</li>
+ * <li>{@code ?} matches any single character,</li>
+ * <li>{@code [abc]} and {@code [a-z]} match a single character from the class, {@code [!...]} or {@code [^...]}
+ * a single character not in it; {@code ]} is a member if it comes first,</li>
+ * <li>{@code ^} at the start and {@code $} at the end anchor the pattern to the start and the end of the
+ * string,</li>
+ * <li>{@code \} makes the next character a literal.</li>
+ * </ul>
+ * Like grep, a pattern matches a string if it matches any part of it, unless it is anchored. Pattern
+ * {@code ^*.txt$} therefore matches exactly the strings ending with ".txt".
+ * <p>
+ * A pattern is compiled into a deterministic finite automaton over classes of characters which no part of the
+ * pattern tells apart, so matching reads every character at most once with a single table lookup, and stops as
+ * soon as the outcome is known. Compiled patterns are immutable and can be shared between threads;
+ * {@link #compile(String)} keeps recently used ones in a cache.
+ *
+ * @author Mislav Gillinger
+ */
+public class CStringPattern {
+
+	/** Number of compiled patterns kept in the cache. */
+	private static final int CACHE_SIZE = 64;
+	/** Largest number of automaton states, patterns which need more are rejected. */
+	private static final int MAX_STATES = 4096;
+	/** State which can not reach an accepting state. */
+	private static final int DEAD = 0;
+	/** Initial state. */
+	private static final int START = 1;
+
+	/** Recently compiled patterns, least recently used first. */
+	private static final Map<String, CStringPattern> CACHE =
+			new LinkedHashMap<String, CStringPattern>(16, 0.75f, true) {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CStringPattern> eldest){
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	/** Source of the pattern. */
+	private final String pattern;
+	/** Sorted first characters of all character classes except the one starting with 0. */
+	private final int[] bounds;
+	/** Character class of every Latin-1 character. */
+	private final int[] latin1Classes;
+	/** Number of character classes. */
+	private final int classes;
+	/** Transitions, next state of state s on class k is at s * classes + k. */
+	private final int[] next;
+	/** True for states in which the string matches if it ends. */
+	private final boolean[] accepting;
+	/** True for states after which the outcome does not depend on the rest of the string. */
+	private final boolean[] decided;
+
+	/**
+	 * Compiles a new pattern.
+	 * @param pattern Source of the pattern.
+	 * @throws IllegalArgumentException if the pattern is malformed or too complex.
+	 */
+	private CStringPattern(String pattern) {
+		this.pattern = pattern;
+
+		List<int[]> sets = new ArrayList<>();
+		List<Boolean> loops = new ArrayList<>();
+		boolean anchoredStart = false;
+		boolean anchoredEnd = false;
+		boolean loop = false;
+
+		int n = pattern.length();
+		int i = 0;
+		if(n > 0 && pattern.charAt(0) == '^'){
+			anchoredStart = true;
+			i++;
+		}
+
+		while(i < n){
+			char c = pattern.charAt(i++);
+			if(c == '*'){
+				loop = true;
+				continue;
+			}
+
+			if(c == '$' && i == n){
+				anchoredEnd = true;
+				break;
+			}
+
+			if(c == '?'){
+				sets.add(new int[] {Character.MIN_VALUE, Character.MAX_VALUE});
+			}
+			else if(c == '['){
+				i = parseClass(pattern, i, sets);
+			}
+			else{
+				if(c == '\\'){
+					if(i == n){
+						throw new IllegalArgumentException("Pattern must not end with an escape!");
+					}
+					c = pattern.charAt(i++);
+				}
+				sets.add(new int[] {c, c});
+			}
+			loops.add(loop);
+			loop = false;
+		}
+		loops.add(loop);
+
+		if(!anchoredStart){
+			loops.set(0, true);
+		}
+		if(!anchoredEnd){
+			loops.set(sets.size(), true);
+		}
+
+		this.bounds = bounds(sets);
+		this.classes = bounds.length + 1;
+		this.latin1Classes = new int[256];
+		for(int c = 0; c < 256; c++){
+			latin1Classes[c] = classOf((char) c);
+		}
+
+		boolean[][] members = new boolean[sets.size()][classes];
+		for(int s = 0; s < sets.size(); s++){
+			int[] set = sets.get(s);
+			for(int k = 0; k < classes; k++){
+				int first = k == 0 ? 0 : bounds[k - 1];
+				members[s][k] = contains(set, first);
+			}
+		}
+
+		boolean[] loopArray = new boolean[loops.size()];
+		for(int s = 0; s < loopArray.length; s++){
+			loopArray[s] = loops.get(s);
+		}
+
+		List<BitSet> states = new ArrayList<>();
+		Map<BitSet, Integer> numbers = new HashMap<>();
+		BitSet dead = new BitSet();
+		BitSet start = new BitSet();
+		start.set(0);
+		states.add(dead);
+		numbers.put(dead, DEAD);
+		states.add(start);
+		numbers.put(start, START);
+
+		int m = sets.size();
+		int[] table = new int[16 * classes];
+		for(int s = 0; s < states.size(); s++){
+			BitSet state = states.get(s);
+			for(int k = 0; k < classes; k++){
+				BitSet target = new BitSet();
+				for(int p = state.nextSetBit(0); p >= 0; p = state.nextSetBit(p + 1)){
+					if(p < m && members[p][k]){
+						target.set(p + 1);
+					}
+					if(loopArray[p]){
+						target.set(p);
+					}
+				}
+
+				Integer number = numbers.get(target);
+				if(number == null){
+					if(states.size() == MAX_STATES){
+						throw new IllegalArgumentException("Pattern is too complex!");
+					}
+					number = states.size();
+					states.add(target);
+					numbers.put(target, number);
+				}
+
+				if(table.length <= s * classes + k){
+					table = Arrays.copyOf(table, table.length * 2);
+				}
+				table[s * classes + k] = number;
+			}
+		}
+
+		this.next = Arrays.copyOf(table, states.size() * classes);
+		this.accepting = new boolean[states.size()];
+		this.decided = new boolean[states.size()];
+		for(int s = 0; s < states.size(); s++){
+			BitSet state = states.get(s);
+			accepting[s] = state.get(m);
+			decided[s] = state.isEmpty() || accepting[s] && loopArray[m];
+		}
+	}
+
+	/**
+	 * Returns a compiled pattern, taking it from the cache if it was compiled recently.
+	 * @param pattern Source of the pattern.
+	 * @return The compiled pattern.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the pattern is malformed or too complex.
+	 */
+	public static CStringPattern compile(String pattern){
+		if(pattern == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		synchronized(CACHE){
+			CStringPattern compiled = CACHE.get(pattern);
+			if(compiled != null){
+				return compiled;
+			}
+		}
+
+		CStringPattern compiled = new CStringPattern(pattern);
+		synchronized(CACHE){
+			CACHE.put(pattern, compiled);
+		}
+
+		return compiled;
+	}
+
+	/**
+	 * Checks if the given string matches the given pattern.
+	 * @param pattern Source of the pattern.
+	 * @param s String to be checked.
+	 * @return True if the string matches the pattern, false otherwise.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the pattern is malformed or too complex.
+	 */
+	public static boolean matches(String pattern, CString s){
+		return compile(pattern).matches(s);
+	}
+
+	/**
+	 * Checks if the given string matches this pattern.
+	 * @param s String to be checked.
+	 * @return True if the string matches this pattern, false otherwise.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public boolean matches(CString s){
+		if(s == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		int state = START;
+		if(decided[state]){
+			return accepting[state];
+		}
+
+		int offset = s.offset();
+		int end = offset + s.length();
+		byte[] latin1 = s.latin1();
+		if(latin1 != null){
+			for(int i = offset; i < end; i++){
+				state = next[state * classes + latin1Classes[latin1[i] & 0xFF]];
+				if(decided[state]){
+					return accepting[state];
+				}
+			}
+		}
+		else{
+			char[] data = s.data();
+			for(int i = offset; i < end; i++){
+				char c = data[i];
+				state = next[state * classes + (c < 256 ? latin1Classes[c] : classOf(c))];
+				if(decided[state]){
+					return accepting[state];
+				}
+			}
+		}
+
+		return accepting[state];
+	}
+
+	/**
+	 * Returns a new collection with the strings from the given collection which match this pattern, in the
+	 * same order.
+	 * @param strings Collection to be filtered. Must contain only CStrings.
+	 * @return Collection with the matching strings.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws ClassCastException if the collection contains an object which is not a CString.
+	 */
+	public ArrayIndexedCollection filter(ArrayIndexedCollection strings){
+		if(strings == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		ArrayIndexedCollection result = new ArrayIndexedCollection();
+		for(int i = 0, n = strings.size(); i < n; i++){
+			CString s = (CString) strings.get(i);
+			if(matches(s)){
+				result.add(s);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the source of this pattern.
+	 * @return Source of this pattern.
+	 */
+	@Override
+	public String toString(){
+		return pattern;
+	}
+
+	/**
+	 * Returns the character class of the given character.
+	 * @param c Character whose class is returned.
+	 * @return Number of the class.
+	 */
+	private int classOf(char c){
+		int lo = 0;
+		int hi = bounds.length;
+		while(lo < hi){
+			int middle = (lo + hi) >>> 1;
+			if(bounds[middle] <= c){
+				lo = middle + 1;
+			}
+			else{
+				hi = middle;
+			}
+		}
+
+		return lo;
+	}
+
+	/**
+	 * Parses a character class which starts after '[' and adds its ranges to the given list.
+	 * @param pattern Source of the pattern.
+	 * @param i Position after '['.
+	 * @param sets List which receives the ranges of the class.
+	 * @return Position after the closing ']'.
+	 * @throws IllegalArgumentException if the class is malformed.
+	 */
+	private static int parseClass(String pattern, int i, List<int[]> sets){
+		int n = pattern.length();
+		boolean negated = false;
+		if(i < n && (pattern.charAt(i) == '!' || pattern.charAt(i) == '^')){
+			negated = true;
+			i++;
+		}
+
+		List<int[]> ranges = new ArrayList<>();
+		boolean first = true;
+		while(true){
+			if(i == n){
+				throw new IllegalArgumentException("Character class is not closed!");
+			}
+
+			char lo = pattern.charAt(i++);
+			if(lo == ']' && !first){
+				break;
+			}
+			first = false;
+			if(lo == '\\'){
+				if(i == n){
+					throw new IllegalArgumentException("Pattern must not end with an escape!");
+				}
+				lo = pattern.charAt(i++);
+			}
+
+			char hi = lo;
+			if(i + 1 < n && pattern.charAt(i) == '-' && pattern.charAt(i + 1) != ']'){
+				hi = pattern.charAt(i + 1);
+				i += 2;
+				if(hi == '\\'){
+					if(i == n){
+						throw new IllegalArgumentException("Pattern must not end with an escape!");
+					}
+					hi = pattern.charAt(i++);
+				}
+				if(hi < lo){
+					throw new IllegalArgumentException("Invalid range in character class!");
+				}
+			}
+			ranges.add(new int[] {lo, hi});
+		}
+
+		TreeSet<Integer> points = new TreeSet<>();
+		for(int[] range : ranges){
+			points.add(range[0]);
+			points.add(range[1] + 1);
+		}
+		points.add(Character.MAX_VALUE + 1);
+
+		List<Integer> merged = new ArrayList<>();
+		int previous = 0;
+		for(int point : points){
+			if(previous < point && contains(ranges, previous) != negated){
+				int last = merged.size() - 1;
+				if(last > 0 && merged.get(last) == previous - 1){
+					merged.set(last, point - 1);
+				}
+				else{
+					merged.add(previous);
+					merged.add(point - 1);
+				}
+			}
+			previous = point;
+		}
+
+		int[] set = new int[merged.size()];
+		for(int k = 0; k < set.length; k++){
+			set[k] = merged.get(k);
+		}
+		sets.add(set);
+		return i;
+	}
+
+	/**
+	 * Finds the first characters of all character classes, other than 0, for the given sets of ranges.
+	 * @param sets Sets of character ranges.
+	 * @return Sorted first characters of the classes.
+	 */
+	private static int[] bounds(List<int[]> sets){
+		TreeSet<Integer> points = new TreeSet<>();
+		for(int[] set : sets){
+			for(int k = 0; k < set.length; k += 2){
+				points.add(set[k]);
+				points.add(set[k + 1] + 1);
+			}
+		}
+		points.remove(0);
+		points.remove(Character.MAX_VALUE + 1);
+
+		int[] bounds = new int[points.size()];
+		int k = 0;
+		for(int point : points){
+			bounds[k++] = point;
+		}
+
+		return bounds;
+	}
+
+	/**
+	 * Checks if the given character is in one of the given ranges.
+	 * @param ranges Character ranges, as arrays of first and last character.
+	 * @param c Character to be checked.
+	 * @return True if the character is in one of the ranges, false otherwise.
+	 */
+	private static boolean contains(List<int[]> ranges, int c){
+		for(int[] range : ranges){
+			if(range[0] <= c && c <= range[1]){
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Checks if the given character is in one of the ranges of the given set.
+	 * @param set Character ranges, as pairs of first and last character.
+	 * @param c Character to be checked.
+	 * @return True if the character is in the set, false otherwise.
+	 */
+	private static boolean contains(int[] set, int c){
+		for(int k = 0; k < set.length; k += 2){
+			if(set[k] <= c && c <= set[k + 1]){
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,329 @@
+package hr.fer.zemris.java.cstr;
+
+import java.nio.CharBuffer;
+
+/**
+ * Represents an immutable string made of CString pieces, stored as leaves of a balanced binary tree (rope).
+ * Concatenation, substring and charAt take O(log n) time in the number of pieces, because no characters are
+ * copied; concatenating two ropes only joins their trees, keeping them balanced like an AVL tree. Small
+ * neighbouring pieces are merged into a single leaf, so building a rope character by character does not
+ * create a tree node per character.
+ * <p>
+ * A rope is flattened into a single contiguous CString only when {@link #toCString()} is called, and the
+ * result is remembered. Leaves share character arrays of the strings they were made from, so those strings
+ * must not be changed with CString's add method while the rope is used.
+ *
+ * @author Mislav Gillinger
+ */
+public class CStringRope implements CharSequence {
+
+	/** Largest length of two neighbouring leaves which are merged into one. */
+	private static final int MERGE_LENGTH = 32;
+
+	/** Piece of the string if this rope is a leaf, null otherwise. */
+	private final CString leaf;
+	/** Left subtree, null for a leaf. */
+	private final CStringRope left;
+	/** Right subtree, null for a leaf. */
+	private final CStringRope right;
+	/** Length of the string. */
+	private final int length;
+	/** Height of the tree, 0 for a leaf. */
+	private final int height;
+	/** True if all leaves store their characters compactly, one byte per character. */
+	private final boolean compact;
+	/** Flattened string, created on first request. */
+	private CString flat;
+
+	/**
+	 * Creates a new rope containing a single piece.
+	 * @param s Piece of the new rope. Its characters are not copied.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public CStringRope(CString s) {
+		if(s == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		this.leaf = s;
+		this.left = null;
+		this.right = null;
+		this.length = s.length();
+		this.height = 0;
+		this.compact = s.isCompact();
+	}
+
+	/**
+	 * Creates a new inner node of a rope.
+	 * @param left Left subtree.
+	 * @param right Right subtree.
+	 */
+	private CStringRope(CStringRope left, CStringRope right) {
+		this.leaf = null;
+		this.left = left;
+		this.right = right;
+		this.length = left.length + right.length;
+		this.height = Math.max(left.height, right.height) + 1;
+		this.compact = left.compact && right.compact;
+	}
+
+	/**
+	 * Returns length of this rope.
+	 * @return Length of this rope.
+	 */
+	@Override
+	public int length(){
+		return length;
+	}
+
+	/**
+	 * Returns a char which stands on a given position. Complexity is O(log n).
+	 * @param index Char at this position will be returned.
+	 * @return Char at position index.
+	 * @throws IndexOutOfBoundsException If index is invalid.
+	 */
+	@Override
+	public char charAt(int index){
+		if(index < 0 || index >= length){
+			throw new IndexOutOfBoundsException("Argument index is invalid!");
+		}
+
+		if(flat != null){
+			return flat.charAt(index);
+		}
+
+		CStringRope node = this;
+		while(node.leaf == null){
+			if(index < node.left.length){
+				node = node.left;
+			}
+			else{
+				index -= node.left.length;
+				node = node.right;
+			}
+		}
+
+		return node.leaf.charAt(index);
+	}
+
+	/**
+	 * Creates a new rope which is concatenation of this rope and the given string. Complexity is O(log n).
+	 * @param s String to be added on the end of this rope.
+	 * @return A new rope which is concatenation of this rope and the given string.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public CStringRope concat(CString s){
+		return concat(new CStringRope(s));
+	}
+
+	/**
+	 * Creates a new rope which is concatenation of this rope and the given one. Complexity is O(log n).
+	 * @param rope Rope to be added on the end of this rope.
+	 * @return A new rope which is concatenation of this rope and the given one.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public CStringRope concat(CStringRope rope){
+		if(rope == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		return join(this, rope);
+	}
+
+	/**
+	 * Returns new rope which represents a part of this rope. Position endIndex does not belong to the
+	 * substring. Complexity is O(log n).
+	 * @param startIndex Start point of a new rope. Must not be negative.
+	 * @param endIndex End point of a new rope. Must not be less than startIndex.
+	 * @return New rope which was a part of this rope.
+	 * @throws IndexOutOfBoundsException If index is invalid.
+	 */
+	public CStringRope substring(int startIndex, int endIndex){
+		if(startIndex < 0 || endIndex < startIndex || endIndex > length){
+			throw new IndexOutOfBoundsException("Invalid start or end index!");
+		}
+
+		return slice(startIndex, endIndex);
+	}
+
+	/**
+	 * Returns new rope which represents a part of this rope, as required by CharSequence.
+	 * @param start Start point of a new rope.
+	 * @param end End point of a new rope, which does not belong to it.
+	 * @return New rope which was a part of this rope.
+	 * @throws IndexOutOfBoundsException If index is invalid.
+	 */
+	@Override
+	public CStringRope subSequence(int start, int end){
+		return substring(start, end);
+	}
+
+	/**
+	 * Returns a part of this rope, assuming the indexes are valid.
+	 * @param start Start point of a part.
+	 * @param end End point of a part.
+	 * @return Part of this rope.
+	 */
+	private CStringRope slice(int start, int end){
+		if(start == 0 && end == length){
+			return this;
+		}
+
+		if(leaf != null){
+			return new CStringRope(leaf.substring(start, end));
+		}
+
+		int middle = left.length;
+		if(end <= middle){
+			return left.slice(start, end);
+		}
+		if(start >= middle){
+			return right.slice(start - middle, end - middle);
+		}
+
+		return join(left.slice(start, middle), right.slice(0, end - middle));
+	}
+
+	/**
+	 * Returns a CString with the characters of this rope. The rope is flattened into a single array on the
+	 * first call, and the same CString is returned afterwards. If all leaves are compact, so is the result.
+	 * @return CString with the characters of this rope.
+	 */
+	public CString toCString(){
+		if(flat == null){
+			if(leaf != null){
+				flat = leaf;
+			}
+			else{
+				flat = flatten(this);
+			}
+		}
+
+		return flat;
+	}
+
+	/**
+	 * Copies characters of the given ropes, in order, into a single new CString. The result is compact if all
+	 * leaves of the ropes are compact.
+	 * @param ropes Ropes whose characters are copied.
+	 * @return New CString with the characters of the ropes.
+	 */
+	private static CString flatten(CStringRope... ropes){
+		int n = 0;
+		boolean compact = true;
+		for(CStringRope rope : ropes){
+			n += rope.length;
+			compact &= rope.compact;
+		}
+
+		if(compact){
+			byte[] latin1 = new byte[n];
+			int position = 0;
+			for(CStringRope rope : ropes){
+				position = rope.copyTo(latin1, position);
+			}
+			return CString.fromLatin1(latin1, 0, n);
+		}
+
+		char[] data = new char[n];
+		CharBuffer buffer = CharBuffer.wrap(data);
+		for(CStringRope rope : ropes){
+			rope.copyTo(buffer);
+		}
+		return new CString(data);
+	}
+
+	/**
+	 * Copies bytes of all leaves of this rope, in order, into the given array. All leaves must be compact.
+	 * @param latin1 Array which receives the bytes.
+	 * @param position Position in the array of the first byte.
+	 * @return Position in the array after the last copied byte.
+	 */
+	private int copyTo(byte[] latin1, int position){
+		if(leaf != null){
+			System.arraycopy(leaf.latin1(), leaf.offset(), latin1, position, length);
+			return position + length;
+		}
+
+		return right.copyTo(latin1, left.copyTo(latin1, position));
+	}
+
+	/**
+	 * Copies characters of all leaves of this rope, in order, into the given buffer.
+	 * @param buffer Buffer which receives the characters.
+	 */
+	private void copyTo(CharBuffer buffer){
+		if(leaf != null){
+			leaf.writeTo(buffer);
+			return;
+		}
+
+		left.copyTo(buffer);
+		right.copyTo(buffer);
+	}
+
+	/**
+	 * Converts this rope into a String and returns it.
+	 * @return String made out of this rope.
+	 */
+	@Override
+	public String toString(){
+		return toCString().toString();
+	}
+
+	/**
+	 * Joins two ropes into a balanced rope, descending along the edge of the taller one until subtrees of
+	 * similar height are found. Complexity is proportional to the difference of their heights.
+	 * @param l Left rope.
+	 * @param r Right rope.
+	 * @return Balanced concatenation of the two ropes.
+	 */
+	private static CStringRope join(CStringRope l, CStringRope r){
+		if(l.length == 0){
+			return r;
+		}
+		if(r.length == 0){
+			return l;
+		}
+
+		if(l.leaf != null && r.leaf != null && l.length + r.length <= MERGE_LENGTH){
+			return new CStringRope(flatten(l, r));
+		}
+
+		if(l.height > r.height + 1){
+			return balance(l.left, join(l.right, r));
+		}
+		if(r.height > l.height + 1){
+			return balance(join(l, r.left), r.right);
+		}
+
+		return new CStringRope(l, r);
+	}
+
+	/**
+	 * Creates a node with the given subtrees, whose heights differ by at most two, rotating them if needed so
+	 * their heights differ by at most one.
+	 * @param l Left subtree.
+	 * @param r Right subtree.
+	 * @return Balanced node with the given subtrees.
+	 */
+	private static CStringRope balance(CStringRope l, CStringRope r){
+		if(l.height > r.height + 1){
+			if(l.left.height >= l.right.height){
+				return new CStringRope(l.left, new CStringRope(l.right, r));
+			}
+
+			return new CStringRope(new CStringRope(l.left, l.right.left), new CStringRope(l.right.right, r));
+		}
+
+		if(r.height > l.height + 1){
+			if(r.right.height >= r.left.height){
+				return new CStringRope(new CStringRope(l, r.left), r.right);
+			}
+
+			return new CStringRope(new CStringRope(l, r.left.left), new CStringRope(r.left.right, r.right));
+		}
+
+		return new CStringRope(l, r);
+	}
+}
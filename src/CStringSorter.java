@@ -0,0 +1,252 @@
+package hr.fer.zemris.java.cstr;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import hr.fer.zemris.java.custom.collections.ArrayIndexedCollection;
+
+/**
+ * Sorts CStrings lexicographically using multikey quicksort (Bentley and Sedgewick). Strings are partitioned by
+ * a single character at a time into those less than, equal to and greater than a pivot character, and only the
+ * equal part moves on to the next character. Common prefixes are therefore examined once per partition instead
+ * of once per comparison. Characters are read in place from the backing arrays of the strings, so sorting views
+ * copies no characters.
+ * <p>
+ * In parallel mode the less and greater parts of large partitions are sorted concurrently on the common
+ * fork/join pool.
+ *
+ * @author Mislav Gillinger
+ */
+public final class CStringSorter {
+
+	/** Size of a partition below which insertion sort is used. */
+	private static final int INSERTION_THRESHOLD = 16;
+	/** Size of a partition below which it is not sorted as a separate parallel task. */
+	private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+	/**
+	 * Private constructor, class only contains static methods.
+	 */
+	private CStringSorter() {
+	}
+
+	/**
+	 * Sorts the given array of strings in ascending order.
+	 * @param strings Strings to be sorted. Must not contain null.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static void sort(CString[] strings){
+		sort(strings, false);
+	}
+
+	/**
+	 * Sorts the given array of strings in ascending order.
+	 * @param strings Strings to be sorted. Must not contain null.
+	 * @param parallel True if the sort should use all available processors.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static void sort(CString[] strings, boolean parallel){
+		if(strings == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		SortTask task = new SortTask(strings, 0, strings.length, 0, parallel);
+		if(parallel && strings.length > PARALLEL_THRESHOLD){
+			ForkJoinPool.commonPool().invoke(task);
+		}
+		else{
+			task.compute();
+		}
+	}
+
+	/**
+	 * Sorts the given collection of strings in ascending order.
+	 * @param collection Collection to be sorted. Must contain only CStrings.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws ClassCastException if the collection contains an object which is not a CString.
+	 */
+	public static void sort(ArrayIndexedCollection collection){
+		sort(collection, false);
+	}
+
+	/**
+	 * Sorts the given collection of strings in ascending order.
+	 * @param collection Collection to be sorted. Must contain only CStrings.
+	 * @param parallel True if the sort should use all available processors.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws ClassCastException if the collection contains an object which is not a CString.
+	 */
+	public static void sort(ArrayIndexedCollection collection, boolean parallel){
+		if(collection == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		Object[] elements = collection.toArray();
+		CString[] strings = new CString[elements.length];
+		for(int i = 0; i < elements.length; i++){
+			strings[i] = (CString) elements[i];
+		}
+
+		sort(strings, parallel);
+
+		collection.clear();
+		for(int i = 0; i < strings.length; i++){
+			collection.add(strings[i]);
+		}
+	}
+
+	/**
+	 * Returns the character of the given string at the given depth, or -1 if the string is shorter.
+	 * @param s String whose character is returned.
+	 * @param depth Position of the character.
+	 * @return The character as int, or -1 past the end of the string.
+	 */
+	private static int key(CString s, int depth){
+		return depth < s.length() ? s.at(depth) : -1;
+	}
+
+	/**
+	 * Task which sorts a range of strings whose first characters, up to the given depth, are all equal.
+	 */
+	private static class SortTask extends RecursiveAction {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = 1L;
+
+		/** Strings being sorted. */
+		private final CString[] a;
+		/** First position of the range. */
+		private final int from;
+		/** Position after the last one in the range. */
+		private final int to;
+		/** Number of leading characters which are equal for all strings in the range. */
+		private final int depth;
+		/** True if large parts should be sorted as separate tasks. */
+		private final boolean parallel;
+
+		/**
+		 * Creates a new task.
+		 * @param a Strings being sorted.
+		 * @param from First position of the range.
+		 * @param to Position after the last one in the range.
+		 * @param depth Number of leading characters which are equal for all strings in the range.
+		 * @param parallel True if large parts should be sorted as separate tasks.
+		 */
+		SortTask(CString[] a, int from, int to, int depth, boolean parallel) {
+			this.a = a;
+			this.from = from;
+			this.to = to;
+			this.depth = depth;
+			this.parallel = parallel;
+		}
+
+		@Override
+		protected void compute(){
+			int lo = from;
+			int hi = to;
+			int d = depth;
+
+			while(hi - lo > INSERTION_THRESHOLD){
+				int pivot = medianOfThree(key(a[lo], d), key(a[(lo + hi) >>> 1], d), key(a[hi - 1], d));
+
+				int lt = lo;
+				int gt = hi - 1;
+				for(int i = lo; i <= gt; ){
+					int k = key(a[i], d);
+					if(k < pivot){
+						swap(lt++, i++);
+					}
+					else if(k > pivot){
+						swap(i, gt--);
+					}
+					else{
+						i++;
+					}
+				}
+
+				SortTask less = new SortTask(a, lo, lt, d, parallel);
+				SortTask greater = new SortTask(a, gt + 1, hi, d, parallel);
+				if(parallel && (lt - lo > PARALLEL_THRESHOLD || hi - gt - 1 > PARALLEL_THRESHOLD)){
+					invokeAll(less, greater);
+				}
+				else{
+					less.compute();
+					greater.compute();
+				}
+
+				if(pivot == -1){
+					return;
+				}
+				lo = lt;
+				hi = gt + 1;
+				d++;
+			}
+
+			insertionSort(lo, hi, d);
+		}
+
+		/**
+		 * Sorts a small range by insertion, comparing strings from the given depth onwards.
+		 * @param lo First position of the range.
+		 * @param hi Position after the last one in the range.
+		 * @param d Number of leading characters which are equal for all strings in the range.
+		 */
+		private void insertionSort(int lo, int hi, int d){
+			for(int i = lo + 1; i < hi; i++){
+				CString s = a[i];
+				int j = i;
+				while(j > lo && compareFrom(a[j - 1], s, d) > 0){
+					a[j] = a[j - 1];
+					j--;
+				}
+				a[j] = s;
+			}
+		}
+
+		/**
+		 * Compares two strings lexicographically, starting from the given depth.
+		 * @param s1 First string.
+		 * @param s2 Second string.
+		 * @param d Position where comparison starts.
+		 * @return Negative value, 0 or positive value as the first string is less, equal or greater.
+		 */
+		private static int compareFrom(CString s1, CString s2, int d){
+			int n = Math.min(s1.length(), s2.length());
+			for(int i = d; i < n; i++){
+				char c1 = s1.at(i);
+				char c2 = s2.at(i);
+				if(c1 != c2){
+					return c1 - c2;
+				}
+			}
+
+			return s1.length() - s2.length();
+		}
+
+		/**
+		 * Returns the median of the three given values.
+		 * @param x First value.
+		 * @param y Second value.
+		 * @param z Third value.
+		 * @return The median value.
+		 */
+		private static int medianOfThree(int x, int y, int z){
+			if(x < y){
+				return y < z ? y : (x < z ? z : x);
+			}
+
+			return x < z ? x : (y < z ? z : y);
+		}
+
+		/**
+		 * Swaps two strings in the array.
+		 * @param i Position of the first string.
+		 * @param j Position of the second string.
+		 */
+		private void swap(int i, int j){
+			CString temp = a[i];
+			a[i] = a[j];
+			a[j] = temp;
+		}
+	}
+}
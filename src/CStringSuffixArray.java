@@ -0,0 +1,452 @@
+package hr.fer.zemris.java.cstr;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Full-text index over a fixed CString, made of a suffix array and its longest common prefix (LCP) array.
+ * After the index is built, count, locate and contains queries take O(m log n) time for a pattern of length m
+ * in a text of length n, instead of scanning the whole text.
+ * <p>
+ * The suffix array is built by prefix doubling: suffixes are sorted by their first h characters, and every
+ * group of suffixes sharing the same h characters is then refined using the rank of the suffix h characters
+ * further, doubling h in each round. Groups are independent, so in parallel mode they are refined
+ * concurrently on the common fork/join pool. The LCP array is built with Kasai's algorithm in O(n).
+ * <p>
+ * The index can be saved to a file and loaded again for the same text, so it does not have to be rebuilt.
+ *
+ * @author Mislav Gillinger
+ */
+public class CStringSuffixArray {
+
+	/** Value written at the beginning of saved indexes. */
+	private static final int MAGIC = 0x43534131;
+	/** Number of suffixes below which a parallel task is not split any further. */
+	private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+	/** Indexed string. */
+	private CString text;
+	/** Starting positions of all suffixes of the text, in lexicographic order. */
+	private int[] suffixes;
+	/** lcp[i] is the length of the longest common prefix of suffixes i-1 and i, lcp[0] is 0. */
+	private int[] lcp;
+
+	/**
+	 * Builds a new index over the given string, sequentially.
+	 * @param text String to be indexed. It must not be changed while the index is used.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public CStringSuffixArray(CString text) {
+		this(text, false);
+	}
+
+	/**
+	 * Builds a new index over the given string.
+	 * @param text String to be indexed. It must not be changed while the index is used.
+	 * @param parallel True if the construction should use all available processors, which pays off for
+	 * 		large texts.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public CStringSuffixArray(CString text, boolean parallel) {
+		if(text == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		this.text = text;
+		int[] rank = new int[text.length()];
+		this.suffixes = buildSuffixes(text, rank, parallel);
+		this.lcp = buildLcp(text, suffixes, rank);
+	}
+
+	/**
+	 * Creates a new index from already built arrays.
+	 * @param text Indexed string.
+	 * @param suffixes Suffix array of the text.
+	 * @param lcp LCP array of the text.
+	 */
+	private CStringSuffixArray(CString text, int[] suffixes, int[] lcp) {
+		this.text = text;
+		this.suffixes = suffixes;
+		this.lcp = lcp;
+	}
+
+	/**
+	 * Sorts all suffixes of the given text by prefix doubling.
+	 * @param text Text whose suffixes are sorted.
+	 * @param rank Array which receives the rank of each suffix.
+	 * @param parallel True if groups should be refined concurrently.
+	 * @return Suffix array of the text.
+	 */
+	private static int[] buildSuffixes(CString text, int[] rank, boolean parallel){
+		int n = text.length();
+		int[] sa = new int[n];
+		long[] keys = new long[n];
+
+		for(int i = 0; i < n; i++){
+			keys[i] = (long) text.charAt(i) << 32 | i;
+		}
+		if(parallel){
+			Arrays.parallelSort(keys);
+		}
+		else{
+			Arrays.sort(keys);
+		}
+		for(int j = 0; j < n; j++){
+			sa[j] = (int) keys[j];
+			rank[sa[j]] = j > 0 && keys[j] >>> 32 == keys[j - 1] >>> 32 ? rank[sa[j - 1]] : j;
+		}
+
+		int[] groups = new int[n];
+		for(int h = 1; ; h <<= 1){
+			int count = 0;
+			for(int s = 0, e; s < n; s = e){
+				e = s + 1;
+				while(e < n && rank[sa[e]] == rank[sa[s]]){
+					e++;
+				}
+				if(e - s > 1){
+					groups[count++] = s;
+					groups[count++] = e;
+				}
+			}
+			if(count == 0){
+				break;
+			}
+
+			GroupTask keying = new GroupTask(GroupTask.KEY, sa, rank, keys, groups, h, 0, count / 2);
+			GroupTask sorting = new GroupTask(GroupTask.SORT, sa, rank, keys, groups, h, 0, count / 2);
+			if(parallel){
+				ForkJoinPool.commonPool().invoke(keying);
+				ForkJoinPool.commonPool().invoke(sorting);
+			}
+			else{
+				keying.process(0, count / 2);
+				sorting.process(0, count / 2);
+			}
+		}
+
+		return sa;
+	}
+
+	/**
+	 * Task which processes a range of groups of suffixes in one round of prefix doubling. In the KEY phase it
+	 * calculates the sort key of each suffix from the old ranks; in the SORT phase it sorts each group by
+	 * those keys and assigns new ranks. Groups are disjoint, so ranges of groups can be processed concurrently.
+	 */
+	private static class GroupTask extends RecursiveAction {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = 1L;
+		/** Phase which calculates keys. */
+		static final int KEY = 0;
+		/** Phase which sorts groups and assigns ranks. */
+		static final int SORT = 1;
+
+		/** Phase performed by this task. */
+		private final int phase;
+		/** Suffix array being built. */
+		private final int[] sa;
+		/** Rank of each suffix. */
+		private final int[] rank;
+		/** Sort key for each position of the suffix array. */
+		private final long[] keys;
+		/** Start and end of each group, in pairs. */
+		private final int[] groups;
+		/** Number of characters by which suffixes are already sorted. */
+		private final int h;
+		/** First group processed by this task. */
+		private final int from;
+		/** Group after the last one processed by this task. */
+		private final int to;
+
+		/**
+		 * Creates a new task.
+		 * @param phase Phase performed by this task.
+		 * @param sa Suffix array being built.
+		 * @param rank Rank of each suffix.
+		 * @param keys Sort key for each position of the suffix array.
+		 * @param groups Start and end of each group, in pairs.
+		 * @param h Number of characters by which suffixes are already sorted.
+		 * @param from First group processed by this task.
+		 * @param to Group after the last one processed by this task.
+		 */
+		GroupTask(int phase, int[] sa, int[] rank, long[] keys, int[] groups, int h, int from, int to) {
+			this.phase = phase;
+			this.sa = sa;
+			this.rank = rank;
+			this.keys = keys;
+			this.groups = groups;
+			this.h = h;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute(){
+			if(to - from > 1 && groups[2 * to - 1] - groups[2 * from] > PARALLEL_THRESHOLD){
+				int middle = (from + to) >>> 1;
+				invokeAll(new GroupTask(phase, sa, rank, keys, groups, h, from, middle),
+						new GroupTask(phase, sa, rank, keys, groups, h, middle, to));
+				return;
+			}
+
+			process(from, to);
+		}
+
+		/**
+		 * Processes the given range of groups in the current thread.
+		 * @param first First group to be processed.
+		 * @param last Group after the last one to be processed.
+		 */
+		void process(int first, int last){
+			int n = sa.length;
+			for(int g = first; g < last; g++){
+				int s = groups[2 * g];
+				int e = groups[2 * g + 1];
+
+				if(phase == KEY){
+					for(int j = s; j < e; j++){
+						int i = sa[j];
+						long next = i + h < n ? rank[i + h] + 1 : 0;
+						keys[j] = next << 32 | i;
+					}
+					continue;
+				}
+
+				Arrays.sort(keys, s, e);
+				for(int j = s; j < e; j++){
+					sa[j] = (int) keys[j];
+					rank[sa[j]] = j > s && keys[j] >>> 32 == keys[j - 1] >>> 32 ? rank[sa[j - 1]] : j;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Builds the LCP array with Kasai's algorithm.
+	 * @param text Indexed text.
+	 * @param sa Suffix array of the text.
+	 * @param rank Position of each suffix in the suffix array.
+	 * @return LCP array of the text.
+	 */
+	private static int[] buildLcp(CString text, int[] sa, int[] rank){
+		int n = sa.length;
+		int[] lcp = new int[n];
+
+		for(int i = 0, k = 0; i < n; i++){
+			if(rank[i] == 0){
+				k = 0;
+				continue;
+			}
+
+			int j = sa[rank[i] - 1];
+			while(i + k < n && j + k < n && text.charAt(i + k) == text.charAt(j + k)){
+				k++;
+			}
+			lcp[rank[i]] = k;
+			if(k > 0){
+				k--;
+			}
+		}
+
+		return lcp;
+	}
+
+	/**
+	 * Returns the indexed string.
+	 * @return The indexed string.
+	 */
+	public CString getText(){
+		return text;
+	}
+
+	/**
+	 * Returns the starting position of the suffix at the given position in lexicographic order.
+	 * @param index Position in lexicographic order. Valid positions are 0 to length-1.
+	 * @return Starting position of the suffix in the text.
+	 * @throws IndexOutOfBoundsException if index is invalid.
+	 */
+	public int suffix(int index){
+		return suffixes[index];
+	}
+
+	/**
+	 * Returns the length of the longest common prefix of the suffix at the given position in lexicographic
+	 * order and the one before it.
+	 * @param index Position in lexicographic order. Valid positions are 0 to length-1.
+	 * @return Length of the longest common prefix, 0 for the first suffix.
+	 * @throws IndexOutOfBoundsException if index is invalid.
+	 */
+	public int lcp(int index){
+		return lcp[index];
+	}
+
+	/**
+	 * Counts occurrences of the given pattern in the indexed text. Complexity is O(m log n).
+	 * @param pattern Pattern to be counted.
+	 * @return Number of occurrences, 0 for an empty pattern.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public int count(CString pattern){
+		if(pattern == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		if(pattern.length() == 0){
+			return 0;
+		}
+
+		return bound(pattern, true) - bound(pattern, false);
+	}
+
+	/**
+	 * Returns starting positions of all occurrences of the given pattern in the indexed text, in ascending
+	 * order. Complexity is O(m log n + k log k) for k occurrences.
+	 * @param pattern Pattern to be located.
+	 * @return Positions of all occurrences, empty for an empty pattern.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public int[] locate(CString pattern){
+		if(pattern == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		if(pattern.length() == 0){
+			return new int[0];
+		}
+
+		int[] positions = Arrays.copyOfRange(suffixes, bound(pattern, false), bound(pattern, true));
+		Arrays.sort(positions);
+		return positions;
+	}
+
+	/**
+	 * Checks if the indexed text contains the given pattern. Complexity is O(m log n).
+	 * @param pattern Pattern which is potentially contained.
+	 * @return True if the text contains the pattern, false otherwise or if the pattern is empty.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public boolean contains(CString pattern){
+		if(pattern == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		if(pattern.length() == 0){
+			return false;
+		}
+
+		int index = bound(pattern, false);
+		return index < suffixes.length && compare(suffixes[index], pattern) == 0;
+	}
+
+	/**
+	 * Finds the first position in the suffix array whose suffix is not less than the pattern (lower bound),
+	 * or greater than the pattern (upper bound). A suffix starting with the pattern is considered equal to it.
+	 * @param pattern Pattern which is searched for.
+	 * @param upper True for the upper bound, false for the lower bound.
+	 * @return The bound position in the suffix array.
+	 */
+	private int bound(CString pattern, boolean upper){
+		int low = 0;
+		int high = suffixes.length;
+
+		while(low < high){
+			int middle = (low + high) >>> 1;
+			int result = compare(suffixes[middle], pattern);
+			if(result < 0 || upper && result == 0){
+				low = middle + 1;
+			}
+			else{
+				high = middle;
+			}
+		}
+
+		return low;
+	}
+
+	/**
+	 * Compares the suffix starting at the given position with the pattern, looking only at the first m
+	 * characters of the suffix.
+	 * @param position Starting position of the suffix.
+	 * @param pattern Pattern of length m.
+	 * @return Negative value if the suffix is less, 0 if it starts with the pattern, positive value otherwise.
+	 */
+	private int compare(int position, CString pattern){
+		int n = text.length();
+		for(int k = 0, m = pattern.length(); k < m; k++){
+			if(position + k == n){
+				return -1;
+			}
+
+			int difference = text.charAt(position + k) - pattern.charAt(k);
+			if(difference != 0){
+				return difference;
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Saves this index to the given file. The text itself is not saved.
+	 * @param file File to which the index is written.
+	 * @throws IOException if writing fails.
+	 */
+	public void save(Path file) throws IOException {
+		try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))){
+			out.writeInt(MAGIC);
+			out.writeInt(suffixes.length);
+			out.writeInt(text.hashCode());
+			for(int i = 0; i < suffixes.length; i++){
+				out.writeInt(suffixes[i]);
+			}
+			for(int i = 0; i < lcp.length; i++){
+				out.writeInt(lcp[i]);
+			}
+		}
+	}
+
+	/**
+	 * Loads an index saved by {@link #save(Path)} for the given text.
+	 * @param text Text for which the index was built.
+	 * @param file File from which the index is read.
+	 * @return The loaded index.
+	 * @throws IOException if reading fails or the file does not contain an index of the given text.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static CStringSuffixArray load(CString text, Path file) throws IOException {
+		if(text == null || file == null){
+			throw new NullPointerException("Arguments must not be null!");
+		}
+
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))){
+			if(in.readInt() != MAGIC){
+				throw new IOException("File does not contain a suffix array!");
+			}
+
+			int n = in.readInt();
+			if(n != text.length() || in.readInt() != text.hashCode()){
+				throw new IOException("Suffix array was not built for the given text!");
+			}
+
+			int[] suffixes = new int[n];
+			int[] lcp = new int[n];
+			for(int i = 0; i < n; i++){
+				suffixes[i] = in.readInt();
+			}
+			for(int i = 0; i < n; i++){
+				lcp[i] = in.readInt();
+			}
+
+			return new CStringSuffixArray(text, suffixes, lcp);
+		}
+	}
+}
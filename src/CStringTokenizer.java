@@ -0,0 +1,91 @@
+package hr.fer.zemris.java.cstr;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy tokenizer which splits a CString around a delimiter, returning one part at a time. Each part is a view
+ * which shares the character array of the original string, so tokenizing copies no characters and creates no
+ * intermediate array of parts. Empty parts are kept, so a string containing n delimiters always has n+1 parts.
+ * 
+ * @author Mislav Gillinger
+ */
+public class CStringTokenizer {
+
+	/** String which is being tokenized. */
+	private CString text;
+	/** Delimiter character, used if delimiter string is null. */
+	private char delimiter;
+	/** Delimiter string, or null if a single character delimiter is used. */
+	private CString delimiterString;
+	/** Length of the delimiter. */
+	private int delimiterLength;
+	/** Index in text where the next part begins. */
+	private int position;
+
+	/**
+	 * Creates a new tokenizer which splits the given string around the given character.
+	 * @param text String to be tokenized.
+	 * @param delimiter Character which separates the parts.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public CStringTokenizer(CString text, char delimiter) {
+		if(text == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+		
+		this.text = text;
+		this.delimiter = delimiter;
+		this.delimiterLength = 1;
+	}
+
+	/**
+	 * Creates a new tokenizer which splits the given string around the given delimiter string.
+	 * @param text String to be tokenized.
+	 * @param delimiter String which separates the parts. Must not be empty.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the delimiter is empty.
+	 */
+	public CStringTokenizer(CString text, CString delimiter) {
+		if(text == null || delimiter == null){
+			throw new NullPointerException("Arguments must not be null!");
+		}
+		
+		if(delimiter.length() == 0){
+			throw new IllegalArgumentException("Delimiter must not be empty!");
+		}
+		
+		this.text = text;
+		this.delimiterString = delimiter;
+		this.delimiterLength = delimiter.length();
+	}
+
+	/**
+	 * Checks whether there are more parts to be returned.
+	 * @return True if there are more parts, false otherwise.
+	 */
+	public boolean hasNext(){
+		return position <= text.length();
+	}
+
+	/**
+	 * Returns the next part of the string. Complexity is proportional to the length of the part.
+	 * @return The next part, as a view of the original string.
+	 * @throws NoSuchElementException if there are no more parts.
+	 */
+	public CString next(){
+		if(!hasNext()){
+			throw new NoSuchElementException("There are no more parts!");
+		}
+		
+		int end = delimiterString == null
+				? text.indexOf(delimiter, position)
+				: text.indexOf(delimiterString, position);
+		if(end == -1){
+			end = text.length();
+		}
+		
+		CString part = text.substring(position, end);
+		position = end + delimiterLength;
+		return part;
+	}
+}
@@ -1,5 +1,10 @@
 package hr.fer.zemris.java.custom.collections;
 
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * Represents some general collection of objects.
  * @author Mislav Gillinger
@@ -108,4 +113,31 @@ public class Collection {
 	public void clear(){
 		
 	}
+	
+	/**
+	 * Creates a Spliterator over the elements of this collection. In this
+	 * class it splits a copy made by toArray, and subclasses provide ones
+	 * which traverse their own storage. The collection must not be
+	 * modified while the Spliterator is in use.
+	 * @return The newly made Spliterator.
+	 */
+	public Spliterator<Object> spliterator(){
+		return Spliterators.spliterator(toArray(), 0);
+	}
+	
+	/**
+	 * Creates a sequential Stream over the elements of this collection.
+	 * @return The newly made Stream.
+	 */
+	public Stream<Object> stream(){
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	/**
+	 * Creates a parallel Stream over the elements of this collection.
+	 * @return The newly made Stream.
+	 */
+	public Stream<Object> parallelStream(){
+		return StreamSupport.stream(spliterator(), true);
+	}
 }
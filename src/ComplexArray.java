@@ -0,0 +1,447 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+/**
+ * Array of complex numbers which stores real and imaginary parts in two parallel arrays of doubles. Bulk
+ * operations work over whole arrays with simple loops, without creating a ComplexNumber per element, so they
+ * are suitable for processing large signals.
+ * <p>
+ * Every operation has an in-place form, which stores the result into this array, and a form which stores the
+ * result into a given array of the same length. The result array may be the same as one of the operands.
+ * @author Mislav Gillinger
+ * @version 1.0
+ */
+public class ComplexArray {
+
+	/** Real parts of the numbers. */
+	final double[] real;
+	/** Imaginary parts of the numbers. */
+	final double[] imaginary;
+
+	/**
+	 * Creates a new array of the given length filled with zeros.
+	 * @param length Length of the array.
+	 * @throws IllegalArgumentException if the length is negative.
+	 */
+	public ComplexArray(int length){
+		if(length < 0){
+			throw new IllegalArgumentException("Length must not be negative!");
+		}
+
+		this.real = new double[length];
+		this.imaginary = new double[length];
+	}
+
+	/**
+	 * Creates a new array backed by the given arrays of real and imaginary parts. The arrays are not copied.
+	 * @param real Real parts of the numbers.
+	 * @param imaginary Imaginary parts of the numbers.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	public ComplexArray(double[] real, double[] imaginary){
+		if(real == null || imaginary == null){
+			throw new NullPointerException("Arguments must not be null!");
+		}
+
+		if(real.length != imaginary.length){
+			throw new IllegalArgumentException("Arrays must have the same length!");
+		}
+
+		this.real = real;
+		this.imaginary = imaginary;
+	}
+
+	/**
+	 * Creates a new array with the values of the given complex numbers.
+	 * @param numbers Complex numbers to be stored in the array.
+	 * @return Newly made array.
+	 * @throws NullPointerException if the argument or one of its elements is null.
+	 */
+	public static ComplexArray fromComplexNumbers(ComplexNumber[] numbers){
+		ComplexArray array = new ComplexArray(numbers.length);
+		for(int i = 0; i < numbers.length; i++){
+			array.real[i] = numbers[i].real;
+			array.imaginary[i] = numbers[i].imaginary;
+		}
+
+		return array;
+	}
+
+	/**
+	 * Creates an array of complex numbers with the values from this array.
+	 * @return Newly made array of complex numbers.
+	 */
+	public ComplexNumber[] toComplexNumbers(){
+		ComplexNumber[] numbers = new ComplexNumber[real.length];
+		for(int i = 0; i < numbers.length; i++){
+			numbers[i] = new ComplexNumber(real[i], imaginary[i]);
+		}
+
+		return numbers;
+	}
+
+	/**
+	 * Returns length of the array.
+	 * @return Length of the array.
+	 */
+	public int length(){
+		return real.length;
+	}
+
+	/**
+	 * Returns the complex number at the given position.
+	 * @param index Position of the number.
+	 * @return Complex number at the given position.
+	 * @throws IndexOutOfBoundsException if the index is invalid.
+	 */
+	public ComplexNumber get(int index){
+		return new ComplexNumber(real[index], imaginary[index]);
+	}
+
+	/**
+	 * Sets the complex number at the given position.
+	 * @param index Position of the number.
+	 * @param c New value of the number.
+	 * @throws IndexOutOfBoundsException if the index is invalid.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public void set(int index, ComplexNumber c){
+		set(index, c.real, c.imaginary);
+	}
+
+	/**
+	 * Sets the complex number at the given position.
+	 * @param index Position of the number.
+	 * @param real Real part of the number.
+	 * @param imaginary Imaginary part of the number.
+	 * @throws IndexOutOfBoundsException if the index is invalid.
+	 */
+	public void set(int index, double real, double imaginary){
+		this.real[index] = real;
+		this.imaginary[index] = imaginary;
+	}
+
+	/**
+	 * Returns the array of real parts which backs this array. Changes of it are visible in this array.
+	 * @return Array of real parts.
+	 */
+	public double[] getRealParts(){
+		return real;
+	}
+
+	/**
+	 * Returns the array of imaginary parts which backs this array. Changes of it are visible in this array.
+	 * @return Array of imaginary parts.
+	 */
+	public double[] getImaginaryParts(){
+		return imaginary;
+	}
+
+	/**
+	 * Creates a copy of this array.
+	 * @return Newly made array with the same values.
+	 */
+	public ComplexArray copy(){
+		return new ComplexArray(real.clone(), imaginary.clone());
+	}
+
+	/**
+	 * Adds the numbers of the given array to the numbers of this array.
+	 * @param other Array to be added.
+	 * @return This array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	public ComplexArray add(ComplexArray other){
+		return add(other, this);
+	}
+
+	/**
+	 * Sums the numbers of this array and the given one and stores the sums into the result array.
+	 * @param other Array to be added.
+	 * @param result Array which receives the sums.
+	 * @return The result array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	public ComplexArray add(ComplexArray other, ComplexArray result){
+		checkLengths(other, result);
+		double[] re = result.real;
+		double[] im = result.imaginary;
+		for(int i = 0; i < re.length; i++){
+			re[i] = real[i] + other.real[i];
+			im[i] = imaginary[i] + other.imaginary[i];
+		}
+
+		return result;
+	}
+
+	/**
+	 * Subtracts the numbers of the given array from the numbers of this array.
+	 * @param other Array to be subtracted.
+	 * @return This array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	public ComplexArray sub(ComplexArray other){
+		return sub(other, this);
+	}
+
+	/**
+	 * Subtracts the numbers of the given array from the numbers of this array and stores the differences into
+	 * the result array.
+	 * @param other Array to be subtracted.
+	 * @param result Array which receives the differences.
+	 * @return The result array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	public ComplexArray sub(ComplexArray other, ComplexArray result){
+		checkLengths(other, result);
+		double[] re = result.real;
+		double[] im = result.imaginary;
+		for(int i = 0; i < re.length; i++){
+			re[i] = real[i] - other.real[i];
+			im[i] = imaginary[i] - other.imaginary[i];
+		}
+
+		return result;
+	}
+
+	/**
+	 * Multiplies the numbers of this array with the numbers of the given array.
+	 * @param other Array to be multiplied with.
+	 * @return This array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	public ComplexArray mul(ComplexArray other){
+		return mul(other, this);
+	}
+
+	/**
+	 * Multiplies the numbers of this array with the numbers of the given array and stores the products into
+	 * the result array.
+	 * @param other Array to be multiplied with.
+	 * @param result Array which receives the products.
+	 * @return The result array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	public ComplexArray mul(ComplexArray other, ComplexArray result){
+		checkLengths(other, result);
+		ComplexKernels.mul(real, imaginary, other.real, other.imaginary, result.real, result.imaginary,
+				0, real.length);
+		return result;
+	}
+
+	/**
+	 * Multiplies the numbers of the two given arrays and adds the products to the numbers of this array.
+	 * @param a First array of factors.
+	 * @param b Second array of factors.
+	 * @return This array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	public ComplexArray mulAdd(ComplexArray a, ComplexArray b){
+		checkLengths(a, b);
+		ComplexKernels.mulAdd(a.real, a.imaginary, b.real, b.imaginary, real, imaginary, 0, real.length);
+		return this;
+	}
+
+	/**
+	 * Divides the numbers of this array with the numbers of the given array.
+	 * @param other Array of divisors.
+	 * @return This array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	public ComplexArray div(ComplexArray other){
+		return div(other, this);
+	}
+
+	/**
+	 * Divides the numbers of this array with the numbers of the given array and stores the quotients into
+	 * the result array.
+	 * @param other Array of divisors.
+	 * @param result Array which receives the quotients.
+	 * @return The result array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	public ComplexArray div(ComplexArray other, ComplexArray result){
+		checkLengths(other, result);
+		ComplexKernels.div(real, imaginary, other.real, other.imaginary, result.real, result.imaginary,
+				0, real.length);
+		return result;
+	}
+
+	/**
+	 * Multiplies the numbers of this array with the given real factor.
+	 * @param factor Factor to be multiplied with.
+	 * @return This array.
+	 */
+	public ComplexArray scale(double factor){
+		return scale(factor, this);
+	}
+
+	/**
+	 * Multiplies the numbers of this array with the given real factor and stores the products into the
+	 * result array.
+	 * @param factor Factor to be multiplied with.
+	 * @param result Array which receives the products.
+	 * @return The result array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	public ComplexArray scale(double factor, ComplexArray result){
+		checkLength(result);
+		double[] re = result.real;
+		double[] im = result.imaginary;
+		for(int i = 0; i < re.length; i++){
+			re[i] = real[i] * factor;
+			im[i] = imaginary[i] * factor;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Replaces the numbers of this array with their complex conjugates.
+	 * @return This array.
+	 */
+	public ComplexArray conjugate(){
+		return conjugate(this);
+	}
+
+	/**
+	 * Stores complex conjugates of the numbers of this array into the result array.
+	 * @param result Array which receives the conjugates.
+	 * @return The result array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	public ComplexArray conjugate(ComplexArray result){
+		checkLength(result);
+		double[] re = result.real;
+		double[] im = result.imaginary;
+		for(int i = 0; i < re.length; i++){
+			re[i] = real[i];
+			im[i] = -imaginary[i];
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns magnitudes of the numbers of this array.
+	 * @return Newly made array of magnitudes.
+	 */
+	public double[] magnitude(){
+		return magnitude(new double[real.length]);
+	}
+
+	/**
+	 * Stores magnitudes of the numbers of this array into the given array.
+	 * @param result Array which receives the magnitudes.
+	 * @return The given array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	public double[] magnitude(double[] result){
+		checkLength(result);
+		ComplexKernels.magnitude(real, imaginary, result, 0, result.length);
+		return result;
+	}
+
+	/**
+	 * Returns angles of the numbers of this array.
+	 * @return Newly made array of angles.
+	 */
+	public double[] angle(){
+		return angle(new double[real.length]);
+	}
+
+	/**
+	 * Stores angles of the numbers of this array into the given array.
+	 * @param result Array which receives the angles.
+	 * @return The given array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	public double[] angle(double[] result){
+		checkLength(result);
+		for(int i = 0; i < result.length; i++){
+			result[i] = Math.atan2(imaginary[i], real[i]);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Shapes the array in a String format.
+	 * @return String with the numbers of the array.
+	 */
+	@Override
+	public String toString(){
+		StringBuilder sb = new StringBuilder("[");
+		for(int i = 0; i < real.length; i++){
+			if(i > 0){
+				sb.append(", ");
+			}
+			sb.append(get(i));
+		}
+
+		return sb.append(']').toString();
+	}
+
+	/**
+	 * Checks if the given arrays have the same length as this one.
+	 * @param other Operand array.
+	 * @param result Result array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	private void checkLengths(ComplexArray other, ComplexArray result){
+		if(other == null){
+			throw new NullPointerException("Arguments must not be null!");
+		}
+
+		if(other.real.length != real.length){
+			throw new IllegalArgumentException("Arrays must have the same length!");
+		}
+		checkLength(result);
+	}
+
+	/**
+	 * Checks if the given array has the same length as this one.
+	 * @param result Result array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	private void checkLength(ComplexArray result){
+		if(result == null){
+			throw new NullPointerException("Arguments must not be null!");
+		}
+
+		if(result.real.length != real.length){
+			throw new IllegalArgumentException("Arrays must have the same length!");
+		}
+	}
+
+	/**
+	 * Checks if the given array has the same length as this one.
+	 * @param result Result array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	private void checkLength(double[] result){
+		if(result == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		if(result.length != real.length){
+			throw new IllegalArgumentException("Arrays must have the same length!");
+		}
+	}
+}
@@ -0,0 +1,202 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads and writes sequences of complex numbers in a compact binary form: each number is stored as its real
+ * and imaginary part, two little-endian IEEE 754 doubles, with no header, so a sequence of n numbers takes
+ * exactly 16n bytes and its length follows from the size of the data. Numbers are transferred over NIO
+ * channels through a single reused buffer, or over memory-mapped regions of files.
+ * @author Mislav Gillinger
+ * @version 1.0
+ */
+public final class ComplexCodec {
+
+	/** Number of bytes of a single complex number. */
+	public static final int BYTES = 2 * Double.BYTES;
+	/** Size of the buffer used when no buffer is given. */
+	private static final int BUFFER_SIZE = 1 << 16;
+	/** Number of complex numbers in a single mapped region. */
+	private static final int MAPPED_COUNT = 1 << 26;
+
+	/**
+	 * Private constructor, class only contains static methods.
+	 */
+	private ComplexCodec(){
+	}
+
+	/**
+	 * Writes all numbers of the given array to the given channel.
+	 * @param array Numbers to be written.
+	 * @param channel Channel to which the numbers are written.
+	 * @throws IOException if writing fails.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static void write(ComplexArray array, WritableByteChannel channel) throws IOException {
+		write(array, channel, ByteBuffer.allocateDirect(BUFFER_SIZE));
+	}
+
+	/**
+	 * Writes all numbers of the given array to the given channel, reusing the given buffer for all writes.
+	 * @param array Numbers to be written.
+	 * @param channel Channel to which the numbers are written.
+	 * @param buffer Buffer used for writing. Its content and byte order are overwritten.
+	 * @throws IOException if writing fails.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the buffer can not hold a single number.
+	 */
+	public static void write(ComplexArray array, WritableByteChannel channel, ByteBuffer buffer)
+			throws IOException {
+		if(array == null || channel == null){
+			throw new NullPointerException("Arguments must not be null!");
+		}
+
+		if(buffer.capacity() < BYTES){
+			throw new IllegalArgumentException("Buffer must hold at least " + BYTES + " bytes!");
+		}
+
+		buffer.clear();
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		double[] re = array.real;
+		double[] im = array.imaginary;
+		int i = 0;
+		while(i < re.length){
+			while(i < re.length && buffer.remaining() >= BYTES){
+				buffer.putDouble(re[i]);
+				buffer.putDouble(im[i]);
+				i++;
+			}
+
+			buffer.flip();
+			while(buffer.hasRemaining()){
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * Reads numbers from the given channel until its end.
+	 * @param channel Channel from which the numbers are read.
+	 * @return Array with the read numbers.
+	 * @throws IOException if reading fails or the channel ends in the middle of a number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static ComplexArray read(ReadableByteChannel channel) throws IOException {
+		return read(channel, ByteBuffer.allocateDirect(BUFFER_SIZE));
+	}
+
+	/**
+	 * Reads numbers from the given channel until its end, reusing the given buffer for all reads.
+	 * @param channel Channel from which the numbers are read.
+	 * @param buffer Buffer used for reading. Its content and byte order are overwritten.
+	 * @return Array with the read numbers.
+	 * @throws IOException if reading fails or the channel ends in the middle of a number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the buffer can not hold a single number.
+	 */
+	public static ComplexArray read(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+		if(channel == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		if(buffer.capacity() < BYTES){
+			throw new IllegalArgumentException("Buffer must hold at least " + BYTES + " bytes!");
+		}
+
+		buffer.clear();
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		double[] re = new double[1024];
+		double[] im = new double[1024];
+		int size = 0;
+		while(channel.read(buffer) != -1){
+			buffer.flip();
+			while(buffer.remaining() >= BYTES){
+				if(size == re.length){
+					re = Arrays.copyOf(re, size * 2);
+					im = Arrays.copyOf(im, size * 2);
+				}
+				re[size] = buffer.getDouble();
+				im[size] = buffer.getDouble();
+				size++;
+			}
+			buffer.compact();
+		}
+
+		if(buffer.position() != 0){
+			throw new IOException("Channel ends in the middle of a complex number!");
+		}
+
+		return new ComplexArray(Arrays.copyOf(re, size), Arrays.copyOf(im, size));
+	}
+
+	/**
+	 * Saves all numbers of the given array into the given file through memory-mapped regions. The file is
+	 * created or replaced.
+	 * @param array Numbers to be saved.
+	 * @param file File into which the numbers are saved.
+	 * @throws IOException if writing fails.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static void save(ComplexArray array, Path file) throws IOException {
+		if(array == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		double[] re = array.real;
+		double[] im = array.imaginary;
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)){
+			for(int from = 0, to; from < re.length; from = to){
+				to = from + Math.min(MAPPED_COUNT, re.length - from);
+				DoubleBuffer doubles = channel.map(FileChannel.MapMode.READ_WRITE, (long) from * BYTES,
+						(long) (to - from) * BYTES).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+				for(int i = from; i < to; i++){
+					doubles.put(re[i]);
+					doubles.put(im[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Loads all numbers from the given file through memory-mapped regions.
+	 * @param file File from which the numbers are loaded.
+	 * @return Array with the loaded numbers.
+	 * @throws IOException if reading fails, or the size of the file is not a multiple of {@value #BYTES}
+	 * 		or is too big for an array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static ComplexArray load(Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			long size = channel.size();
+			if(size % BYTES != 0 || size / BYTES > Integer.MAX_VALUE - 8){
+				throw new IOException("File size is not a valid number of complex numbers!");
+			}
+
+			ComplexArray array = new ComplexArray((int) (size / BYTES));
+			double[] re = array.real;
+			double[] im = array.imaginary;
+			for(int from = 0, to; from < re.length; from = to){
+				to = from + Math.min(MAPPED_COUNT, re.length - from);
+				DoubleBuffer doubles = channel.map(FileChannel.MapMode.READ_ONLY, (long) from * BYTES,
+						(long) (to - from) * BYTES).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+				for(int i = from; i < to; i++){
+					re[i] = doubles.get();
+					im[i] = doubles.get();
+				}
+			}
+
+			return array;
+		}
+	}
+}
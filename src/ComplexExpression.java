@@ -0,0 +1,746 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+import hr.fer.zemris.java.custom.collections.ObjectStack;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Formula over a complex variable z, compiled once into a flat postfix program and then evaluated for many
+ * values of z. Formulas consist of complex literals in the form accepted by ComplexNumber.parse, such as "2.5",
+ * "3i" or "i", the variable z, parentheses, unary plus and minus, the binary operators +, -, * and /, and
+ * powers with non-negative integer exponents, such as "z^3 - 1 / (z + i)". Powers bind tightest and can not be
+ * chained, and unary minus binds tighter than multiplication and division.
+ * <p>
+ * Formulas are translated by the shunting-yard algorithm, with operators waiting on an ObjectStack, and parts
+ * made only of literals are calculated during compilation. The program runs over blocks of values at a time,
+ * with a stack of registers holding real and imaginary parts of a whole block in arrays of doubles, so each
+ * instruction is a simple loop and batch evaluation creates no objects per value. Arithmetic is that of
+ * ComplexNumber.
+ * @author Mislav Gillinger
+ * @version 1.0
+ */
+public class ComplexExpression {
+
+	/** Instruction which pushes a constant. */
+	private static final int CONSTANT = 0;
+	/** Instruction which pushes the variable. */
+	private static final int VARIABLE = 1;
+	/** Instruction which adds the top of the stack to the value below it. */
+	private static final int ADD = 2;
+	/** Instruction which subtracts the top of the stack from the value below it. */
+	private static final int SUB = 3;
+	/** Instruction which multiplies the value below the top of the stack by the top. */
+	private static final int MUL = 4;
+	/** Instruction which divides the value below the top of the stack by the top. */
+	private static final int DIV = 5;
+	/** Instruction which adds a constant to the top of the stack. */
+	private static final int ADD_CONSTANT = 6;
+	/** Instruction which subtracts a constant from the top of the stack. */
+	private static final int SUB_CONSTANT = 7;
+	/** Instruction which multiplies the top of the stack by a constant. */
+	private static final int MUL_CONSTANT = 8;
+	/** Instruction which divides the top of the stack by a constant. */
+	private static final int DIV_CONSTANT = 9;
+	/** Instruction which negates the top of the stack. */
+	private static final int NEGATE = 10;
+	/** Instruction which raises the top of the stack to an integer power. */
+	private static final int POWER = 11;
+
+	/** Number of values processed together by each instruction. */
+	private static final int BLOCK = 256;
+	/** Number of values from which batches are evaluated in parallel. */
+	private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+	/** Source of the formula. */
+	private final String formula;
+	/** Instructions of the program. */
+	private final int[] code;
+	/** Arguments of the instructions, an index of a constant or an exponent. */
+	private final int[] arguments;
+	/** Real parts of the constants. */
+	private final double[] constantsRe;
+	/** Imaginary parts of the constants. */
+	private final double[] constantsIm;
+	/** Maximal number of values on the stack. */
+	private final int depth;
+
+	/**
+	 * Creates a new expression from a compiled program.
+	 * @param formula Source of the formula.
+	 * @param program The program.
+	 */
+	private ComplexExpression(String formula, Program program){
+		this.formula = formula;
+		this.code = Arrays.copyOf(program.code, program.size);
+		this.arguments = Arrays.copyOf(program.arguments, program.size);
+		this.constantsRe = Arrays.copyOf(program.constantsRe, program.constants);
+		this.constantsIm = Arrays.copyOf(program.constantsIm, program.constants);
+		this.depth = program.maxDepth;
+	}
+
+	/**
+	 * Compiles the given formula.
+	 * @param formula Formula to be compiled.
+	 * @return The compiled expression.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the formula is not valid.
+	 */
+	public static ComplexExpression compile(String formula){
+		if(formula == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		Program program = new Program();
+		ObjectStack operators = new ObjectStack();
+		boolean expectOperand = true;
+		boolean afterPower = false;
+		int length = formula.length();
+		int i = 0;
+		while(i < length){
+			char c = formula.charAt(i);
+			if(Character.isWhitespace(c)){
+				i++;
+				continue;
+			}
+
+			if(expectOperand){
+				if(c == '('){
+					operators.push(Character.valueOf('('));
+					i++;
+				}
+				else if(c == '-'){
+					operators.push(Character.valueOf('n'));
+					i++;
+				}
+				else if(c == '+'){
+					i++;
+				}
+				else if(c == 'z'){
+					program.emit(VARIABLE, 0);
+					expectOperand = false;
+					afterPower = false;
+					i++;
+				}
+				else if(isDigit(c) || c == '.' || c == 'i'){
+					int end = scanLiteral(formula, i);
+					ComplexNumber literal;
+					try{
+						literal = ComplexNumber.parse(formula.substring(i, end));
+					} catch(NumberFormatException e){
+						throw invalid(formula, i);
+					}
+					program.emitConstant(literal.real, literal.imaginary);
+					expectOperand = false;
+					afterPower = false;
+					i = end;
+				}
+				else{
+					throw invalid(formula, i);
+				}
+				continue;
+			}
+
+			if(c == '+' || c == '-' || c == '*' || c == '/'){
+				while(!operators.isEmpty() && precedence((Character) operators.peek()) >= precedence(c)){
+					program.emitOperator((Character) operators.pop());
+				}
+				operators.push(Character.valueOf(c));
+				expectOperand = true;
+				i++;
+			}
+			else if(c == '^' && !afterPower){
+				// the operand is complete and every pending operator binds weaker, so the power applies at once
+				int start = i + 1;
+				while(start < length && Character.isWhitespace(formula.charAt(start))){
+					start++;
+				}
+				int end = start;
+				while(end < length && isDigit(formula.charAt(end))){
+					end++;
+				}
+				if(end == start || end - start > 9){
+					throw invalid(formula, start);
+				}
+				program.emitPower(Integer.parseInt(formula.substring(start, end)));
+				afterPower = true;
+				i = end;
+			}
+			else if(c == ')'){
+				while(!operators.isEmpty() && (Character) operators.peek() != '('){
+					program.emitOperator((Character) operators.pop());
+				}
+				if(operators.isEmpty()){
+					throw invalid(formula, i);
+				}
+				operators.pop();
+				afterPower = false;
+				i++;
+			}
+			else{
+				throw invalid(formula, i);
+			}
+		}
+
+		if(expectOperand){
+			throw invalid(formula, length);
+		}
+		while(!operators.isEmpty()){
+			char operator = (Character) operators.pop();
+			if(operator == '('){
+				throw new IllegalArgumentException("Unclosed parenthesis in formula: " + formula);
+			}
+			program.emitOperator(operator);
+		}
+
+		return new ComplexExpression(formula, program);
+	}
+
+	/**
+	 * Checks if the given character is a decimal digit.
+	 * @param c Character to be checked.
+	 * @return True if the character is a decimal digit.
+	 */
+	private static boolean isDigit(char c){
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * Finds the end of a literal, made of digits and decimal points, an optional exponent and an optional
+	 * imaginary unit.
+	 * @param formula The formula.
+	 * @param start Index of the first character of the literal.
+	 * @return Index after the last character of the literal.
+	 */
+	private static int scanLiteral(String formula, int start){
+		int length = formula.length();
+		int i = start;
+		while(i < length && (isDigit(formula.charAt(i)) || formula.charAt(i) == '.')){
+			i++;
+		}
+		if(i > start && i < length && (formula.charAt(i) == 'e' || formula.charAt(i) == 'E')){
+			int j = i + 1;
+			if(j < length && (formula.charAt(j) == '+' || formula.charAt(j) == '-')){
+				j++;
+			}
+			if(j < length && isDigit(formula.charAt(j))){
+				while(j < length && isDigit(formula.charAt(j))){
+					j++;
+				}
+				i = j;
+			}
+		}
+		if(i < length && formula.charAt(i) == 'i'){
+			i++;
+		}
+
+		return i;
+	}
+
+	/**
+	 * Returns the precedence of an operator waiting on the stack. Parentheses have the lowest one, so they
+	 * are never popped by an operator.
+	 * @param operator The operator, with 'n' being unary minus.
+	 * @return Precedence of the operator.
+	 */
+	private static int precedence(char operator){
+		switch(operator){
+		case '+':
+		case '-':
+			return 1;
+		case '*':
+		case '/':
+			return 2;
+		case 'n':
+			return 3;
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * Creates an exception which reports an unexpected character.
+	 * @param formula The formula.
+	 * @param index Index of the unexpected character.
+	 * @return The exception.
+	 */
+	private static IllegalArgumentException invalid(String formula, int index){
+		return new IllegalArgumentException("Invalid formula at index " + index + ": " + formula);
+	}
+
+	/**
+	 * Calculates the value of the expression for the given value of z.
+	 * @param z Value of the variable.
+	 * @return Value of the expression.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public ComplexNumber evaluate(ComplexNumber z){
+		double[] re = {z.real};
+		double[] im = {z.imaginary};
+		run(re, im, re, im, 0, 1, new double[depth][1], new double[depth][1]);
+		return new ComplexNumber(re[0], im[0]);
+	}
+
+	/**
+	 * Calculates values of the expression for all given values of z.
+	 * @param z Values of the variable.
+	 * @return Newly made array with the values of the expression.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public ComplexArray evaluate(ComplexArray z){
+		ComplexArray result = new ComplexArray(z.length());
+		evaluate(z, result, false);
+		return result;
+	}
+
+	/**
+	 * Calculates values of the expression for all given values of z and stores them into the given array, which
+	 * may be the same as the array of values of z. Large batches can be split between all available processors.
+	 * @param z Values of the variable.
+	 * @param result Array which receives the values of the expression.
+	 * @param parallel True if large batches should use all available processors.
+	 * @return The result array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	public ComplexArray evaluate(ComplexArray z, ComplexArray result, boolean parallel){
+		if(z == null || result == null){
+			throw new NullPointerException("Arguments must not be null!");
+		}
+
+		if(z.length() != result.length()){
+			throw new IllegalArgumentException("Arrays must have the same length!");
+		}
+
+		int n = z.length();
+		if(parallel && n >= PARALLEL_THRESHOLD){
+			ForkJoinPool.commonPool().invoke(new EvaluateTask(this, z, result, 0, n));
+		}
+		else{
+			run(z.real, z.imaginary, result.real, result.imaginary, 0, n, new double[depth][BLOCK],
+					new double[depth][BLOCK]);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Runs the program for a range of values, block by block. All values of a block are read before any result
+	 * of it is written, so the output arrays may be the same as the input ones.
+	 * @param zr Real parts of the values of z.
+	 * @param zi Imaginary parts of the values of z.
+	 * @param or Real parts of the results.
+	 * @param oi Imaginary parts of the results.
+	 * @param from First index, inclusive.
+	 * @param to Last index, exclusive.
+	 * @param stackRe Real parts of the registers, each at least as long as a block.
+	 * @param stackIm Imaginary parts of the registers, each at least as long as a block.
+	 */
+	private void run(double[] zr, double[] zi, double[] or, double[] oi, int from, int to,
+			double[][] stackRe, double[][] stackIm){
+		int block = stackRe[0].length;
+		for(int base = from; base < to; base += block){
+			int count = Math.min(block, to - base);
+			int top = -1;
+			for(int pc = 0; pc < code.length; pc++){
+				int argument = arguments[pc];
+				switch(code[pc]){
+				case CONSTANT:
+					top++;
+					Arrays.fill(stackRe[top], 0, count, constantsRe[argument]);
+					Arrays.fill(stackIm[top], 0, count, constantsIm[argument]);
+					break;
+				case VARIABLE:
+					top++;
+					System.arraycopy(zr, base, stackRe[top], 0, count);
+					System.arraycopy(zi, base, stackIm[top], 0, count);
+					break;
+				case ADD:
+					top--;
+					add(stackRe[top], stackIm[top], stackRe[top + 1], stackIm[top + 1], count);
+					break;
+				case SUB:
+					top--;
+					sub(stackRe[top], stackIm[top], stackRe[top + 1], stackIm[top + 1], count);
+					break;
+				case MUL:
+					top--;
+					ComplexKernels.mul(stackRe[top], stackIm[top], stackRe[top + 1], stackIm[top + 1],
+							stackRe[top], stackIm[top], 0, count);
+					break;
+				case DIV:
+					top--;
+					ComplexKernels.div(stackRe[top], stackIm[top], stackRe[top + 1], stackIm[top + 1],
+							stackRe[top], stackIm[top], 0, count);
+					break;
+				case ADD_CONSTANT:
+					addConstant(stackRe[top], stackIm[top], constantsRe[argument], constantsIm[argument], count);
+					break;
+				case SUB_CONSTANT:
+					addConstant(stackRe[top], stackIm[top], -constantsRe[argument], -constantsIm[argument], count);
+					break;
+				case MUL_CONSTANT:
+					mulConstant(stackRe[top], stackIm[top], constantsRe[argument], constantsIm[argument], count);
+					break;
+				case DIV_CONSTANT:
+					divConstant(stackRe[top], stackIm[top], constantsRe[argument], constantsIm[argument], count);
+					break;
+				case NEGATE:
+					negate(stackRe[top], stackIm[top], count);
+					break;
+				default:
+					power(stackRe[top], stackIm[top], argument, count);
+					break;
+				}
+			}
+
+			System.arraycopy(stackRe[0], 0, or, base, count);
+			System.arraycopy(stackIm[0], 0, oi, base, count);
+		}
+	}
+
+	/**
+	 * Adds b to a, element by element.
+	 * @param ar Real parts of a.
+	 * @param ai Imaginary parts of a.
+	 * @param br Real parts of b.
+	 * @param bi Imaginary parts of b.
+	 * @param count Number of elements.
+	 */
+	private static void add(double[] ar, double[] ai, double[] br, double[] bi, int count){
+		for(int i = 0; i < count; i++){
+			ar[i] += br[i];
+			ai[i] += bi[i];
+		}
+	}
+
+	/**
+	 * Subtracts b from a, element by element.
+	 * @param ar Real parts of a.
+	 * @param ai Imaginary parts of a.
+	 * @param br Real parts of b.
+	 * @param bi Imaginary parts of b.
+	 * @param count Number of elements.
+	 */
+	private static void sub(double[] ar, double[] ai, double[] br, double[] bi, int count){
+		for(int i = 0; i < count; i++){
+			ar[i] -= br[i];
+			ai[i] -= bi[i];
+		}
+	}
+
+	/**
+	 * Adds a constant to a, element by element.
+	 * @param ar Real parts of a.
+	 * @param ai Imaginary parts of a.
+	 * @param re Real part of the constant.
+	 * @param im Imaginary part of the constant.
+	 * @param count Number of elements.
+	 */
+	private static void addConstant(double[] ar, double[] ai, double re, double im, int count){
+		for(int i = 0; i < count; i++){
+			ar[i] += re;
+			ai[i] += im;
+		}
+	}
+
+	/**
+	 * Multiplies a by a constant, element by element.
+	 * @param ar Real parts of a.
+	 * @param ai Imaginary parts of a.
+	 * @param c Real part of the constant.
+	 * @param d Imaginary part of the constant.
+	 * @param count Number of elements.
+	 */
+	private static void mulConstant(double[] ar, double[] ai, double c, double d, int count){
+		for(int i = 0; i < count; i++){
+			double a = ar[i];
+			double b = ai[i];
+			ar[i] = a*c - b*d;
+			ai[i] = a*d + b*c;
+		}
+	}
+
+	/**
+	 * Divides a by a constant, element by element.
+	 * @param ar Real parts of a.
+	 * @param ai Imaginary parts of a.
+	 * @param c Real part of the constant.
+	 * @param d Imaginary part of the constant.
+	 * @param count Number of elements.
+	 */
+	private static void divConstant(double[] ar, double[] ai, double c, double d, int count){
+		double divisor = c*c + d*d;
+		for(int i = 0; i < count; i++){
+			double a = ar[i];
+			double b = ai[i];
+			ar[i] = (a*c + b*d)/divisor;
+			ai[i] = (b*c - a*d)/divisor;
+		}
+	}
+
+	/**
+	 * Negates a, element by element.
+	 * @param ar Real parts of a.
+	 * @param ai Imaginary parts of a.
+	 * @param count Number of elements.
+	 */
+	private static void negate(double[] ar, double[] ai, int count){
+		for(int i = 0; i < count; i++){
+			ar[i] = -ar[i];
+			ai[i] = -ai[i];
+		}
+	}
+
+	/**
+	 * Raises a to the given power, element by element, the same way as ComplexNumber.power.
+	 * @param ar Real parts of a.
+	 * @param ai Imaginary parts of a.
+	 * @param n The exponent.
+	 * @param count Number of elements.
+	 */
+	private static void power(double[] ar, double[] ai, int n, int count){
+		if(n > ComplexNumber.POWER_CROSSOVER){
+			for(int i = 0; i < count; i++){
+				double magnitude = Math.pow(Math.sqrt(ar[i]*ar[i] + ai[i]*ai[i]), n);
+				double angle = Math.atan2(ai[i], ar[i]);
+				ar[i] = magnitude*(Math.cos(n*angle));
+				ai[i] = magnitude*(Math.sin(n*angle));
+			}
+			return;
+		}
+
+		for(int i = 0; i < count; i++){
+			double re = 1;
+			double im = 0;
+			double baseRe = ar[i];
+			double baseIm = ai[i];
+			for(int e = n; e > 0; e >>= 1){
+				if((e & 1) != 0){
+					double temp = re*baseRe - im*baseIm;
+					im = re*baseIm + im*baseRe;
+					re = temp;
+				}
+				if(e > 1){
+					double temp = baseRe*baseRe - baseIm*baseIm;
+					baseIm = baseRe*baseIm + baseIm*baseRe;
+					baseRe = temp;
+				}
+			}
+			ar[i] = re;
+			ai[i] = im;
+		}
+	}
+
+	/**
+	 * Returns the source of the formula.
+	 * @return Source of the formula.
+	 */
+	@Override
+	public String toString(){
+		return formula;
+	}
+
+	/**
+	 * Program being compiled. Operations whose operands are all constants are calculated at once, and binary
+	 * operations whose right operand is a constant take it as their argument.
+	 */
+	private static class Program {
+
+		/** Instructions of the program. */
+		int[] code = new int[16];
+		/** Arguments of the instructions. */
+		int[] arguments = new int[16];
+		/** Number of instructions. */
+		int size;
+		/** Real parts of the constants. */
+		double[] constantsRe = new double[8];
+		/** Imaginary parts of the constants. */
+		double[] constantsIm = new double[8];
+		/** Number of constants. */
+		int constants;
+		/** Number of values on the stack after the last instruction. */
+		int stackDepth;
+		/** Maximal number of values on the stack. */
+		int maxDepth;
+
+		/**
+		 * Appends an instruction.
+		 * @param instruction The instruction.
+		 * @param argument Argument of the instruction.
+		 */
+		void emit(int instruction, int argument){
+			if(size == code.length){
+				code = Arrays.copyOf(code, size * 2);
+				arguments = Arrays.copyOf(arguments, size * 2);
+			}
+			code[size] = instruction;
+			arguments[size] = argument;
+			size++;
+
+			if(instruction == CONSTANT || instruction == VARIABLE){
+				stackDepth++;
+				maxDepth = Math.max(maxDepth, stackDepth);
+			}
+			else if(instruction >= ADD && instruction <= DIV){
+				stackDepth--;
+			}
+		}
+
+		/**
+		 * Adds a constant and returns its index.
+		 * @param re Real part of the constant.
+		 * @param im Imaginary part of the constant.
+		 * @return Index of the constant.
+		 */
+		int addConstant(double re, double im){
+			if(constants == constantsRe.length){
+				constantsRe = Arrays.copyOf(constantsRe, constants * 2);
+				constantsIm = Arrays.copyOf(constantsIm, constants * 2);
+			}
+			constantsRe[constants] = re;
+			constantsIm[constants] = im;
+			return constants++;
+		}
+
+		/**
+		 * Appends an instruction which pushes the given constant.
+		 * @param re Real part of the constant.
+		 * @param im Imaginary part of the constant.
+		 */
+		void emitConstant(double re, double im){
+			emit(CONSTANT, addConstant(re, im));
+		}
+
+		/**
+		 * Checks if the instruction at the given distance from the end pushes a constant.
+		 * @param distance Distance from the end, 1 being the last instruction.
+		 * @return True if the instruction pushes a constant.
+		 */
+		boolean isConstant(int distance){
+			return size >= distance && code[size - distance] == CONSTANT;
+		}
+
+		/**
+		 * Returns the constant pushed by the instruction at the given distance from the end.
+		 * @param distance Distance from the end, 1 being the last instruction.
+		 * @return The constant.
+		 */
+		ComplexNumber constant(int distance){
+			int index = arguments[size - distance];
+			return new ComplexNumber(constantsRe[index], constantsIm[index]);
+		}
+
+		/**
+		 * Replaces the given number of last instructions, which push constants, with one which pushes the given
+		 * value.
+		 * @param count Number of instructions to be replaced.
+		 * @param value The value.
+		 */
+		void replaceConstants(int count, ComplexNumber value){
+			size -= count;
+			stackDepth -= count;
+			emitConstant(value.real, value.imaginary);
+		}
+
+		/**
+		 * Appends a binary operator or unary minus.
+		 * @param operator The operator, with 'n' being unary minus.
+		 */
+		void emitOperator(char operator){
+			if(operator == 'n'){
+				if(isConstant(1)){
+					ComplexNumber c = constant(1);
+					replaceConstants(1, new ComplexNumber(-c.real, -c.imaginary));
+				}
+				else{
+					emit(NEGATE, 0);
+				}
+				return;
+			}
+
+			if(isConstant(1) && isConstant(2)){
+				ComplexNumber a = constant(2);
+				ComplexNumber b = constant(1);
+				replaceConstants(2, operator == '+' ? a.add(b) : operator == '-' ? a.sub(b)
+						: operator == '*' ? a.mul(b) : a.div(b));
+				return;
+			}
+
+			int instruction = operator == '+' ? ADD : operator == '-' ? SUB : operator == '*' ? MUL : DIV;
+			if(isConstant(1)){
+				int index = arguments[size - 1];
+				size--;
+				stackDepth--;
+				emit(instruction - ADD + ADD_CONSTANT, index);
+				return;
+			}
+
+			emit(instruction, 0);
+		}
+
+		/**
+		 * Appends a power with the given exponent.
+		 * @param n The exponent.
+		 */
+		void emitPower(int n){
+			if(isConstant(1)){
+				replaceConstants(1, constant(1).power(n));
+			}
+			else{
+				emit(POWER, n);
+			}
+		}
+	}
+
+	/**
+	 * Task which evaluates an expression for a range of values, splitting it in halves down to a few blocks.
+	 */
+	private static class EvaluateTask extends RecursiveAction {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = 1L;
+
+		/** Expression which is evaluated. */
+		private final ComplexExpression expression;
+		/** Values of the variable. */
+		private final ComplexArray z;
+		/** Array which receives the values of the expression. */
+		private final ComplexArray result;
+		/** First index, inclusive. */
+		private final int from;
+		/** Last index, exclusive. */
+		private final int to;
+
+		/**
+		 * Creates a new task.
+		 * @param expression Expression which is evaluated.
+		 * @param z Values of the variable.
+		 * @param result Array which receives the values of the expression.
+		 * @param from First index, inclusive.
+		 * @param to Last index, exclusive.
+		 */
+		EvaluateTask(ComplexExpression expression, ComplexArray z, ComplexArray result, int from, int to){
+			this.expression = expression;
+			this.z = z;
+			this.result = result;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute(){
+			if(to - from > PARALLEL_THRESHOLD / 4){
+				int middle = from + (to - from) / 2 / BLOCK * BLOCK;
+				invokeAll(new EvaluateTask(expression, z, result, from, middle),
+						new EvaluateTask(expression, z, result, middle, to));
+				return;
+			}
+
+			int depth = expression.depth;
+			expression.run(z.real, z.imaginary, result.real, result.imaginary, from, to,
+					new double[depth][BLOCK], new double[depth][BLOCK]);
+		}
+	}
+}
@@ -0,0 +1,277 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.CharBuffer;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Formats complex numbers the same way as ComplexNumber.toString, which uses DecimalFormat with pattern "#.##",
+ * but with a configurable number of fraction digits and without creating a formatter per value. Numbers are
+ * rounded half-even by their exact binary value, trailing zeros of the fraction are omitted, and negative numbers
+ * which round to zero keep their sign, as with DecimalFormat. Decimal separator, minus sign and the symbols for
+ * NaN and infinity are taken from the locale.
+ * <p>
+ * Digits are written directly to the given Appendable or CharBuffer. Values whose digits do not fit into a long
+ * and values which lie very close to a rounding tie fall back to BigDecimal. A formatter has no mutable state,
+ * so it can be shared between threads.
+ * @author Mislav Gillinger
+ * @version 1.0
+ */
+public class ComplexFormatter {
+
+	/** Largest supported number of fraction digits. */
+	public static final int MAX_PRECISION = 15;
+	/** Powers of ten which are exactly representable as double. */
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16
+	};
+	/** Scaled values below this bound have an exact fractional part. */
+	private static final double EXACT_BOUND = 0x1p52;
+
+	/** Formatter used by ComplexNumber.toString, for the locale it was made for. */
+	private static volatile ComplexFormatter defaultFormatter;
+
+	/** Maximal number of fraction digits. */
+	private final int precision;
+	/** Locale whose symbols are used. */
+	private final Locale locale;
+	/** Decimal separator. */
+	private final char decimalSeparator;
+	/** Minus sign. */
+	private final char minus;
+	/** Symbol for NaN. */
+	private final String nan;
+	/** Symbol for infinity. */
+	private final String infinity;
+
+	/**
+	 * Creates a new formatter with the given number of fraction digits for the default locale.
+	 * @param precision Maximal number of fraction digits.
+	 * @throws IllegalArgumentException if the precision is negative or bigger than {@value #MAX_PRECISION}.
+	 */
+	public ComplexFormatter(int precision){
+		this(precision, Locale.getDefault(Locale.Category.FORMAT));
+	}
+
+	/**
+	 * Creates a new formatter with the given number of fraction digits for the given locale.
+	 * @param precision Maximal number of fraction digits.
+	 * @param locale Locale whose symbols are used.
+	 * @throws IllegalArgumentException if the precision is negative or bigger than {@value #MAX_PRECISION}.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public ComplexFormatter(int precision, Locale locale){
+		if(precision < 0 || precision > MAX_PRECISION){
+			throw new IllegalArgumentException("Precision must be between 0 and " + MAX_PRECISION + "!");
+		}
+
+		DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+		this.precision = precision;
+		this.locale = locale;
+		this.decimalSeparator = symbols.getDecimalSeparator();
+		this.minus = symbols.getMinusSign();
+		this.nan = symbols.getNaN();
+		this.infinity = symbols.getInfinity();
+	}
+
+	/**
+	 * Returns the formatter with 2 fraction digits for the current default locale, which gives the same
+	 * result as DecimalFormat with pattern "#.##".
+	 * @return The default formatter.
+	 */
+	public static ComplexFormatter getDefault(){
+		ComplexFormatter formatter = defaultFormatter;
+		Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+		if(formatter == null || !formatter.locale.equals(locale)){
+			formatter = new ComplexFormatter(2, locale);
+			defaultFormatter = formatter;
+		}
+
+		return formatter;
+	}
+
+	/**
+	 * Returns the maximal number of fraction digits.
+	 * @return Maximal number of fraction digits.
+	 */
+	public int getPrecision(){
+		return precision;
+	}
+
+	/**
+	 * Formats the given complex number into a new String.
+	 * @param c Complex number to be formatted.
+	 * @return String which represents the complex number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public String format(ComplexNumber c){
+		StringBuilder sb = new StringBuilder(16);
+		try{
+			format(c.real, c.imaginary, sb);
+		} catch(IOException e){
+			throw new IllegalStateException(e);
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Writes the given complex number into the given buffer.
+	 * @param c Complex number to be formatted.
+	 * @param out Buffer which receives the characters.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws java.nio.BufferOverflowException if the buffer is full.
+	 */
+	public void format(ComplexNumber c, CharBuffer out){
+		try{
+			format(c.real, c.imaginary, out);
+		} catch(IOException e){
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Writes the given complex number to the given Appendable.
+	 * @param c Complex number to be formatted.
+	 * @param out Appendable which receives the characters.
+	 * @throws IOException if writing fails.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public void format(ComplexNumber c, Appendable out) throws IOException {
+		format(c.real, c.imaginary, out);
+	}
+
+	/**
+	 * Writes all numbers of the given array to the given Appendable, each followed by a new line.
+	 * @param array Complex numbers to be formatted.
+	 * @param out Appendable which receives the characters.
+	 * @throws IOException if writing fails.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public void formatAll(ComplexArray array, Appendable out) throws IOException {
+		for(int i = 0, n = array.length(); i < n; i++){
+			format(array.real[i], array.imaginary[i], out);
+			out.append('\n');
+		}
+	}
+
+	/**
+	 * Writes the complex number with the given parts to the given Appendable.
+	 * @param real Real part of a complex number.
+	 * @param imaginary Imaginary part of a complex number.
+	 * @param out Appendable which receives the characters.
+	 * @throws IOException if writing fails.
+	 */
+	public void format(double real, double imaginary, Appendable out) throws IOException {
+		formatDouble(real, out);
+		if(!(imaginary < 0)){
+			out.append('+');
+		}
+		formatDouble(imaginary, out);
+		out.append('i');
+	}
+
+	/**
+	 * Writes the given real number to the given Appendable.
+	 * @param x Number to be formatted.
+	 * @param out Appendable which receives the characters.
+	 * @throws IOException if writing fails.
+	 */
+	public void formatDouble(double x, Appendable out) throws IOException {
+		if(Double.isNaN(x)){
+			out.append(nan);
+			return;
+		}
+
+		if(x < 0 || x == 0 && 1 / x < 0){
+			out.append(minus);
+			x = -x;
+		}
+
+		if(Double.isInfinite(x)){
+			out.append(infinity);
+			return;
+		}
+
+		double scaled = x * POWERS_OF_TEN[precision];
+		if(scaled >= EXACT_BOUND){
+			formatBig(x, out);
+			return;
+		}
+
+		double floor = Math.floor(scaled);
+		double fraction = scaled - floor;
+		long digits = (long) floor;
+		if(Math.abs(fraction - 0.5) <= Math.ulp(scaled)){
+			if(x < 1e-3 && x == 5 / POWERS_OF_TEN[precision + 1]){
+				// DecimalFormat rounds 5E-n, whose shortest form is printed in scientific notation, down to zero
+				digits = 0;
+			}
+			else{
+				digits = new BigDecimal(x).movePointRight(precision).setScale(0, RoundingMode.HALF_EVEN)
+						.longValue();
+			}
+		}
+		else if(fraction > 0.5){
+			digits++;
+		}
+
+		long unit = (long) POWERS_OF_TEN[precision];
+		appendDigits(digits / unit, 1, out);
+
+		long fractionDigits = digits % unit;
+		if(fractionDigits != 0){
+			int length = precision;
+			while(fractionDigits % 10 == 0){
+				fractionDigits /= 10;
+				length--;
+			}
+			out.append(decimalSeparator);
+			appendDigits(fractionDigits, length, out);
+		}
+	}
+
+	/**
+	 * Writes a big non-negative number, rounding the shortest decimal representation of it like DecimalFormat
+	 * does, and deciding ties by its exact binary value.
+	 * @param x Number to be formatted.
+	 * @param out Appendable which receives the characters.
+	 * @throws IOException if writing fails.
+	 */
+	private void formatBig(double x, Appendable out) throws IOException {
+		BigDecimal shortest = new BigDecimal(Double.toString(x));
+		BigDecimal exact = new BigDecimal(x);
+		int direction = exact.compareTo(shortest);
+		RoundingMode mode = direction > 0 ? RoundingMode.HALF_UP
+				: direction < 0 ? RoundingMode.HALF_DOWN : RoundingMode.HALF_EVEN;
+
+		String plain = shortest.setScale(precision, mode).stripTrailingZeros().toPlainString();
+		for(int i = 0; i < plain.length(); i++){
+			char c = plain.charAt(i);
+			out.append(c == '.' ? decimalSeparator : c);
+		}
+	}
+
+	/**
+	 * Writes decimal digits of the given non-negative number, with leading zeros up to the given length.
+	 * @param value Number to be written.
+	 * @param length Minimal number of digits.
+	 * @param out Appendable which receives the characters.
+	 * @throws IOException if writing fails.
+	 */
+	private static void appendDigits(long value, int length, Appendable out) throws IOException {
+		long power = 1;
+		int digits = 1;
+		while(digits < length || power <= value / 10){
+			power *= 10;
+			digits++;
+		}
+
+		for(; power > 0; power /= 10){
+			out.append((char) ('0' + value / power % 10));
+		}
+	}
+}
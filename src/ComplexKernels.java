@@ -0,0 +1,105 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+/**
+ * Element by element complex arithmetic over ranges of split real and imaginary arrays, shared by ComplexArray,
+ * the register blocks of ComplexExpression and the pointwise product of FFT. Ranges let callers work on parts
+ * of larger arrays without copying them. All operands of an element are read before its result is written, so
+ * an output array may also be one of the inputs. Formulas are those of ComplexNumber, so results are the same
+ * as for the corresponding ComplexNumber operations.
+ * @author Mislav Gillinger
+ * @version 1.0
+ */
+final class ComplexKernels {
+
+	/**
+	 * Private constructor, class only contains static methods.
+	 */
+	private ComplexKernels(){
+	}
+
+	/**
+	 * Multiplies complex numbers a and b element by element and stores the products into out.
+	 * @param ar Real parts of a.
+	 * @param ai Imaginary parts of a.
+	 * @param br Real parts of b.
+	 * @param bi Imaginary parts of b.
+	 * @param or Real parts of out.
+	 * @param oi Imaginary parts of out.
+	 * @param from First index, inclusive.
+	 * @param to Last index, exclusive.
+	 */
+	static void mul(double[] ar, double[] ai, double[] br, double[] bi, double[] or, double[] oi,
+			int from, int to){
+		for(int i = from; i < to; i++){
+			double a = ar[i];
+			double b = ai[i];
+			double c = br[i];
+			double d = bi[i];
+			or[i] = a*c - b*d;
+			oi[i] = a*d + b*c;
+		}
+	}
+
+	/**
+	 * Divides complex numbers a by b element by element and stores the quotients into out.
+	 * @param ar Real parts of a.
+	 * @param ai Imaginary parts of a.
+	 * @param br Real parts of b.
+	 * @param bi Imaginary parts of b.
+	 * @param or Real parts of out.
+	 * @param oi Imaginary parts of out.
+	 * @param from First index, inclusive.
+	 * @param to Last index, exclusive.
+	 */
+	static void div(double[] ar, double[] ai, double[] br, double[] bi, double[] or, double[] oi,
+			int from, int to){
+		for(int i = from; i < to; i++){
+			double a = ar[i];
+			double b = ai[i];
+			double c = br[i];
+			double d = bi[i];
+			double divisor = c*c + d*d;
+			or[i] = (a*c + b*d)/divisor;
+			oi[i] = (b*c - a*d)/divisor;
+		}
+	}
+
+	/**
+	 * Calculates magnitudes of complex numbers a and stores them into out.
+	 * @param ar Real parts of a.
+	 * @param ai Imaginary parts of a.
+	 * @param out Magnitudes.
+	 * @param from First index, inclusive.
+	 * @param to Last index, exclusive.
+	 */
+	static void magnitude(double[] ar, double[] ai, double[] out, int from, int to){
+		for(int i = from; i < to; i++){
+			double a = ar[i];
+			double b = ai[i];
+			out[i] = Math.sqrt(a*a + b*b);
+		}
+	}
+
+	/**
+	 * Multiplies complex numbers a and b element by element and adds the products to acc.
+	 * @param ar Real parts of a.
+	 * @param ai Imaginary parts of a.
+	 * @param br Real parts of b.
+	 * @param bi Imaginary parts of b.
+	 * @param accr Real parts of acc.
+	 * @param acci Imaginary parts of acc.
+	 * @param from First index, inclusive.
+	 * @param to Last index, exclusive.
+	 */
+	static void mulAdd(double[] ar, double[] ai, double[] br, double[] bi, double[] accr, double[] acci,
+			int from, int to){
+		for(int i = from; i < to; i++){
+			double a = ar[i];
+			double b = ai[i];
+			double c = br[i];
+			double d = bi[i];
+			accr[i] += a*c - b*d;
+			acci[i] += a*d + b*c;
+		}
+	}
+}
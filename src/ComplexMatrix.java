@@ -0,0 +1,794 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Dense matrix of complex numbers which stores real and imaginary parts of its elements row by row in two arrays
+ * of doubles. Products are computed over square blocks, so operands are reused from the processor cache, and
+ * linear systems are solved by LU decomposition with partial pivoting. Large products and decompositions can be
+ * split between all available processors.
+ * @author Mislav Gillinger
+ * @version 1.0
+ */
+public class ComplexMatrix {
+
+	/** Width and height of a block of elements processed together. */
+	private static final int BLOCK = 64;
+	/** Number of multiplications from which work is split between processors. */
+	private static final long PARALLEL_THRESHOLD = 1L << 21;
+
+	/** Number of rows. */
+	private final int rows;
+	/** Number of columns. */
+	private final int columns;
+	/** Real parts of the elements, row by row. */
+	final double[] real;
+	/** Imaginary parts of the elements, row by row. */
+	final double[] imaginary;
+
+	/**
+	 * Creates a new matrix filled with zeros.
+	 * @param rows Number of rows.
+	 * @param columns Number of columns.
+	 * @throws IllegalArgumentException if a dimension is less than 1 or the matrix is too big.
+	 */
+	public ComplexMatrix(int rows, int columns){
+		if(rows < 1 || columns < 1 || (long) rows * columns > Integer.MAX_VALUE - 8){
+			throw new IllegalArgumentException("Invalid matrix dimensions!");
+		}
+
+		this.rows = rows;
+		this.columns = columns;
+		this.real = new double[rows * columns];
+		this.imaginary = new double[rows * columns];
+	}
+
+	/**
+	 * Creates a new matrix backed by the given arrays of real and imaginary parts of its elements, stored row by
+	 * row. The arrays are not copied.
+	 * @param rows Number of rows.
+	 * @param columns Number of columns.
+	 * @param real Real parts of the elements.
+	 * @param imaginary Imaginary parts of the elements.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if a dimension is less than 1 or the arrays do not have rows*columns
+	 * 		elements.
+	 */
+	public ComplexMatrix(int rows, int columns, double[] real, double[] imaginary){
+		if(real == null || imaginary == null){
+			throw new NullPointerException("Arguments must not be null!");
+		}
+
+		if(rows < 1 || columns < 1 || (long) rows * columns != real.length || real.length != imaginary.length){
+			throw new IllegalArgumentException("Invalid matrix dimensions!");
+		}
+
+		this.rows = rows;
+		this.columns = columns;
+		this.real = real;
+		this.imaginary = imaginary;
+	}
+
+	/**
+	 * Creates the identity matrix of the given size.
+	 * @param n Number of rows and columns.
+	 * @return Newly made matrix.
+	 * @throws IllegalArgumentException if the size is less than 1.
+	 */
+	public static ComplexMatrix identity(int n){
+		ComplexMatrix matrix = new ComplexMatrix(n, n);
+		for(int i = 0; i < n; i++){
+			matrix.real[i*n + i] = 1;
+		}
+
+		return matrix;
+	}
+
+	/**
+	 * Creates a new matrix with the values of the given complex numbers.
+	 * @param numbers Rows of complex numbers, all of the same length.
+	 * @return Newly made matrix.
+	 * @throws NullPointerException if the argument or one of its elements is null.
+	 * @throws IllegalArgumentException if there are no rows or columns, or rows have different lengths.
+	 */
+	public static ComplexMatrix fromComplexNumbers(ComplexNumber[][] numbers){
+		if(numbers.length == 0){
+			throw new IllegalArgumentException("Invalid matrix dimensions!");
+		}
+
+		int columns = numbers[0].length;
+		ComplexMatrix matrix = new ComplexMatrix(numbers.length, columns);
+		for(int i = 0; i < numbers.length; i++){
+			if(numbers[i].length != columns){
+				throw new IllegalArgumentException("Rows must have the same length!");
+			}
+			for(int j = 0; j < columns; j++){
+				matrix.set(i, j, numbers[i][j]);
+			}
+		}
+
+		return matrix;
+	}
+
+	/**
+	 * Returns the number of rows.
+	 * @return Number of rows.
+	 */
+	public int getRows(){
+		return rows;
+	}
+
+	/**
+	 * Returns the number of columns.
+	 * @return Number of columns.
+	 */
+	public int getColumns(){
+		return columns;
+	}
+
+	/**
+	 * Returns the element at the given position.
+	 * @param row Row of the element.
+	 * @param column Column of the element.
+	 * @return The element.
+	 * @throws IndexOutOfBoundsException if the position is invalid.
+	 */
+	public ComplexNumber get(int row, int column){
+		int index = index(row, column);
+		return new ComplexNumber(real[index], imaginary[index]);
+	}
+
+	/**
+	 * Sets the element at the given position.
+	 * @param row Row of the element.
+	 * @param column Column of the element.
+	 * @param c New value of the element.
+	 * @throws IndexOutOfBoundsException if the position is invalid.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public void set(int row, int column, ComplexNumber c){
+		set(row, column, c.real, c.imaginary);
+	}
+
+	/**
+	 * Sets the element at the given position.
+	 * @param row Row of the element.
+	 * @param column Column of the element.
+	 * @param real Real part of the element.
+	 * @param imaginary Imaginary part of the element.
+	 * @throws IndexOutOfBoundsException if the position is invalid.
+	 */
+	public void set(int row, int column, double real, double imaginary){
+		int index = index(row, column);
+		this.real[index] = real;
+		this.imaginary[index] = imaginary;
+	}
+
+	/**
+	 * Creates a copy of this matrix.
+	 * @return Newly made matrix with the same values.
+	 */
+	public ComplexMatrix copy(){
+		return new ComplexMatrix(rows, columns, real.clone(), imaginary.clone());
+	}
+
+	/**
+	 * Creates the transpose of this matrix.
+	 * @return Newly made matrix.
+	 */
+	public ComplexMatrix transpose(){
+		return transpose(false);
+	}
+
+	/**
+	 * Creates the conjugate transpose of this matrix.
+	 * @return Newly made matrix.
+	 */
+	public ComplexMatrix conjugateTranspose(){
+		return transpose(true);
+	}
+
+	/**
+	 * Creates the transpose of this matrix, copying it block by block so that both matrices are accessed within
+	 * a few cache lines.
+	 * @param conjugate True if the elements should also be conjugated.
+	 * @return Newly made matrix.
+	 */
+	private ComplexMatrix transpose(boolean conjugate){
+		ComplexMatrix result = new ComplexMatrix(columns, rows);
+		double[] re = result.real;
+		double[] im = result.imaginary;
+		double sign = conjugate ? -1 : 1;
+		for(int ii = 0; ii < rows; ii += BLOCK){
+			int iEnd = Math.min(rows, ii + BLOCK);
+			for(int jj = 0; jj < columns; jj += BLOCK){
+				int jEnd = Math.min(columns, jj + BLOCK);
+				for(int i = ii; i < iEnd; i++){
+					for(int j = jj; j < jEnd; j++){
+						re[j*rows + i] = real[i*columns + j];
+						im[j*rows + i] = sign*imaginary[i*columns + j];
+					}
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Multiplies this matrix by the given one.
+	 * @param other Right operand.
+	 * @return Newly made product.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the dimensions do not match.
+	 */
+	public ComplexMatrix multiply(ComplexMatrix other){
+		return multiply(other, new ComplexMatrix(rows, other.columns), false);
+	}
+
+	/**
+	 * Multiplies this matrix by the given one and stores the product into the result matrix, which must be a
+	 * different matrix than the operands. Large products can be split between all available processors.
+	 * @param other Right operand.
+	 * @param result Matrix which receives the product.
+	 * @param parallel True if large products should use all available processors.
+	 * @return The result matrix.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the dimensions do not match or the result is one of the operands.
+	 */
+	public ComplexMatrix multiply(ComplexMatrix other, ComplexMatrix result, boolean parallel){
+		if(other == null || result == null){
+			throw new NullPointerException("Arguments must not be null!");
+		}
+
+		if(columns != other.rows || result.rows != rows || result.columns != other.columns){
+			throw new IllegalArgumentException("Matrix dimensions do not match!");
+		}
+
+		if(result.real == real || result.real == other.real){
+			throw new IllegalArgumentException("Result must not be an operand!");
+		}
+
+		if(parallel && (long) rows * columns * other.columns >= PARALLEL_THRESHOLD){
+			ForkJoinPool.commonPool().invoke(new MultiplyTask(this, other, result, 0, rows));
+		}
+		else{
+			multiplyRows(other, result, 0, rows);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Computes a range of rows of the product, block by block, so that a block of the right operand is reused
+	 * for all rows of the range while it is in the cache.
+	 * @param other Right operand.
+	 * @param result Matrix which receives the product.
+	 * @param from First row, inclusive.
+	 * @param to Last row, exclusive.
+	 */
+	private void multiplyRows(ComplexMatrix other, ComplexMatrix result, int from, int to){
+		int n = columns;
+		int m = other.columns;
+		double[] br = other.real;
+		double[] bi = other.imaginary;
+		double[] cr = result.real;
+		double[] ci = result.imaginary;
+		for(int i = from*m; i < to*m; i++){
+			cr[i] = 0;
+			ci[i] = 0;
+		}
+
+		for(int kk = 0; kk < n; kk += BLOCK){
+			int kEnd = Math.min(n, kk + BLOCK);
+			for(int jj = 0; jj < m; jj += BLOCK){
+				int jEnd = Math.min(m, jj + BLOCK);
+				for(int i = from; i < to; i++){
+					int rowA = i*n;
+					int rowC = i*m;
+					for(int k = kk; k < kEnd; k++){
+						double a = real[rowA + k];
+						double b = imaginary[rowA + k];
+						int rowB = k*m;
+						for(int j = jj; j < jEnd; j++){
+							double c = br[rowB + j];
+							double d = bi[rowB + j];
+							cr[rowC + j] += a*c - b*d;
+							ci[rowC + j] += a*d + b*c;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Multiplies this matrix by the given column vector.
+	 * @param vector Right operand.
+	 * @return Newly made product.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the dimensions do not match.
+	 */
+	public ComplexArray multiply(ComplexArray vector){
+		return multiply(vector, new ComplexArray(rows), false);
+	}
+
+	/**
+	 * Multiplies this matrix by the given column vector and stores the product into the result array, which must
+	 * be a different array than the vector. Large products can be split between all available processors.
+	 * @param vector Right operand.
+	 * @param result Array which receives the product.
+	 * @param parallel True if large products should use all available processors.
+	 * @return The result array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the dimensions do not match or the result is the vector.
+	 */
+	public ComplexArray multiply(ComplexArray vector, ComplexArray result, boolean parallel){
+		if(vector == null || result == null){
+			throw new NullPointerException("Arguments must not be null!");
+		}
+
+		if(vector.length() != columns || result.length() != rows){
+			throw new IllegalArgumentException("Matrix dimensions do not match!");
+		}
+
+		if(result.real == vector.real){
+			throw new IllegalArgumentException("Result must not be an operand!");
+		}
+
+		if(parallel && (long) rows * columns >= PARALLEL_THRESHOLD){
+			ForkJoinPool.commonPool().invoke(new VectorTask(this, vector, result, 0, rows));
+		}
+		else{
+			multiplyRows(vector, result, 0, rows);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Computes a range of elements of the product with a column vector.
+	 * @param vector Right operand.
+	 * @param result Array which receives the product.
+	 * @param from First row, inclusive.
+	 * @param to Last row, exclusive.
+	 */
+	private void multiplyRows(ComplexArray vector, ComplexArray result, int from, int to){
+		double[] xr = vector.real;
+		double[] xi = vector.imaginary;
+		for(int i = from; i < to; i++){
+			int row = i*columns;
+			double sr = 0;
+			double si = 0;
+			for(int j = 0; j < columns; j++){
+				double a = real[row + j];
+				double b = imaginary[row + j];
+				double c = xr[j];
+				double d = xi[j];
+				sr += a*c - b*d;
+				si += a*d + b*c;
+			}
+			result.real[i] = sr;
+			result.imaginary[i] = si;
+		}
+	}
+
+	/**
+	 * Solves the linear system in which this matrix holds the coefficients and the given vector the right side.
+	 * @param b Right side of the system.
+	 * @return Newly made array with the solution.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the matrix is not square or the dimensions do not match.
+	 * @throws ArithmeticException if the matrix is singular.
+	 */
+	public ComplexArray solve(ComplexArray b){
+		return lu(false).solve(b);
+	}
+
+	/**
+	 * Computes the LU decomposition of this matrix with partial pivoting, which can be used to solve several
+	 * systems with the same coefficients. This matrix is not changed. The elimination of large matrices can be
+	 * split between all available processors.
+	 * @param parallel True if large matrices should use all available processors.
+	 * @return The decomposition.
+	 * @throws IllegalArgumentException if the matrix is not square.
+	 */
+	public LUDecomposition lu(boolean parallel){
+		if(rows != columns){
+			throw new IllegalArgumentException("Matrix must be square!");
+		}
+
+		return new LUDecomposition(this, parallel);
+	}
+
+	/**
+	 * Shapes the matrix in a String format, each row in its own line, such as "[1+0i, 0+0i]".
+	 * @return String which represents the matrix.
+	 */
+	@Override
+	public String toString(){
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < rows; i++){
+			if(i > 0){
+				sb.append('\n');
+			}
+			sb.append('[');
+			for(int j = 0; j < columns; j++){
+				if(j > 0){
+					sb.append(", ");
+				}
+				sb.append(get(i, j));
+			}
+			sb.append(']');
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the index of the element at the given position in the backing arrays.
+	 * @param row Row of the element.
+	 * @param column Column of the element.
+	 * @return Index of the element.
+	 * @throws IndexOutOfBoundsException if the position is invalid.
+	 */
+	private int index(int row, int column){
+		if(row < 0 || row >= rows || column < 0 || column >= columns){
+			throw new IndexOutOfBoundsException("Invalid position: " + row + ", " + column);
+		}
+
+		return row*columns + column;
+	}
+
+	/**
+	 * LU decomposition PA = LU of a square matrix, where P is a permutation, L a lower triangular matrix with
+	 * ones on its diagonal and U an upper triangular matrix. L and U are stored together in a single matrix.
+	 * @author Mislav Gillinger
+	 * @version 1.0
+	 */
+	public static final class LUDecomposition {
+
+		/** Number of rows and columns. */
+		private final int n;
+		/** Real parts of L below the diagonal and U on and above it. */
+		private final double[] real;
+		/** Imaginary parts of L below the diagonal and U on and above it. */
+		private final double[] imaginary;
+		/** Row swapped with row k in step k of the elimination. */
+		private final int[] pivots;
+		/** True if the number of row swaps is odd. */
+		private boolean oddSwaps;
+		/** True if a pivot is negligible compared to the elements of the matrix. */
+		private boolean singular;
+
+		/**
+		 * Decomposes the given matrix.
+		 * @param matrix Square matrix to be decomposed.
+		 * @param parallel True if large matrices should use all available processors.
+		 */
+		LUDecomposition(ComplexMatrix matrix, boolean parallel){
+			n = matrix.rows;
+			real = matrix.real.clone();
+			imaginary = matrix.imaginary.clone();
+			pivots = new int[n];
+			double largest = 0;
+			for(int i = 0; i < real.length; i++){
+				largest = Math.max(largest, real[i]*real[i] + imaginary[i]*imaginary[i]);
+			}
+			// pivots below the rounding error of the elimination are treated as zero
+			double tolerance = n * Math.ulp(1.0) * n * Math.ulp(1.0) * largest;
+			for(int k = 0; k < n; k++){
+				int pivot = k;
+				double max = -1;
+				for(int i = k; i < n; i++){
+					double a = real[i*n + k];
+					double b = imaginary[i*n + k];
+					if(a*a + b*b > max){
+						max = a*a + b*b;
+						pivot = i;
+					}
+				}
+
+				pivots[k] = pivot;
+				if(max <= tolerance){
+					singular = true;
+					continue;
+				}
+				if(pivot != k){
+					swapRows(pivot, k);
+					oddSwaps = !oddSwaps;
+				}
+
+				if(parallel && (long) (n - k) * (n - k) >= PARALLEL_THRESHOLD / BLOCK){
+					ForkJoinPool.commonPool().invoke(new EliminationTask(this, k, k + 1, n));
+				}
+				else{
+					eliminate(k, k + 1, n);
+				}
+			}
+		}
+
+		/**
+		 * Swaps two rows of the decomposed matrix.
+		 * @param i First row.
+		 * @param j Second row.
+		 */
+		private void swapRows(int i, int j){
+			for(int c = 0; c < n; c++){
+				double temp = real[i*n + c];
+				real[i*n + c] = real[j*n + c];
+				real[j*n + c] = temp;
+				temp = imaginary[i*n + c];
+				imaginary[i*n + c] = imaginary[j*n + c];
+				imaginary[j*n + c] = temp;
+			}
+		}
+
+		/**
+		 * Eliminates column k from a range of rows below it, storing the multipliers in place of the eliminated
+		 * elements.
+		 * @param k Column whose pivot is on the diagonal.
+		 * @param from First row, inclusive.
+		 * @param to Last row, exclusive.
+		 */
+		void eliminate(int k, int from, int to){
+			int pivotRow = k*n;
+			double c = real[pivotRow + k];
+			double d = imaginary[pivotRow + k];
+			double divisor = c*c + d*d;
+			for(int i = from; i < to; i++){
+				int row = i*n;
+				double a = real[row + k];
+				double b = imaginary[row + k];
+				double lr = (a*c + b*d)/divisor;
+				double li = (b*c - a*d)/divisor;
+				real[row + k] = lr;
+				imaginary[row + k] = li;
+				for(int j = k + 1; j < n; j++){
+					double ur = real[pivotRow + j];
+					double ui = imaginary[pivotRow + j];
+					real[row + j] -= lr*ur - li*ui;
+					imaginary[row + j] -= lr*ui + li*ur;
+				}
+			}
+		}
+
+		/**
+		 * Checks if the decomposed matrix is singular. A matrix is treated as singular if a pivot is no bigger
+		 * than the rounding error of the elimination, relative to the largest element of the matrix.
+		 * @return True if the matrix is singular.
+		 */
+		public boolean isSingular(){
+			return singular;
+		}
+
+		/**
+		 * Calculates the determinant of the decomposed matrix.
+		 * @return The determinant.
+		 */
+		public ComplexNumber determinant(){
+			if(singular){
+				return new ComplexNumber(0, 0);
+			}
+
+			MutableComplex det = new MutableComplex(oddSwaps ? -1 : 1, 0);
+			for(int k = 0; k < n; k++){
+				det.mul(real[k*n + k], imaginary[k*n + k]);
+			}
+
+			return det.toComplexNumber();
+		}
+
+		/**
+		 * Solves the linear system with the decomposed matrix and the given right side, by forward and backward
+		 * substitution.
+		 * @param b Right side of the system.
+		 * @return Newly made array with the solution.
+		 * @throws NullPointerException if null pointer is provided as an argument.
+		 * @throws IllegalArgumentException if the length of the right side does not match.
+		 * @throws ArithmeticException if the matrix is singular.
+		 */
+		public ComplexArray solve(ComplexArray b){
+			if(b == null){
+				throw new NullPointerException("Argument must not be null!");
+			}
+
+			if(b.length() != n){
+				throw new IllegalArgumentException("Matrix dimensions do not match!");
+			}
+
+			if(singular){
+				throw new ArithmeticException("Matrix is singular!");
+			}
+
+			double[] xr = b.real.clone();
+			double[] xi = b.imaginary.clone();
+			for(int k = 0; k < n; k++){
+				int p = pivots[k];
+				double temp = xr[k];
+				xr[k] = xr[p];
+				xr[p] = temp;
+				temp = xi[k];
+				xi[k] = xi[p];
+				xi[p] = temp;
+			}
+
+			for(int i = 1; i < n; i++){
+				int row = i*n;
+				double sr = xr[i];
+				double si = xi[i];
+				for(int j = 0; j < i; j++){
+					double a = real[row + j];
+					double c = imaginary[row + j];
+					sr -= a*xr[j] - c*xi[j];
+					si -= a*xi[j] + c*xr[j];
+				}
+				xr[i] = sr;
+				xi[i] = si;
+			}
+
+			for(int i = n - 1; i >= 0; i--){
+				int row = i*n;
+				double sr = xr[i];
+				double si = xi[i];
+				for(int j = i + 1; j < n; j++){
+					double a = real[row + j];
+					double c = imaginary[row + j];
+					sr -= a*xr[j] - c*xi[j];
+					si -= a*xi[j] + c*xr[j];
+				}
+				double c = real[row + i];
+				double d = imaginary[row + i];
+				double divisor = c*c + d*d;
+				xr[i] = (sr*c + si*d)/divisor;
+				xi[i] = (si*c - sr*d)/divisor;
+			}
+
+			return new ComplexArray(xr, xi);
+		}
+	}
+
+	/**
+	 * Task which computes a range of rows of a matrix product, splitting it in halves down to blocks.
+	 */
+	private static class MultiplyTask extends RecursiveAction {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = 1L;
+
+		/** Left operand. */
+		private final ComplexMatrix left;
+		/** Right operand. */
+		private final ComplexMatrix right;
+		/** Matrix which receives the product. */
+		private final ComplexMatrix result;
+		/** First row, inclusive. */
+		private final int from;
+		/** Last row, exclusive. */
+		private final int to;
+
+		/**
+		 * Creates a new task.
+		 * @param left Left operand.
+		 * @param right Right operand.
+		 * @param result Matrix which receives the product.
+		 * @param from First row, inclusive.
+		 * @param to Last row, exclusive.
+		 */
+		MultiplyTask(ComplexMatrix left, ComplexMatrix right, ComplexMatrix result, int from, int to){
+			this.left = left;
+			this.right = right;
+			this.result = result;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute(){
+			if(to - from > BLOCK){
+				int middle = from + (to - from) / 2 / BLOCK * BLOCK;
+				if(middle == from){
+					middle = (from + to) >>> 1;
+				}
+				invokeAll(new MultiplyTask(left, right, result, from, middle),
+						new MultiplyTask(left, right, result, middle, to));
+				return;
+			}
+
+			left.multiplyRows(right, result, from, to);
+		}
+	}
+
+	/**
+	 * Task which computes a range of elements of a product with a vector, splitting it in halves down to blocks.
+	 */
+	private static class VectorTask extends RecursiveAction {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = 1L;
+
+		/** The matrix. */
+		private final ComplexMatrix matrix;
+		/** The vector. */
+		private final ComplexArray vector;
+		/** Array which receives the product. */
+		private final ComplexArray result;
+		/** First row, inclusive. */
+		private final int from;
+		/** Last row, exclusive. */
+		private final int to;
+
+		/**
+		 * Creates a new task.
+		 * @param matrix The matrix.
+		 * @param vector The vector.
+		 * @param result Array which receives the product.
+		 * @param from First row, inclusive.
+		 * @param to Last row, exclusive.
+		 */
+		VectorTask(ComplexMatrix matrix, ComplexArray vector, ComplexArray result, int from, int to){
+			this.matrix = matrix;
+			this.vector = vector;
+			this.result = result;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute(){
+			if((long) (to - from) * matrix.columns > PARALLEL_THRESHOLD / BLOCK && to - from > 1){
+				int middle = (from + to) >>> 1;
+				invokeAll(new VectorTask(matrix, vector, result, from, middle),
+						new VectorTask(matrix, vector, result, middle, to));
+				return;
+			}
+
+			matrix.multiplyRows(vector, result, from, to);
+		}
+	}
+
+	/**
+	 * Task which eliminates a column from a range of rows of an LU decomposition, splitting it in halves down to
+	 * blocks.
+	 */
+	private static class EliminationTask extends RecursiveAction {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = 1L;
+
+		/** Decomposition being computed. */
+		private final LUDecomposition lu;
+		/** Column which is eliminated. */
+		private final int k;
+		/** First row, inclusive. */
+		private final int from;
+		/** Last row, exclusive. */
+		private final int to;
+
+		/**
+		 * Creates a new task.
+		 * @param lu Decomposition being computed.
+		 * @param k Column which is eliminated.
+		 * @param from First row, inclusive.
+		 * @param to Last row, exclusive.
+		 */
+		EliminationTask(LUDecomposition lu, int k, int from, int to){
+			this.lu = lu;
+			this.k = k;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute(){
+			if((long) (to - from) * (lu.n - k) > PARALLEL_THRESHOLD / BLOCK && to - from > 1){
+				int middle = (from + to) >>> 1;
+				invokeAll(new EliminationTask(lu, k, from, middle), new EliminationTask(lu, k, middle, to));
+				return;
+			}
+
+			lu.eliminate(k, from, to);
+		}
+	}
+}
@@ -1,6 +1,6 @@
 package hr.fer.zemris.java.tecaj.hw2;
 
-import java.text.DecimalFormat;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Class which supports working with complex numbers.
@@ -9,6 +9,13 @@ import java.text.DecimalFormat;
  */
 public class ComplexNumber {
 
+	/** Largest exponent for which power is calculated by repeated multiplication instead of polar form. */
+	static final int POWER_CROSSOVER = 64;
+	/** Largest number of roots of unity tables kept in the cache. */
+	private static final int ROOTS_CACHE_SIZE = 32;
+	/** Cached tables of cosines and sines of n-th roots of unity, by n. */
+	private static final ConcurrentHashMap<Integer, double[][]> ROOTS_OF_UNITY = new ConcurrentHashMap<>();
+
 	/** Real part of a complex number. */
 	double real;
 	/** Imaginary part of a complex number. */
@@ -55,43 +62,17 @@ public class ComplexNumber {
 	}
 	
 	/**
-	 * Creates a new complex number by parsing the given String.
+	 * Creates a new complex number by parsing the given String, reading its
+	 * characters in place. Accepted forms are described in
+	 * {@link ComplexParser}, for example "2.5", "-3i", "i", "-2.71-3.15i" and "NaN".
+	 * Whitespace around the number is ignored.
 	 * @param s String to be parsed, which represents a complex number.
 	 * @return Newly made complex number.
+	 * @throws NumberFormatException if the String is not a complex number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
 	 */
 	public static ComplexNumber parse(String s){
-		if(s.equals("i")){
-			return new ComplexNumber(0, 1);
-		}
-		else if(!s.contains("i")){
-			return new ComplexNumber(Double.parseDouble(s), 0);
-		}
-		else if (!s.contains("+") && !s.contains("-")){
-			return new ComplexNumber(0, Double.parseDouble(s.substring(0, s.length()-1)));
-		}
-		else if(s.contains("+")){
-			if(s.charAt(s.lastIndexOf('+')) == '+'){
-				if(s.substring(0, s.lastIndexOf('+')).equals("")){
-					return new ComplexNumber(0, Double.parseDouble(s.substring(s.lastIndexOf('+'), s.length()-1)));
-				}
-				else{
-					return new ComplexNumber(
-							Double.parseDouble(s.substring(0, s.lastIndexOf('+')))
-							, Double.parseDouble(s.substring(s.lastIndexOf('+'), s.length()-1)));
-				}
-			}
-		}
-		else{
-			if(s.substring(0, s.lastIndexOf('-')).equals("")){
-				return new ComplexNumber(0, Double.parseDouble(s.substring(s.lastIndexOf('-'), s.length()-1)));
-			}
-			else{
-				return new ComplexNumber(
-						Double.parseDouble(s.substring(0, s.lastIndexOf('-')))
-						, Double.parseDouble(s.substring(s.lastIndexOf('-'), s.length()-1)));
-			}
-		}
-		return new ComplexNumber(0,0);
+		return ComplexParser.parse(s, 0, s.length());
 	}
 	
 	/**
@@ -168,7 +149,9 @@ public class ComplexNumber {
 	
 	/**
 	 * Calculates the value of the complex number raised to the power of the 
-	 * given argument. 
+	 * given argument. Exponents up to {@value #POWER_CROSSOVER} are calculated
+	 * by repeated squaring, which is exact for small Gaussian integers, and
+	 * larger ones through polar form.
 	 * @param n The exponent.
 	 * @return Complex number raised to the power of the given argument.
 	 * @throws IllegalArgumentException if the exponent is less than 0.
@@ -178,16 +161,39 @@ public class ComplexNumber {
 			throw new IllegalArgumentException("Exponent must be 0 or bigger!");
 		}
 		
-		double magnitude = getMagnitude();
-		double angle = getAngle();
+		if(n > POWER_CROSSOVER){
+			double magnitude = Math.pow(getMagnitude(), n);
+			double angle = getAngle();
+			
+			return new ComplexNumber(
+					magnitude*(Math.cos(n*angle)),
+					magnitude*(Math.sin(n*angle)));
+		}
 		
-		return new ComplexNumber(
-				Math.pow(magnitude, n)*(Math.cos(n*angle)),
-				Math.pow(magnitude, n)*(Math.sin(n*angle)));
+		double re = 1;
+		double im = 0;
+		double baseRe = real;
+		double baseIm = imaginary;
+		for(int e = n; e > 0; e >>= 1){
+			if((e & 1) != 0){
+				double temp = re*baseRe - im*baseIm;
+				im = re*baseIm + im*baseRe;
+				re = temp;
+			}
+			if(e > 1){
+				double temp = baseRe*baseRe - baseIm*baseIm;
+				baseIm = baseRe*baseIm + baseIm*baseRe;
+				baseRe = temp;
+			}
+		}
+		
+		return new ComplexNumber(re, im);
 	}
 	
 	/**
-	 * Calculates all roots of a complex number.
+	 * Calculates all roots of a complex number. The first root is calculated
+	 * through polar form, and the others by rotating it with the cached n-th
+	 * roots of unity.
 	 * @param n Represents n-th root of a complex number.
 	 * @return An array of complex numbers which are roots of the given one.
 	 * @throws IllegalArgumentException if the argument is less than 1
@@ -198,30 +204,58 @@ public class ComplexNumber {
 		}
 		
 		ComplexNumber[] ret = new ComplexNumber[n];
-		double magnitude = getMagnitude();
-		double angle = getAngle();
+		double magnitude = Math.pow(getMagnitude(), 1/(double)n);
+		double angle = getAngle()/n;
+		double baseRe = magnitude*Math.cos(angle);
+		double baseIm = magnitude*Math.sin(angle);
 		
+		double[][] unity = rootsOfUnity(n);
+		double[] cos = unity[0];
+		double[] sin = unity[1];
 		for(int k = 0; k < n; k++){
 			ret[k] = new ComplexNumber(
-					Math.pow(magnitude, 1/(double)n)*(Math.cos((angle+2*k*Math.PI)/n)),
-					Math.pow(magnitude, 1/(double)n)*(Math.sin((angle+2*k*Math.PI)/n)));
+					baseRe*cos[k] - baseIm*sin[k],
+					baseRe*sin[k] + baseIm*cos[k]);
 		}
 		
 		return ret;
 	}
 	
 	/**
-	 * Shapes the complex number in a String format.
+	 * Returns cosines and sines of the n-th roots of unity, calculating them
+	 * if they are not cached.
+	 * @param n Degree of the roots.
+	 * @return Array with cosines and array with sines of angles 2*k*pi/n.
+	 */
+	static double[][] rootsOfUnity(int n){
+		double[][] unity = ROOTS_OF_UNITY.get(n);
+		if(unity == null){
+			double[] cos = new double[n];
+			double[] sin = new double[n];
+			for(int k = 0; k < n; k++){
+				cos[k] = Math.cos(2*k*Math.PI/n);
+				sin[k] = Math.sin(2*k*Math.PI/n);
+			}
+			cos[0] = 1;
+			sin[0] = 0;
+			
+			unity = new double[][] {cos, sin};
+			if(ROOTS_OF_UNITY.size() >= ROOTS_CACHE_SIZE){
+				ROOTS_OF_UNITY.clear();
+			}
+			ROOTS_OF_UNITY.put(n, unity);
+		}
+		
+		return unity;
+	}
+	
+	/**
+	 * Shapes the complex number in a String format, with at most two
+	 * fraction digits, as DecimalFormat with pattern "#.##" would.
 	 * @return String which represents a complex number.
+	 * @see ComplexFormatter
 	 */
 	public String toString(){
-		DecimalFormat decimalFormat = new DecimalFormat("#.##");
-		
-		if(imaginary < 0){
-			return decimalFormat.format(real) + "" + decimalFormat.format(imaginary) + "i";
-		}
-		else{
-			return decimalFormat.format(real) + "+" + decimalFormat.format(imaginary) + "i";
-		}
+		return ComplexFormatter.getDefault().format(this);
 	}
 }
@@ -0,0 +1,514 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import hr.fer.zemris.java.cstr.CString;
+
+/**
+ * Parses complex numbers from any CharSequence, reading its characters in place, without creating intermediate
+ * Strings or copies of the input. Accepted
+ * forms are those of ComplexNumber.parse: a real number ("2.5", "-1e3"), an imaginary number ("3i", "-2.1i",
+ * "i", "-i") or their sum or difference ("1+2i", "-2.71-3.15i", "4-i"). Real numbers are written with decimal
+ * digits, an optional decimal point and an optional exponent, or as "NaN" or "Infinity". Whitespace around the
+ * number is ignored, the same way Double.parseDouble ignores it, and anything else is reported with
+ * NumberFormatException.
+ * <p>
+ * Digits are converted while the number is read, exactly when the significant digits fit into 53 bits and the
+ * exponent is at most 22 in magnitude, with a single multiplication or division by a power of ten; other numbers,
+ * NaN and Infinity fall back to Double.parseDouble. Batch methods parse many numbers separated by whitespace,
+ * from a file, a CharBuffer or a CString, straight into a ComplexArray. Input which is not in memory is read in
+ * large chunks into a single reused character array.
+ * @author Mislav Gillinger
+ * @version 1.0
+ */
+public final class ComplexParser {
+
+	/** Size of the chunks in which input is read. */
+	private static final int CHUNK_SIZE = 1 << 16;
+	/** Powers of ten which are exactly representable as double. */
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+			1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	/** Largest mantissa which is exactly representable as double. */
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	/**
+	 * Private constructor, class only contains static methods.
+	 */
+	private ComplexParser(){
+	}
+
+	/**
+	 * Parses a complex number from the given range of a character array. Whitespace at the start and the end
+	 * of the range is ignored.
+	 * @param data Character array to be parsed.
+	 * @param offset Index of the first character of the range.
+	 * @param length Length of the range.
+	 * @return The parsed complex number.
+	 * @throws NumberFormatException if the range does not contain a complex number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IndexOutOfBoundsException if the range is invalid.
+	 */
+	public static ComplexNumber parse(char[] data, int offset, int length){
+		if(offset < 0 || length < 0 || offset + length > data.length){
+			throw new IndexOutOfBoundsException("Invalid offset or length!");
+		}
+
+		return parse(CharBuffer.wrap(data), offset, offset + length);
+	}
+
+	/**
+	 * Parses a complex number from the given range of a character sequence, reading its characters in place.
+	 * Whitespace at the start and the end of the range is ignored.
+	 * @param s Character sequence to be parsed.
+	 * @param startIndex Index of the first character of the range.
+	 * @param endIndex Index after the last character of the range.
+	 * @return The parsed complex number.
+	 * @throws NumberFormatException if the range does not contain a complex number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IndexOutOfBoundsException if the range is invalid.
+	 */
+	public static ComplexNumber parse(CharSequence s, int startIndex, int endIndex){
+		if(startIndex < 0 || startIndex > endIndex || endIndex > s.length()){
+			throw new IndexOutOfBoundsException("Invalid start or end index!");
+		}
+
+		int from = startIndex;
+		int to = endIndex;
+		while(from < to && s.charAt(from) <= ' '){
+			from++;
+		}
+		while(to > from && s.charAt(to - 1) <= ' '){
+			to--;
+		}
+
+		MutableComplex result = new MutableComplex();
+		parse(s, from, to, result);
+		return new ComplexNumber(result.real, result.imaginary);
+	}
+
+	/**
+	 * Parses complex numbers separated by whitespace from the given string.
+	 * @param s String to be parsed.
+	 * @return Array with the parsed numbers, in order.
+	 * @throws NumberFormatException if a part of the string is not a complex number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static ComplexArray parseAll(final CString s){
+		if(s == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		try{
+			return parseAll(new Reader() {
+
+				/** Position of the next character to be read. */
+				private int position;
+
+				@Override
+				public int read(char[] cbuf, int off, int len){
+					if(position == s.length()){
+						return -1;
+					}
+
+					int n = Math.min(len, s.length() - position);
+					s.subSequence(position, position + n).writeTo(CharBuffer.wrap(cbuf, off, n));
+					position += n;
+					return n;
+				}
+
+				@Override
+				public void close(){
+				}
+			});
+		} catch(IOException e){
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Parses complex numbers separated by whitespace from the remaining characters of the given buffer, which
+	 * are all consumed. Characters are read in place.
+	 * @param buffer Buffer to be parsed.
+	 * @return Array with the parsed numbers, in order.
+	 * @throws NumberFormatException if a part of the buffer is not a complex number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static ComplexArray parseAll(CharBuffer buffer){
+		Output output = new Output();
+		parseTokens(buffer, 0, buffer.remaining(), true, output);
+		buffer.position(buffer.limit());
+		return output.toComplexArray();
+	}
+
+	/**
+	 * Parses complex numbers separated by whitespace from the given UTF-8 file.
+	 * @param file File to be parsed.
+	 * @return Array with the parsed numbers, in order.
+	 * @throws IOException if reading fails.
+	 * @throws NumberFormatException if a part of the file is not a complex number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static ComplexArray load(Path file) throws IOException {
+		try(Reader reader = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8)){
+			return parseAll(reader);
+		}
+	}
+
+	/**
+	 * Parses complex numbers separated by whitespace from the given reader, until its end. The reader is not
+	 * closed.
+	 * @param reader Reader to be parsed.
+	 * @return Array with the parsed numbers, in order.
+	 * @throws IOException if reading fails.
+	 * @throws NumberFormatException if a part of the input is not a complex number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static ComplexArray parseAll(Reader reader) throws IOException {
+		if(reader == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		Output output = new Output();
+		char[] chunk = new char[CHUNK_SIZE];
+		CharBuffer view = CharBuffer.wrap(chunk);
+		int carry = 0;
+		while(true){
+			int n = reader.read(chunk, carry, chunk.length - carry);
+			if(n == -1){
+				parseTokens(view, 0, carry, true, output);
+				break;
+			}
+
+			int end = carry + n;
+			int consumed = parseTokens(view, 0, end, false, output);
+			carry = end - consumed;
+			System.arraycopy(chunk, consumed, chunk, 0, carry);
+			if(carry == chunk.length){
+				chunk = Arrays.copyOf(chunk, chunk.length * 2);
+				view = CharBuffer.wrap(chunk);
+			}
+		}
+
+		return output.toComplexArray();
+	}
+
+	/**
+	 * Parses whitespace separated complex numbers from the given range of a character sequence.
+	 * @param data Characters to be parsed.
+	 * @param from Index of the first character.
+	 * @param to Index after the last character.
+	 * @param last True if no more characters follow the range, false if a number which reaches the end of
+	 * 		the range may continue after it.
+	 * @param output Receives the parsed numbers.
+	 * @return Index of the first character which was not parsed.
+	 * @throws NumberFormatException if a part of the range is not a complex number.
+	 */
+	private static int parseTokens(CharSequence data, int from, int to, boolean last, Output output){
+		MutableComplex value = new MutableComplex();
+		int i = from;
+		while(true){
+			while(i < to && data.charAt(i) <= ' '){
+				i++;
+			}
+			if(i == to){
+				return to;
+			}
+
+			int start = i;
+			while(i < to && data.charAt(i) > ' '){
+				i++;
+			}
+			if(i == to && !last){
+				return start;
+			}
+
+			parse(data, start, i, value);
+			output.add(value.real, value.imaginary);
+		}
+	}
+
+	/**
+	 * Parses a complex number from the given range of a character sequence and stores it into the given number.
+	 * @param s Characters to be parsed.
+	 * @param from Index of the first character.
+	 * @param to Index after the last character.
+	 * @param result Number which receives the parsed value.
+	 * @throws NumberFormatException if the range does not contain a complex number.
+	 */
+	static void parse(CharSequence s, int from, int to, MutableComplex result){
+		int start = from;
+		int i = skipSign(s, from, to);
+		int numberStart = i;
+		i = skipNumber(s, i, to);
+		if(i < to && s.charAt(i) == 'i'){
+			if(i + 1 != to){
+				throw error(s, from, to);
+			}
+			result.set(0, coefficient(s, start, numberStart, i));
+			return;
+		}
+
+		if(i == numberStart){
+			throw error(s, from, to);
+		}
+		double real = toDouble(s, start, i);
+		if(i == to){
+			result.set(real, 0);
+			return;
+		}
+
+		start = i;
+		char sign = s.charAt(i);
+		if(sign != '+' && sign != '-'){
+			throw error(s, from, to);
+		}
+		numberStart = i + 1;
+		i = skipNumber(s, numberStart, to);
+		if(i != to - 1 || s.charAt(i) != 'i'){
+			throw error(s, from, to);
+		}
+		result.set(real, coefficient(s, start, numberStart, i));
+	}
+
+	/**
+	 * Returns the coefficient of an imaginary part, which is 1 or -1 if it has no digits.
+	 * @param s Characters being parsed.
+	 * @param start Index of the sign, or of the number if there is no sign.
+	 * @param numberStart Index of the number.
+	 * @param end Index after the number.
+	 * @return The coefficient.
+	 */
+	private static double coefficient(CharSequence s, int start, int numberStart, int end){
+		if(numberStart == end){
+			return start < numberStart && s.charAt(start) == '-' ? -1 : 1;
+		}
+
+		return toDouble(s, start, end);
+	}
+
+	/**
+	 * Converts a signed number which was already checked by {@link #skipNumber(CharSequence, int, int)}.
+	 * @param s Characters being parsed.
+	 * @param from Index of the sign, or of the number if there is no sign.
+	 * @param to Index after the number.
+	 * @return The number.
+	 */
+	private static double toDouble(CharSequence s, int from, int to){
+		int i = from;
+		boolean negative = false;
+		char c = s.charAt(i);
+		if(c == '-' || c == '+'){
+			negative = c == '-';
+			i++;
+		}
+
+		long mantissa = 0;
+		int significantDigits = 0;
+		int exponent = 0;
+		boolean point = false;
+		for(; i < to; i++){
+			c = s.charAt(i);
+			if(c == '.'){
+				point = true;
+				continue;
+			}
+			if(c < '0' || c > '9'){
+				break;
+			}
+
+			if(mantissa == 0 && c == '0'){
+				if(point){
+					exponent--;
+				}
+				continue;
+			}
+			if(significantDigits == 18){
+				return fallback(s, from, to);
+			}
+
+			mantissa = mantissa * 10 + (c - '0');
+			significantDigits++;
+			if(point){
+				exponent--;
+			}
+		}
+
+		if(i < to){
+			c = s.charAt(i);
+			if(c != 'e' && c != 'E'){
+				return fallback(s, from, to);
+			}
+
+			boolean negativeExponent = false;
+			c = s.charAt(++i);
+			if(c == '-' || c == '+'){
+				negativeExponent = c == '-';
+				i++;
+			}
+
+			int explicitExponent = 0;
+			for(; i < to; i++){
+				if(explicitExponent < 100_000){
+					explicitExponent = explicitExponent * 10 + (s.charAt(i) - '0');
+				}
+			}
+			exponent += negativeExponent ? -explicitExponent : explicitExponent;
+		}
+
+		double value;
+		if(mantissa == 0){
+			value = 0;
+		}
+		else if(mantissa <= MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22){
+			value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+		}
+		else{
+			return fallback(s, from, to);
+		}
+
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Converts a number which can not be converted exactly by {@link #toDouble(CharSequence, int, int)}.
+	 * @param s Characters being parsed.
+	 * @param from Index of the first character.
+	 * @param to Index after the last character.
+	 * @return The number.
+	 */
+	private static double fallback(CharSequence s, int from, int to){
+		return Double.parseDouble(s.subSequence(from, to).toString());
+	}
+
+	/**
+	 * Skips an optional sign.
+	 * @param s Characters being parsed.
+	 * @param i Current index.
+	 * @param to Index after the last character.
+	 * @return Index after the sign.
+	 */
+	private static int skipSign(CharSequence s, int i, int to){
+		return i < to && (s.charAt(i) == '+' || s.charAt(i) == '-') ? i + 1 : i;
+	}
+
+	/**
+	 * Skips an unsigned decimal number with an optional decimal point and exponent, or "NaN" or "Infinity".
+	 * @param s Characters being parsed.
+	 * @param i Current index.
+	 * @param to Index after the last character.
+	 * @return Index after the number, or the current index if there is no number.
+	 */
+	private static int skipNumber(CharSequence s, int i, int to){
+		if(i < to && (s.charAt(i) == 'N' || s.charAt(i) == 'I')){
+			return Math.max(skipWord(s, i, to, "NaN"), skipWord(s, i, to, "Infinity"));
+		}
+
+		int start = i;
+		int digits = 0;
+		while(i < to && s.charAt(i) >= '0' && s.charAt(i) <= '9'){
+			i++;
+			digits++;
+		}
+		if(i < to && s.charAt(i) == '.'){
+			i++;
+			while(i < to && s.charAt(i) >= '0' && s.charAt(i) <= '9'){
+				i++;
+				digits++;
+			}
+		}
+		if(digits == 0){
+			return start;
+		}
+
+		if(i < to && (s.charAt(i) == 'e' || s.charAt(i) == 'E')){
+			int exponent = skipSign(s, i + 1, to);
+			int end = exponent;
+			while(end < to && s.charAt(end) >= '0' && s.charAt(end) <= '9'){
+				end++;
+			}
+			if(end > exponent){
+				i = end;
+			}
+		}
+
+		return i;
+	}
+
+	/**
+	 * Skips the given word if the characters at the current index are equal to it.
+	 * @param s Characters being parsed.
+	 * @param i Current index.
+	 * @param to Index after the last character.
+	 * @param word Word to be skipped.
+	 * @return Index after the word, or the current index if it is not there.
+	 */
+	private static int skipWord(CharSequence s, int i, int to, String word){
+		if(to - i < word.length()){
+			return i;
+		}
+
+		for(int j = 0; j < word.length(); j++){
+			if(s.charAt(i + j) != word.charAt(j)){
+				return i;
+			}
+		}
+
+		return i + word.length();
+	}
+
+	/**
+	 * Creates an exception for the given invalid input.
+	 * @param s Characters being parsed.
+	 * @param from Index of the first character.
+	 * @param to Index after the last character.
+	 * @return The exception.
+	 */
+	private static NumberFormatException error(CharSequence s, int from, int to){
+		return new NumberFormatException("Invalid complex number: \"" + s.subSequence(from, to) + "\"");
+	}
+
+	/**
+	 * Growing arrays of real and imaginary parts which receive parsed numbers.
+	 */
+	private static final class Output {
+
+		/** Real parts. */
+		double[] real = new double[1024];
+		/** Imaginary parts. */
+		double[] imaginary = new double[1024];
+		/** Number of parsed numbers. */
+		int size;
+
+		/**
+		 * Adds a number, growing the arrays if they are full.
+		 * @param re Real part of the number.
+		 * @param im Imaginary part of the number.
+		 */
+		void add(double re, double im){
+			if(size == real.length){
+				real = Arrays.copyOf(real, real.length * 2);
+				imaginary = Arrays.copyOf(imaginary, imaginary.length * 2);
+			}
+			real[size] = re;
+			imaginary[size] = im;
+			size++;
+		}
+
+		/**
+		 * Creates an array with the parsed numbers.
+		 * @return Array with the parsed numbers.
+		 */
+		ComplexArray toComplexArray(){
+			return new ComplexArray(Arrays.copyOf(real, size), Arrays.copyOf(imaginary, size));
+		}
+	}
+}
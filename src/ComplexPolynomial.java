@@ -0,0 +1,514 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Polynomial with complex coefficients, a0 + a1*z + ... + an*z^n. Coefficients are stored in two arrays of
+ * doubles, and polynomials are evaluated by Horner's scheme on those doubles, so evaluation does not create a
+ * ComplexNumber per operation. Large batches of points and of polynomials can be processed on all available
+ * processors.
+ * <p>
+ * Roots are found all at once by the Aberth method, starting from the roots returned by ComplexNumber.root for
+ * the equation an*z^n + a0 = 0. The method converges cubically to simple roots and linearly to multiple ones.
+ * @author Mislav Gillinger
+ * @version 1.0
+ */
+public class ComplexPolynomial {
+
+	/** Number of points from which batches are evaluated in parallel. */
+	private static final int PARALLEL_THRESHOLD = 1 << 14;
+	/** Number of points evaluated by a single task. */
+	private static final int EVALUATION_BLOCK = 1 << 12;
+	/** Number of polynomials whose roots are found by a single task. */
+	private static final int ROOTS_BLOCK = 64;
+	/** Maximal number of Aberth iterations. */
+	private static final int MAX_ITERATIONS = 500;
+	/** Squared relative correction below which a root is considered to have converged. */
+	private static final double TOLERANCE = 1e-28;
+	/** Angle by which the starting points are rotated, so they are not symmetric to the roots. */
+	private static final double SEED_ANGLE = 0.4;
+
+	/** Real parts of the coefficients, from the lowest order. */
+	private final double[] real;
+	/** Imaginary parts of the coefficients, from the lowest order. */
+	private final double[] imaginary;
+
+	/**
+	 * Creates a new polynomial with the given coefficients. Leading zero coefficients are ignored.
+	 * @param coefficients Coefficients from the lowest order, a0 first.
+	 * @throws NullPointerException if the argument or one of its elements is null.
+	 * @throws IllegalArgumentException if no coefficient is given.
+	 */
+	public ComplexPolynomial(ComplexNumber... coefficients){
+		if(coefficients.length == 0){
+			throw new IllegalArgumentException("At least one coefficient must be given!");
+		}
+
+		int n = coefficients.length - 1;
+		while(n > 0 && coefficients[n].real == 0 && coefficients[n].imaginary == 0){
+			n--;
+		}
+
+		real = new double[n + 1];
+		imaginary = new double[n + 1];
+		for(int i = 0; i <= n; i++){
+			real[i] = coefficients[i].real;
+			imaginary[i] = coefficients[i].imaginary;
+		}
+	}
+
+	/**
+	 * Creates a new polynomial backed by the given arrays, which are trimmed already.
+	 * @param real Real parts of the coefficients.
+	 * @param imaginary Imaginary parts of the coefficients.
+	 */
+	private ComplexPolynomial(double[] real, double[] imaginary){
+		this.real = real;
+		this.imaginary = imaginary;
+	}
+
+	/**
+	 * Creates the monic polynomial (z - r1)*(z - r2)*...*(z - rn) with the given roots.
+	 * @param roots Roots of the polynomial.
+	 * @return Newly made polynomial.
+	 * @throws NullPointerException if the argument or one of its elements is null.
+	 */
+	public static ComplexPolynomial fromRoots(ComplexNumber... roots){
+		int n = roots.length;
+		double[] re = new double[n + 1];
+		double[] im = new double[n + 1];
+		re[0] = 1;
+		for(int k = 0; k < n; k++){
+			double rr = -roots[k].real;
+			double ri = -roots[k].imaginary;
+			// multiplies by (z - root), from the highest order down
+			re[k + 1] = re[k];
+			im[k + 1] = im[k];
+			for(int j = k; j > 0; j--){
+				double a = re[j];
+				double b = im[j];
+				re[j] = re[j - 1] + a*rr - b*ri;
+				im[j] = im[j - 1] + a*ri + b*rr;
+			}
+			double a = re[0];
+			double b = im[0];
+			re[0] = a*rr - b*ri;
+			im[0] = a*ri + b*rr;
+		}
+
+		return new ComplexPolynomial(re, im);
+	}
+
+	/**
+	 * Returns the degree of the polynomial, the order of its highest non-zero coefficient.
+	 * @return Degree of the polynomial.
+	 */
+	public int degree(){
+		return real.length - 1;
+	}
+
+	/**
+	 * Returns the coefficient of the given order.
+	 * @param order Order of the coefficient.
+	 * @return The coefficient, zero if the order is bigger than the degree.
+	 * @throws IllegalArgumentException if the order is negative.
+	 */
+	public ComplexNumber getCoefficient(int order){
+		if(order < 0){
+			throw new IllegalArgumentException("Order must not be negative!");
+		}
+
+		if(order >= real.length){
+			return new ComplexNumber(0, 0);
+		}
+
+		return new ComplexNumber(real[order], imaginary[order]);
+	}
+
+	/**
+	 * Calculates the derivative of the polynomial.
+	 * @return Newly made polynomial which is the derivative of this one.
+	 */
+	public ComplexPolynomial derivative(){
+		int n = real.length - 1;
+		if(n == 0){
+			return new ComplexPolynomial(new double[1], new double[1]);
+		}
+
+		double[] re = new double[n];
+		double[] im = new double[n];
+		for(int i = 0; i < n; i++){
+			re[i] = real[i + 1]*(i + 1);
+			im[i] = imaginary[i + 1]*(i + 1);
+		}
+
+		return new ComplexPolynomial(re, im);
+	}
+
+	/**
+	 * Calculates the value of the polynomial at the given point.
+	 * @param z The point.
+	 * @return Value of the polynomial.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public ComplexNumber evaluate(ComplexNumber z){
+		MutableComplex result = evaluate(z.real, z.imaginary, new MutableComplex());
+		return new ComplexNumber(result.real, result.imaginary);
+	}
+
+	/**
+	 * Calculates the value of the polynomial at the given point and stores it into the given number, without
+	 * creating any objects.
+	 * @param re Real part of the point.
+	 * @param im Imaginary part of the point.
+	 * @param result Number which receives the value.
+	 * @return The result number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public MutableComplex evaluate(double re, double im, MutableComplex result){
+		double[] cr = real;
+		double[] ci = imaginary;
+		double pr = cr[cr.length - 1];
+		double pi = ci[ci.length - 1];
+		for(int j = cr.length - 2; j >= 0; j--){
+			double temp = pr*re - pi*im + cr[j];
+			pi = pr*im + pi*re + ci[j];
+			pr = temp;
+		}
+
+		return result.set(pr, pi);
+	}
+
+	/**
+	 * Calculates values of the polynomial at all given points.
+	 * @param points The points.
+	 * @return Newly made array with the values.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public ComplexArray evaluate(ComplexArray points){
+		ComplexArray result = new ComplexArray(points.length());
+		evaluate(points, result, false);
+		return result;
+	}
+
+	/**
+	 * Calculates values of the polynomial at all given points and stores them into the given array, which may
+	 * be the same as the array of points. Large batches can be split between all available processors.
+	 * @param points The points.
+	 * @param result Array which receives the values.
+	 * @param parallel True if large batches should use all available processors.
+	 * @return The result array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the arrays have different lengths.
+	 */
+	public ComplexArray evaluate(ComplexArray points, ComplexArray result, boolean parallel){
+		if(points == null || result == null){
+			throw new NullPointerException("Arguments must not be null!");
+		}
+
+		if(points.length() != result.length()){
+			throw new IllegalArgumentException("Arrays must have the same length!");
+		}
+
+		int n = points.length();
+		if(parallel && n >= PARALLEL_THRESHOLD){
+			ForkJoinPool.commonPool().invoke(new EvaluateTask(this, points, result, 0, n));
+		}
+		else{
+			evaluate(points.real, points.imaginary, result.real, result.imaginary, 0, n);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Calculates values of the polynomial at a range of points by Horner's scheme. Each point is read before its
+	 * value is written, so the output arrays may be the same as the input ones.
+	 * @param zr Real parts of the points.
+	 * @param zi Imaginary parts of the points.
+	 * @param or Real parts of the values.
+	 * @param oi Imaginary parts of the values.
+	 * @param from First index, inclusive.
+	 * @param to Last index, exclusive.
+	 */
+	private void evaluate(double[] zr, double[] zi, double[] or, double[] oi, int from, int to){
+		double[] cr = real;
+		double[] ci = imaginary;
+		int n = cr.length - 1;
+		for(int i = from; i < to; i++){
+			double re = zr[i];
+			double im = zi[i];
+			double pr = cr[n];
+			double pi = ci[n];
+			for(int j = n - 1; j >= 0; j--){
+				double temp = pr*re - pi*im + cr[j];
+				pi = pr*im + pi*re + ci[j];
+				pr = temp;
+			}
+			or[i] = pr;
+			oi[i] = pi;
+		}
+	}
+
+	/**
+	 * Finds all roots of the polynomial, each one repeated as many times as its multiplicity.
+	 * @return Array of roots whose length is the degree of the polynomial.
+	 */
+	public ComplexNumber[] roots(){
+		int n = real.length - 1;
+		if(n == 0){
+			return new ComplexNumber[0];
+		}
+
+		double[] zr = new double[n];
+		double[] zi = new double[n];
+		seed(zr, zi);
+		aberth(zr, zi);
+
+		ComplexNumber[] roots = new ComplexNumber[n];
+		for(int k = 0; k < n; k++){
+			roots[k] = new ComplexNumber(zr[k], zi[k]);
+		}
+
+		return roots;
+	}
+
+	/**
+	 * Finds all roots of each of the given polynomials. Large batches can be split between all available
+	 * processors.
+	 * @param polynomials The polynomials.
+	 * @param parallel True if large batches should use all available processors.
+	 * @return Array whose elements are roots of the polynomials with the same indices.
+	 * @throws NullPointerException if the argument or one of its elements is null.
+	 */
+	public static ComplexNumber[][] roots(ComplexPolynomial[] polynomials, boolean parallel){
+		ComplexNumber[][] roots = new ComplexNumber[polynomials.length][];
+		if(parallel && polynomials.length > ROOTS_BLOCK){
+			ForkJoinPool.commonPool().invoke(new RootsTask(polynomials, roots, 0, polynomials.length));
+		}
+		else{
+			for(int i = 0; i < polynomials.length; i++){
+				roots[i] = polynomials[i].roots();
+			}
+		}
+
+		return roots;
+	}
+
+	/**
+	 * Stores starting points of the Aberth method, the roots of an*z^n + a0 = 0, or of z^n = 1 if a0 is zero,
+	 * slightly rotated.
+	 * @param zr Real parts of the starting points.
+	 * @param zi Imaginary parts of the starting points.
+	 */
+	private void seed(double[] zr, double[] zi){
+		int n = zr.length;
+		ComplexNumber ratio = new ComplexNumber(-real[0], -imaginary[0])
+				.div(new ComplexNumber(real[n], imaginary[n]));
+		double magnitude = ratio.getMagnitude();
+		if(magnitude == 0 || Double.isInfinite(magnitude) || Double.isNaN(magnitude)){
+			ratio = new ComplexNumber(1, 0);
+		}
+
+		ComplexNumber[] seeds = ratio.root(n);
+		double cos = Math.cos(SEED_ANGLE);
+		double sin = Math.sin(SEED_ANGLE);
+		for(int k = 0; k < n; k++){
+			zr[k] = seeds[k].real*cos - seeds[k].imaginary*sin;
+			zi[k] = seeds[k].real*sin + seeds[k].imaginary*cos;
+		}
+	}
+
+	/**
+	 * Refines approximations of all roots by the Aberth method, updating each one as soon as its correction is
+	 * known, until all corrections are negligible or the number of iterations is exhausted.
+	 * @param zr Real parts of the approximations.
+	 * @param zi Imaginary parts of the approximations.
+	 */
+	private void aberth(double[] zr, double[] zi){
+		double[] cr = real;
+		double[] ci = imaginary;
+		int n = zr.length;
+		for(int iteration = 0; iteration < MAX_ITERATIONS; iteration++){
+			boolean converged = true;
+			for(int k = 0; k < n; k++){
+				double re = zr[k];
+				double im = zi[k];
+
+				// value p and derivative d at the approximation, by Horner's scheme
+				double pr = cr[n];
+				double pi = ci[n];
+				double dr = 0;
+				double di = 0;
+				for(int j = n - 1; j >= 0; j--){
+					double temp = dr*re - di*im + pr;
+					di = dr*im + di*re + pi;
+					dr = temp;
+					temp = pr*re - pi*im + cr[j];
+					pi = pr*im + pi*re + ci[j];
+					pr = temp;
+				}
+				if(pr == 0 && pi == 0){
+					continue;
+				}
+
+				// sum of 1/(z - zj) over the other approximations
+				double sr = 0;
+				double si = 0;
+				for(int j = 0; j < n; j++){
+					if(j != k){
+						double a = re - zr[j];
+						double b = im - zi[j];
+						double divisor = a*a + b*b;
+						sr += a/divisor;
+						si -= b/divisor;
+					}
+				}
+
+				// correction w = p/(d - p*sum)
+				double qr = dr - (pr*sr - pi*si);
+				double qi = di - (pr*si + pi*sr);
+				double divisor = qr*qr + qi*qi;
+				double wr = (pr*qr + pi*qi)/divisor;
+				double wi = (pi*qr - pr*qi)/divisor;
+				if(Double.isNaN(wr) || Double.isNaN(wi) || Double.isInfinite(wr) || Double.isInfinite(wi)){
+					continue;
+				}
+
+				zr[k] = re - wr;
+				zi[k] = im - wi;
+				double correction = wr*wr + wi*wi;
+				if(correction > TOLERANCE*(re*re + im*im) && correction > Double.MIN_NORMAL){
+					converged = false;
+				}
+			}
+
+			if(converged){
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Shapes the polynomial in a String format, from the highest order, such as "(1+0i)*z^2+(-2+1i)*z+(1+0i)".
+	 * @return String which represents the polynomial.
+	 */
+	@Override
+	public String toString(){
+		ComplexFormatter formatter = ComplexFormatter.getDefault();
+		StringBuilder sb = new StringBuilder();
+		try{
+			for(int i = real.length - 1; i >= 0; i--){
+				sb.append('(');
+				formatter.format(real[i], imaginary[i], sb);
+				sb.append(')');
+				if(i > 1){
+					sb.append("*z^").append(i).append('+');
+				}
+				else if(i == 1){
+					sb.append("*z+");
+				}
+			}
+		} catch(IOException e){
+			throw new IllegalStateException(e);
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Task which evaluates a polynomial at a range of points, splitting it in halves down to blocks.
+	 */
+	private static class EvaluateTask extends RecursiveAction {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = 1L;
+
+		/** Polynomial which is evaluated. */
+		private final ComplexPolynomial polynomial;
+		/** The points. */
+		private final ComplexArray points;
+		/** Array which receives the values. */
+		private final ComplexArray result;
+		/** First index, inclusive. */
+		private final int from;
+		/** Last index, exclusive. */
+		private final int to;
+
+		/**
+		 * Creates a new task.
+		 * @param polynomial Polynomial which is evaluated.
+		 * @param points The points.
+		 * @param result Array which receives the values.
+		 * @param from First index, inclusive.
+		 * @param to Last index, exclusive.
+		 */
+		EvaluateTask(ComplexPolynomial polynomial, ComplexArray points, ComplexArray result, int from, int to){
+			this.polynomial = polynomial;
+			this.points = points;
+			this.result = result;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute(){
+			if(to - from > EVALUATION_BLOCK){
+				int middle = (from + to) >>> 1;
+				invokeAll(new EvaluateTask(polynomial, points, result, from, middle),
+						new EvaluateTask(polynomial, points, result, middle, to));
+				return;
+			}
+
+			polynomial.evaluate(points.real, points.imaginary, result.real, result.imaginary, from, to);
+		}
+	}
+
+	/**
+	 * Task which finds roots of a range of polynomials, splitting it in halves down to blocks.
+	 */
+	private static class RootsTask extends RecursiveAction {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = 1L;
+
+		/** The polynomials. */
+		private final ComplexPolynomial[] polynomials;
+		/** Array which receives the roots. */
+		private final ComplexNumber[][] roots;
+		/** First index, inclusive. */
+		private final int from;
+		/** Last index, exclusive. */
+		private final int to;
+
+		/**
+		 * Creates a new task.
+		 * @param polynomials The polynomials.
+		 * @param roots Array which receives the roots.
+		 * @param from First index, inclusive.
+		 * @param to Last index, exclusive.
+		 */
+		RootsTask(ComplexPolynomial[] polynomials, ComplexNumber[][] roots, int from, int to){
+			this.polynomials = polynomials;
+			this.roots = roots;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute(){
+			if(to - from > ROOTS_BLOCK){
+				int middle = (from + to) >>> 1;
+				invokeAll(new RootsTask(polynomials, roots, from, middle),
+						new RootsTask(polynomials, roots, middle, to));
+				return;
+			}
+
+			for(int i = from; i < to; i++){
+				roots[i] = polynomials[i].roots();
+			}
+		}
+	}
+}
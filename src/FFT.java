@@ -0,0 +1,582 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fast Fourier transform of complex and real sequences of any length. Lengths which are powers of two are
+ * transformed with the iterative radix-2 algorithm in O(n log n) time; other lengths are turned into a
+ * convolution of a power of two length with Bluestein's chirp algorithm, so they are O(n log n) as well.
+ * Sines and cosines are computed once per length and cached.
+ * <p>
+ * The forward transform computes X[k] = sum of x[j] * exp(-2 pi i j k / n) and the inverse one divides by n,
+ * so the inverse of the forward transform gives back the original sequence. Transforms are performed in
+ * place on ComplexArrays. In parallel mode, butterflies of large transforms are computed on the common
+ * fork/join pool: first all small stages block by block, then each larger stage split across the pool.
+ * @author Mislav Gillinger
+ * @version 1.0
+ */
+public final class FFT {
+
+	/** Number of points whose small stages are computed together, as one piece of work. */
+	private static final int BLOCK = 1 << 13;
+	/** Length from which parallel mode uses the fork/join pool. */
+	private static final int PARALLEL_THRESHOLD = 1 << 16;
+	/** Largest number of lengths kept in each of the caches. */
+	private static final int CACHE_SIZE = 32;
+
+	/** Cached sines and cosines, by length. */
+	private static final ConcurrentHashMap<Integer, Twiddles> TWIDDLES = new ConcurrentHashMap<>();
+	/** Cached chirps for Bluestein's algorithm, by length. */
+	private static final ConcurrentHashMap<Integer, Chirp> CHIRPS = new ConcurrentHashMap<>();
+
+	/**
+	 * Private constructor, class only contains static methods.
+	 */
+	private FFT(){
+	}
+
+	/**
+	 * Replaces the numbers of the given array with their discrete Fourier transform.
+	 * @param a Array to be transformed.
+	 * @return The given array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static ComplexArray transform(ComplexArray a){
+		return transform(a, false);
+	}
+
+	/**
+	 * Replaces the numbers of the given array with their discrete Fourier transform.
+	 * @param a Array to be transformed.
+	 * @param parallel True if large transforms should use all available processors.
+	 * @return The given array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static ComplexArray transform(ComplexArray a, boolean parallel){
+		if(a == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		transform(a.real, a.imaginary, false, parallel);
+		return a;
+	}
+
+	/**
+	 * Replaces the numbers of the given array with their inverse discrete Fourier transform.
+	 * @param a Array to be transformed.
+	 * @return The given array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static ComplexArray inverse(ComplexArray a){
+		return inverse(a, false);
+	}
+
+	/**
+	 * Replaces the numbers of the given array with their inverse discrete Fourier transform.
+	 * @param a Array to be transformed.
+	 * @param parallel True if large transforms should use all available processors.
+	 * @return The given array.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public static ComplexArray inverse(ComplexArray a, boolean parallel){
+		if(a == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		transform(a.real, a.imaginary, true, parallel);
+		return a.length() == 0 ? a : a.scale(1.0 / a.length());
+	}
+
+	/**
+	 * Calculates the discrete Fourier transform of the given complex numbers.
+	 * @param numbers Complex numbers to be transformed.
+	 * @return Newly made array with the transform.
+	 * @throws NullPointerException if the argument or one of its elements is null.
+	 */
+	public static ComplexNumber[] transform(ComplexNumber[] numbers){
+		return transform(ComplexArray.fromComplexNumbers(numbers)).toComplexNumbers();
+	}
+
+	/**
+	 * Calculates the discrete Fourier transform of the given real sequence. Since the transform of a real
+	 * sequence is conjugate symmetric, only its first n/2 + 1 numbers are returned. Sequences of even length
+	 * are transformed as complex sequences of half the length.
+	 * @param x Real sequence to be transformed.
+	 * @return Newly made array with the first n/2 + 1 numbers of the transform.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the sequence is empty.
+	 */
+	public static ComplexArray transformReal(double[] x){
+		return transformReal(x, false);
+	}
+
+	/**
+	 * Calculates the discrete Fourier transform of the given real sequence. Since the transform of a real
+	 * sequence is conjugate symmetric, only its first n/2 + 1 numbers are returned. Sequences of even length
+	 * are transformed as complex sequences of half the length.
+	 * @param x Real sequence to be transformed.
+	 * @param parallel True if large transforms should use all available processors.
+	 * @return Newly made array with the first n/2 + 1 numbers of the transform.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the sequence is empty.
+	 */
+	public static ComplexArray transformReal(double[] x, boolean parallel){
+		int n = x.length;
+		if(n == 0){
+			throw new IllegalArgumentException("Sequence must not be empty!");
+		}
+
+		int h = n / 2;
+		ComplexArray result = new ComplexArray(h + 1);
+		if(n % 2 == 1){
+			double[] re = x.clone();
+			double[] im = new double[n];
+			transform(re, im, false, parallel);
+			System.arraycopy(re, 0, result.real, 0, h + 1);
+			System.arraycopy(im, 0, result.imaginary, 0, h + 1);
+			return result;
+		}
+
+		double[] zr = new double[h];
+		double[] zi = new double[h];
+		for(int k = 0; k < h; k++){
+			zr[k] = x[2*k];
+			zi[k] = x[2*k + 1];
+		}
+		transform(zr, zi, false, parallel);
+
+		Twiddles tw = twiddles(n);
+		for(int k = 0; k <= h; k++){
+			int i = k % h;
+			int j = (h - k) % h;
+			double ar = zr[i];
+			double ai = zi[i];
+			double br = zr[j];
+			double bi = -zi[j];
+
+			double evenRe = (ar + br) / 2;
+			double evenIm = (ai + bi) / 2;
+			double oddRe = (ai - bi) / 2;
+			double oddIm = (br - ar) / 2;
+
+			double wr = k < h ? tw.cos[k] : -1;
+			double wi = k < h ? -tw.sin[k] : 0;
+			result.real[k] = evenRe + oddRe*wr - oddIm*wi;
+			result.imaginary[k] = evenIm + oddRe*wi + oddIm*wr;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Calculates the real sequence of the given length whose discrete Fourier transform starts with the given
+	 * n/2 + 1 numbers. This is the inverse of {@link #transformReal(double[])}.
+	 * @param spectrum First n/2 + 1 numbers of the transform.
+	 * @param n Length of the sequence.
+	 * @return Newly made real sequence.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the length is not positive or does not fit the spectrum.
+	 */
+	public static double[] inverseReal(ComplexArray spectrum, int n){
+		return inverseReal(spectrum, n, false);
+	}
+
+	/**
+	 * Calculates the real sequence of the given length whose discrete Fourier transform starts with the given
+	 * n/2 + 1 numbers. This is the inverse of {@link #transformReal(double[], boolean)}.
+	 * @param spectrum First n/2 + 1 numbers of the transform.
+	 * @param n Length of the sequence.
+	 * @param parallel True if large transforms should use all available processors.
+	 * @return Newly made real sequence.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the length is not positive or does not fit the spectrum.
+	 */
+	public static double[] inverseReal(ComplexArray spectrum, int n, boolean parallel){
+		if(spectrum == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		int h = n / 2;
+		if(n <= 0 || spectrum.length() != h + 1){
+			throw new IllegalArgumentException("Length must be positive and match the spectrum!");
+		}
+
+		double[] sr = spectrum.real;
+		double[] si = spectrum.imaginary;
+		if(n % 2 == 1){
+			double[] re = new double[n];
+			double[] im = new double[n];
+			for(int k = 0; k <= h; k++){
+				re[k] = sr[k];
+				im[k] = si[k];
+				if(k > 0){
+					re[n - k] = sr[k];
+					im[n - k] = -si[k];
+				}
+			}
+			transform(re, im, true, parallel);
+			for(int k = 0; k < n; k++){
+				re[k] /= n;
+			}
+			return re;
+		}
+
+		double[] zr = new double[h];
+		double[] zi = new double[h];
+		Twiddles tw = twiddles(n);
+		for(int k = 0; k < h; k++){
+			double ar = sr[k];
+			double ai = si[k];
+			double br = sr[h - k];
+			double bi = -si[h - k];
+
+			double dr = (ar - br) / 2;
+			double di = (ai - bi) / 2;
+			double wr = tw.cos[k];
+			double wi = tw.sin[k];
+			double oddRe = dr*wr - di*wi;
+			double oddIm = dr*wi + di*wr;
+
+			zr[k] = (ar + br) / 2 - oddIm;
+			zi[k] = (ai + bi) / 2 + oddRe;
+		}
+		transform(zr, zi, true, parallel);
+
+		double[] x = new double[n];
+		for(int k = 0; k < h; k++){
+			x[2*k] = zr[k] / h;
+			x[2*k + 1] = zi[k] / h;
+		}
+
+		return x;
+	}
+
+	/**
+	 * Transforms the given sequence in place, without dividing the inverse transform by the length.
+	 * @param re Real parts of the sequence.
+	 * @param im Imaginary parts of the sequence.
+	 * @param inverse True for the inverse transform.
+	 * @param parallel True if large transforms should use all available processors.
+	 */
+	private static void transform(double[] re, double[] im, boolean inverse, boolean parallel){
+		int n = re.length;
+		if(n <= 1){
+			return;
+		}
+
+		if((n & (n - 1)) == 0){
+			radix2(re, im, inverse, parallel);
+		}
+		else if(inverse){
+			conjugate(im);
+			bluestein(re, im, parallel);
+			conjugate(im);
+		}
+		else{
+			bluestein(re, im, parallel);
+		}
+	}
+
+	/**
+	 * Transforms a sequence whose length is a power of two with the iterative radix-2 algorithm.
+	 * @param re Real parts of the sequence.
+	 * @param im Imaginary parts of the sequence.
+	 * @param inverse True for the inverse transform.
+	 * @param parallel True if large transforms should use all available processors.
+	 */
+	private static void radix2(double[] re, double[] im, boolean inverse, boolean parallel){
+		int n = re.length;
+		Twiddles tw = twiddles(n);
+		bitReverse(re, im);
+
+		if(parallel && n >= PARALLEL_THRESHOLD){
+			ForkJoinPool pool = ForkJoinPool.commonPool();
+			pool.invoke(new ButterflyTask(re, im, tw, inverse, 2, BLOCK, 0, n / 2));
+			for(int len = BLOCK * 2; len <= n; len <<= 1){
+				pool.invoke(new ButterflyTask(re, im, tw, inverse, len, len, 0, n / 2));
+			}
+			return;
+		}
+
+		for(int len = 2; len <= n; len <<= 1){
+			butterflies(re, im, tw, inverse, len, 0, n / 2);
+		}
+	}
+
+	/**
+	 * Transforms a sequence of any length with Bluestein's algorithm, as a convolution with a chirp computed
+	 * by transforms of a power of two length.
+	 * @param re Real parts of the sequence.
+	 * @param im Imaginary parts of the sequence.
+	 * @param parallel True if large transforms should use all available processors.
+	 */
+	private static void bluestein(double[] re, double[] im, boolean parallel){
+		int n = re.length;
+		Chirp chirp = chirp(n);
+		int m = chirp.filterRe.length;
+		double[] cos = chirp.cos;
+		double[] sin = chirp.sin;
+
+		double[] ar = new double[m];
+		double[] ai = new double[m];
+		for(int k = 0; k < n; k++){
+			ar[k] = re[k]*cos[k] + im[k]*sin[k];
+			ai[k] = im[k]*cos[k] - re[k]*sin[k];
+		}
+
+		radix2(ar, ai, false, parallel);
+		ComplexKernels.mul(ar, ai, chirp.filterRe, chirp.filterIm, ar, ai, 0, m);
+		radix2(ar, ai, true, parallel);
+
+		for(int k = 0; k < n; k++){
+			re[k] = (ar[k]*cos[k] + ai[k]*sin[k]) / m;
+			im[k] = (ai[k]*cos[k] - ar[k]*sin[k]) / m;
+		}
+	}
+
+	/**
+	 * Computes the butterflies with the given numbers in all stages of the given lengths.
+	 * @param re Real parts of the sequence.
+	 * @param im Imaginary parts of the sequence.
+	 * @param tw Sines and cosines for the length of the sequence.
+	 * @param inverse True for the inverse transform.
+	 * @param len Length of the transforms which are merged in the stage.
+	 * @param from Number of the first butterfly.
+	 * @param to Number after the last butterfly.
+	 */
+	private static void butterflies(double[] re, double[] im, Twiddles tw, boolean inverse, int len,
+			int from, int to){
+		int half = len >>> 1;
+		int step = re.length / len;
+		double sign = inverse ? 1 : -1;
+		double[] cos = tw.cos;
+		double[] sin = tw.sin;
+
+		int b = from;
+		while(b < to){
+			int group = b / half;
+			int j = b - group * half;
+			int base = group * len;
+			int end = Math.min(half, j + to - b);
+			b += end - j;
+
+			for(; j < end; j++){
+				int k = base + j;
+				int l = k + half;
+				double wr = cos[j * step];
+				double wi = sign * sin[j * step];
+				double tr = re[l]*wr - im[l]*wi;
+				double ti = re[l]*wi + im[l]*wr;
+				re[l] = re[k] - tr;
+				im[l] = im[k] - ti;
+				re[k] += tr;
+				im[k] += ti;
+			}
+		}
+	}
+
+	/**
+	 * Puts the elements of the given sequence into bit-reversed order of their positions.
+	 * @param re Real parts of the sequence.
+	 * @param im Imaginary parts of the sequence.
+	 */
+	private static void bitReverse(double[] re, double[] im){
+		int n = re.length;
+		for(int i = 1, j = 0; i < n; i++){
+			int bit = n >> 1;
+			for(; (j & bit) != 0; bit >>= 1){
+				j ^= bit;
+			}
+			j ^= bit;
+
+			if(i < j){
+				double temp = re[i];
+				re[i] = re[j];
+				re[j] = temp;
+				temp = im[i];
+				im[i] = im[j];
+				im[j] = temp;
+			}
+		}
+	}
+
+	/**
+	 * Negates all elements of the given array.
+	 * @param a Array to be negated.
+	 */
+	private static void conjugate(double[] a){
+		for(int i = 0; i < a.length; i++){
+			a[i] = -a[i];
+		}
+	}
+
+	/**
+	 * Returns sines and cosines for the given length, computing them if they are not cached.
+	 * @param n Length of the sequence.
+	 * @return Sines and cosines for the length.
+	 */
+	private static Twiddles twiddles(int n){
+		Twiddles tw = TWIDDLES.get(n);
+		if(tw == null){
+			tw = new Twiddles(n);
+			if(TWIDDLES.size() >= CACHE_SIZE){
+				TWIDDLES.clear();
+			}
+			TWIDDLES.put(n, tw);
+		}
+
+		return tw;
+	}
+
+	/**
+	 * Returns the chirp for the given length, computing it if it is not cached.
+	 * @param n Length of the sequence.
+	 * @return Chirp for the length.
+	 */
+	private static Chirp chirp(int n){
+		Chirp chirp = CHIRPS.get(n);
+		if(chirp == null){
+			chirp = new Chirp(n);
+			if(CHIRPS.size() >= CACHE_SIZE){
+				CHIRPS.clear();
+			}
+			CHIRPS.put(n, chirp);
+		}
+
+		return chirp;
+	}
+
+	/**
+	 * Cosines and sines of 2 pi k / n for the first half of the circle.
+	 */
+	private static final class Twiddles {
+
+		/** Cosines of the angles. */
+		final double[] cos;
+		/** Sines of the angles. */
+		final double[] sin;
+
+		/**
+		 * Computes cosines and sines for the given length.
+		 * @param n Length of the sequence.
+		 */
+		Twiddles(int n){
+			cos = new double[n / 2];
+			sin = new double[n / 2];
+			for(int k = 0; k < cos.length; k++){
+				double angle = 2 * Math.PI * k / n;
+				cos[k] = Math.cos(angle);
+				sin[k] = Math.sin(angle);
+			}
+		}
+	}
+
+	/**
+	 * Chirp exp(-pi i k^2 / n) of Bluestein's algorithm, with the transform of its conjugate which the
+	 * sequence is convolved with.
+	 */
+	private static final class Chirp {
+
+		/** Cosines of the chirp angles. */
+		final double[] cos;
+		/** Sines of the chirp angles. */
+		final double[] sin;
+		/** Real parts of the transformed filter. */
+		final double[] filterRe;
+		/** Imaginary parts of the transformed filter. */
+		final double[] filterIm;
+
+		/**
+		 * Computes the chirp and the filter for the given length.
+		 * @param n Length of the sequence.
+		 */
+		Chirp(int n){
+			cos = new double[n];
+			sin = new double[n];
+			for(int k = 0; k < n; k++){
+				double angle = Math.PI * ((long) k * k % (2L * n)) / n;
+				cos[k] = Math.cos(angle);
+				sin[k] = Math.sin(angle);
+			}
+
+			int m = Integer.highestOneBit(2 * n - 1) << 1;
+			filterRe = new double[m];
+			filterIm = new double[m];
+			filterRe[0] = cos[0];
+			filterIm[0] = sin[0];
+			for(int k = 1; k < n; k++){
+				filterRe[k] = filterRe[m - k] = cos[k];
+				filterIm[k] = filterIm[m - k] = sin[k];
+			}
+			radix2(filterRe, filterIm, false, false);
+		}
+	}
+
+	/**
+	 * Task which computes a range of butterflies in stages of the given lengths. A range which spans several
+	 * stages is split only at whole blocks, so every piece holds complete transforms of the largest length.
+	 */
+	private static class ButterflyTask extends RecursiveAction {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = 1L;
+
+		/** Real parts of the sequence. */
+		private final double[] re;
+		/** Imaginary parts of the sequence. */
+		private final double[] im;
+		/** Sines and cosines for the length of the sequence. */
+		private final Twiddles tw;
+		/** True for the inverse transform. */
+		private final boolean inverse;
+		/** Length of the first stage. */
+		private final int minLen;
+		/** Length of the last stage. */
+		private final int maxLen;
+		/** Number of the first butterfly. */
+		private final int from;
+		/** Number after the last butterfly. */
+		private final int to;
+
+		/**
+		 * Creates a new task.
+		 * @param re Real parts of the sequence.
+		 * @param im Imaginary parts of the sequence.
+		 * @param tw Sines and cosines for the length of the sequence.
+		 * @param inverse True for the inverse transform.
+		 * @param minLen Length of the first stage.
+		 * @param maxLen Length of the last stage.
+		 * @param from Number of the first butterfly.
+		 * @param to Number after the last butterfly.
+		 */
+		ButterflyTask(double[] re, double[] im, Twiddles tw, boolean inverse, int minLen, int maxLen,
+				int from, int to){
+			this.re = re;
+			this.im = im;
+			this.tw = tw;
+			this.inverse = inverse;
+			this.minLen = minLen;
+			this.maxLen = maxLen;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute(){
+			int count = to - from;
+			int align = minLen == maxLen ? 1 : maxLen >>> 1;
+			if(count > BLOCK / 2 && count >= 2 * align){
+				int middle = from + count / 2 / align * align;
+				invokeAll(new ButterflyTask(re, im, tw, inverse, minLen, maxLen, from, middle),
+						new ButterflyTask(re, im, tw, inverse, minLen, maxLen, middle, to));
+				return;
+			}
+
+			for(int len = minLen; len <= maxLen; len <<= 1){
+				butterflies(re, im, tw, inverse, len, from, to);
+			}
+		}
+	}
+}
@@ -0,0 +1,431 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+import hr.fer.zemris.java.custom.collections.Processor;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluates an iterated complex map for every point of a rectangular grid over a region of the complex plane,
+ * such as the Mandelbrot set or basins of Newton's method. The grid is divided into square tiles which are
+ * computed in parallel on a fork/join pool, so idle workers steal tiles from busy ones. Each point produces an
+ * int which is written into a buffer in row-major order, with the first row at the top of the region.
+ * <p>
+ * A rendering can be cancelled, in which case tiles not yet started are skipped, and reports its progress after
+ * each finished tile. Kernels work on real and imaginary parts as doubles, so no objects are created per point.
+ * @author Mislav Gillinger
+ * @version 1.0
+ */
+public class IterationEngine {
+
+	/** Default width and height of a tile, in points. */
+	public static final int DEFAULT_TILE_SIZE = 64;
+	/** Squared step of Newton's method below which a point is considered to have converged. */
+	private static final double NEWTON_CONVERGENCE = 1e-6;
+	/** Squared distance from a root within which a converged point belongs to that root. */
+	private static final double NEWTON_ROOT_DISTANCE = 4e-6;
+
+	/** Pool on which tiles are computed. */
+	private final ForkJoinPool pool;
+	/** Width and height of a tile, in points. */
+	private final int tileSize;
+
+	/**
+	 * Creates a new engine which uses the common pool and tiles of {@value #DEFAULT_TILE_SIZE} points.
+	 */
+	public IterationEngine(){
+		this(ForkJoinPool.commonPool(), DEFAULT_TILE_SIZE);
+	}
+
+	/**
+	 * Creates a new engine.
+	 * @param pool Pool on which tiles are computed.
+	 * @param tileSize Width and height of a tile, in points.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the tile size is less than 1.
+	 */
+	public IterationEngine(ForkJoinPool pool, int tileSize){
+		if(pool == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		if(tileSize < 1){
+			throw new IllegalArgumentException("Tile size must be bigger than 0!");
+		}
+
+		this.pool = pool;
+		this.tileSize = tileSize;
+	}
+
+	/**
+	 * Evaluates the given kernel over the given region and waits for the result.
+	 * @param kernel Kernel evaluated for every point.
+	 * @param reMin Real part of the left edge of the region.
+	 * @param reMax Real part of the right edge of the region.
+	 * @param imMin Imaginary part of the bottom edge of the region.
+	 * @param imMax Imaginary part of the top edge of the region.
+	 * @param width Number of points in a row.
+	 * @param height Number of rows.
+	 * @return Results for all points, in row-major order.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the width or the height is less than 1.
+	 */
+	public int[] render(Kernel kernel, double reMin, double reMax, double imMin, double imMax,
+			int width, int height){
+		if(width < 1 || height < 1 || (long) width * height > Integer.MAX_VALUE - 8){
+			throw new IllegalArgumentException("Invalid grid size!");
+		}
+
+		int[] out = new int[width * height];
+		start(kernel, reMin, reMax, imMin, imMax, width, height, out, null).await();
+		return out;
+	}
+
+	/**
+	 * Starts evaluating the given kernel over the given region and returns without waiting. The result for the
+	 * point in column x and row y is written to out[y*width + x], where row 0 is at imMax and column 0 at reMin.
+	 * @param kernel Kernel evaluated for every point.
+	 * @param reMin Real part of the left edge of the region.
+	 * @param reMax Real part of the right edge of the region.
+	 * @param imMin Imaginary part of the bottom edge of the region.
+	 * @param imMax Imaginary part of the top edge of the region.
+	 * @param width Number of points in a row.
+	 * @param height Number of rows.
+	 * @param out Buffer which receives the results.
+	 * @param progress Processor which receives the finished fraction of the work as a Double after each tile,
+	 * 		possibly from several threads at once, or null.
+	 * @return Handle of the started rendering.
+	 * @throws NullPointerException if the kernel or the buffer is null.
+	 * @throws IllegalArgumentException if the width or the height is less than 1, or the buffer is too small.
+	 */
+	public Rendering start(Kernel kernel, double reMin, double reMax, double imMin, double imMax,
+			int width, int height, int[] out, Processor progress){
+		if(kernel == null || out == null){
+			throw new NullPointerException("Arguments must not be null!");
+		}
+
+		if(width < 1 || height < 1 || (long) width * height > out.length){
+			throw new IllegalArgumentException("Invalid grid size!");
+		}
+
+		Rendering rendering = new Rendering(kernel, reMin, width > 1 ? (reMax - reMin) / (width - 1) : 0,
+				imMax, height > 1 ? (imMax - imMin) / (height - 1) : 0, width, height, tileSize, out, progress);
+		pool.execute(rendering.task);
+		return rendering;
+	}
+
+	/**
+	 * Returns a kernel which counts iterations of z = z*z + c, starting from z = 0 with c being the point, until
+	 * the magnitude of z exceeds 2. Points which do not escape, members of the Mandelbrot set, give the
+	 * maximal number of iterations.
+	 * @param maxIterations Maximal number of iterations.
+	 * @return The kernel.
+	 * @throws IllegalArgumentException if the maximal number of iterations is less than 1.
+	 */
+	public static Kernel mandelbrot(final int maxIterations){
+		if(maxIterations < 1){
+			throw new IllegalArgumentException("Number of iterations must be bigger than 0!");
+		}
+
+		return new Kernel() {
+			@Override
+			public int iterate(double re, double im){
+				// points in the main cardioid and the period-2 bulb never escape
+				double y2 = im*im;
+				double q = (re - 0.25)*(re - 0.25) + y2;
+				if(q*(q + (re - 0.25)) <= 0.25*y2 || (re + 1)*(re + 1) + y2 <= 0.0625){
+					return maxIterations;
+				}
+
+				double zr = 0;
+				double zi = 0;
+				for(int i = 0; i < maxIterations; i++){
+					double zr2 = zr*zr;
+					double zi2 = zi*zi;
+					if(zr2 + zi2 > 4){
+						return i;
+					}
+					zi = 2*zr*zi + im;
+					zr = zr2 - zi2 + re;
+				}
+
+				return maxIterations;
+			}
+		};
+	}
+
+	/**
+	 * Returns a kernel which runs Newton's method for the equation z^n = a, starting from the point, and tells
+	 * to which root it converges. Roots are those returned by a.root(n), and the result is the index of the root
+	 * increased by one, or 0 if the method does not converge to a root within the given number of iterations.
+	 * @param a Right side of the equation.
+	 * @param n Degree of the equation.
+	 * @param maxIterations Maximal number of iterations.
+	 * @return The kernel.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the degree or the maximal number of iterations is less than 1.
+	 */
+	public static Kernel newton(ComplexNumber a, final int n, final int maxIterations){
+		if(maxIterations < 1){
+			throw new IllegalArgumentException("Number of iterations must be bigger than 0!");
+		}
+
+		ComplexNumber[] roots = a.root(n);
+		final double aRe = a.real;
+		final double aIm = a.imaginary;
+		final double[] rootsRe = new double[n];
+		final double[] rootsIm = new double[n];
+		for(int k = 0; k < n; k++){
+			rootsRe[k] = roots[k].real;
+			rootsIm[k] = roots[k].imaginary;
+		}
+
+		return new Kernel() {
+			@Override
+			public int iterate(double re, double im){
+				double zr = re;
+				double zi = im;
+				for(int i = 0; i < maxIterations; i++){
+					// p = z^(n-1) by repeated squaring, as in ComplexNumber.power
+					double pr = 1;
+					double pi = 0;
+					double br = zr;
+					double bi = zi;
+					for(int e = n - 1; e > 0; e >>= 1){
+						if((e & 1) != 0){
+							double temp = pr*br - pi*bi;
+							pi = pr*bi + pi*br;
+							pr = temp;
+						}
+						if(e > 1){
+							double temp = br*br - bi*bi;
+							bi = br*bi + bi*br;
+							br = temp;
+						}
+					}
+
+					double fr = pr*zr - pi*zi - aRe;
+					double fi = pr*zi + pi*zr - aIm;
+					double dr = n*pr;
+					double di = n*pi;
+					double divisor = dr*dr + di*di;
+					double sr = (fr*dr + fi*di)/divisor;
+					double si = (fi*dr - fr*di)/divisor;
+					zr -= sr;
+					zi -= si;
+
+					double step = sr*sr + si*si;
+					if(step < NEWTON_CONVERGENCE){
+						break;
+					}
+					if(Double.isNaN(step)){
+						return 0;
+					}
+				}
+
+				for(int k = 0; k < n; k++){
+					double dx = zr - rootsRe[k];
+					double dy = zi - rootsIm[k];
+					if(dx*dx + dy*dy < NEWTON_ROOT_DISTANCE){
+						return k + 1;
+					}
+				}
+
+				return 0;
+			}
+		};
+	}
+
+	/**
+	 * Complex map evaluated by the engine for every point of a grid. Implementations must not change shared
+	 * state, because points are evaluated on several threads at once.
+	 * @author Mislav Gillinger
+	 * @version 1.0
+	 */
+	public abstract static class Kernel {
+
+		/**
+		 * Evaluates the map for a single point.
+		 * @param re Real part of the point.
+		 * @param im Imaginary part of the point.
+		 * @return Result for the point.
+		 */
+		public abstract int iterate(double re, double im);
+	}
+
+	/**
+	 * Handle of a started rendering, through which it can be awaited, cancelled and observed.
+	 * @author Mislav Gillinger
+	 * @version 1.0
+	 */
+	public static final class Rendering {
+
+		/** Kernel evaluated for every point. */
+		private final Kernel kernel;
+		/** Real part of column 0. */
+		private final double reMin;
+		/** Difference of real parts of neighbouring columns. */
+		private final double reStep;
+		/** Imaginary part of row 0. */
+		private final double imMax;
+		/** Difference of imaginary parts of neighbouring rows. */
+		private final double imStep;
+		/** Number of points in a row. */
+		private final int width;
+		/** Number of rows. */
+		private final int height;
+		/** Width and height of a tile. */
+		private final int tileSize;
+		/** Number of tiles in a row of tiles. */
+		private final int tilesPerRow;
+		/** Total number of tiles. */
+		private final int tileCount;
+		/** Buffer which receives the results. */
+		private final int[] out;
+		/** Processor which receives the progress, or null. */
+		private final Processor progress;
+		/** Number of finished or skipped tiles. */
+		private final AtomicInteger finished = new AtomicInteger();
+		/** True once the rendering is cancelled. */
+		private volatile boolean cancelled;
+		/** Task which computes all tiles, made before the rendering is started. */
+		private final TileTask task;
+
+		/**
+		 * Creates a new rendering.
+		 * @param kernel Kernel evaluated for every point.
+		 * @param reMin Real part of column 0.
+		 * @param reStep Difference of real parts of neighbouring columns.
+		 * @param imMax Imaginary part of row 0.
+		 * @param imStep Difference of imaginary parts of neighbouring rows.
+		 * @param width Number of points in a row.
+		 * @param height Number of rows.
+		 * @param tileSize Width and height of a tile.
+		 * @param out Buffer which receives the results.
+		 * @param progress Processor which receives the progress, or null.
+		 */
+		Rendering(Kernel kernel, double reMin, double reStep, double imMax, double imStep, int width, int height,
+				int tileSize, int[] out, Processor progress){
+			this.kernel = kernel;
+			this.reMin = reMin;
+			this.reStep = reStep;
+			this.imMax = imMax;
+			this.imStep = imStep;
+			this.width = width;
+			this.height = height;
+			this.tileSize = tileSize;
+			this.tilesPerRow = (width - 1) / tileSize + 1;
+			this.tileCount = tilesPerRow * ((height - 1) / tileSize + 1);
+			this.out = out;
+			this.progress = progress;
+			this.task = new TileTask(this, 0, tileCount);
+		}
+
+		/**
+		 * Cancels the rendering. Tiles which are being computed are finished, and the others are skipped, so
+		 * the buffer may be left partially filled.
+		 */
+		public void cancel(){
+			cancelled = true;
+		}
+
+		/**
+		 * Checks if the rendering was cancelled.
+		 * @return True if the rendering was cancelled.
+		 */
+		public boolean isCancelled(){
+			return cancelled;
+		}
+
+		/**
+		 * Checks if all tiles are computed or skipped.
+		 * @return True if the rendering is done.
+		 */
+		public boolean isDone(){
+			return task.isDone();
+		}
+
+		/**
+		 * Returns the finished fraction of the work, counting skipped tiles as finished.
+		 * @return Number between 0 and 1.
+		 */
+		public double getProgress(){
+			return finished.get() / (double) tileCount;
+		}
+
+		/**
+		 * Waits until all tiles are computed or skipped.
+		 * @throws RuntimeException if the kernel threw an exception.
+		 */
+		public void await(){
+			task.join();
+		}
+
+		/**
+		 * Computes a single tile, unless the rendering is cancelled, and reports the progress.
+		 * @param tile Number of the tile.
+		 */
+		void computeTile(int tile){
+			if(!cancelled){
+				int x0 = tile % tilesPerRow * tileSize;
+				int y0 = tile / tilesPerRow * tileSize;
+				int x1 = Math.min(width, x0 + tileSize);
+				int y1 = Math.min(height, y0 + tileSize);
+				Kernel kernel = this.kernel;
+				int[] out = this.out;
+				for(int y = y0; y < y1; y++){
+					double im = imMax - y*imStep;
+					int offset = y*width;
+					for(int x = x0; x < x1; x++){
+						out[offset + x] = kernel.iterate(reMin + x*reStep, im);
+					}
+				}
+			}
+
+			int done = finished.incrementAndGet();
+			if(progress != null){
+				progress.process(Double.valueOf(done / (double) tileCount));
+			}
+		}
+	}
+
+	/**
+	 * Task which computes a range of tiles, splitting it in halves until a single tile remains.
+	 */
+	private static class TileTask extends RecursiveAction {
+
+		/** serialVersionUID */
+		private static final long serialVersionUID = 1L;
+
+		/** Rendering to which the tiles belong. */
+		private final Rendering rendering;
+		/** Number of the first tile. */
+		private final int from;
+		/** Number after the last tile. */
+		private final int to;
+
+		/**
+		 * Creates a new task.
+		 * @param rendering Rendering to which the tiles belong.
+		 * @param from Number of the first tile.
+		 * @param to Number after the last tile.
+		 */
+		TileTask(Rendering rendering, int from, int to){
+			this.rendering = rendering;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute(){
+			if(to - from > 1){
+				int middle = (from + to) >>> 1;
+				invokeAll(new TileTask(rendering, from, middle), new TileTask(rendering, middle, to));
+				return;
+			}
+
+			rendering.computeTile(from);
+		}
+	}
+}
@@ -1,5 +1,9 @@
 package hr.fer.zemris.java.custom.collections;
 
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
 /**
  * Represents a linked list-backed collection of objects.
  * Duplicate elements are allowed (each of those elements will be held in 
@@ -308,4 +312,110 @@ public class LinkedListIndexedCollection extends Collection{
 		}
 		size--;
 	}
+	
+	/**
+	 * Creates a Spliterator which traverses the nodes of this list. It
+	 * splits by copying a batch of elements from the front of the list into
+	 * an array, and each split takes a bigger batch, so parallel streams
+	 * get parts large enough to be worth the copying. The collection must
+	 * not be modified while the Spliterator is in use.
+	 * @return The newly made Spliterator.
+	 */
+	@Override
+	public Spliterator<Object> spliterator(){
+		return new ListSpliterator(first, size);
+	}
+	
+	/**
+	 * Spliterator over a sequence of list nodes.
+	 * @author Mislav Gillinger
+	 * @version 1.0
+	 */
+	private static class ListSpliterator implements Spliterator<Object>{
+		/** Increment of the batch size with each split. */
+		private static final int BATCH_UNIT = 1 << 10;
+		/** Maximal batch size. */
+		private static final int MAX_BATCH = 1 << 25;
+		/** Characteristics of this Spliterator and of the split ones. */
+		private static final int CHARACTERISTICS = Spliterator.ORDERED
+				| Spliterator.SIZED | Spliterator.SUBSIZED
+				| Spliterator.NONNULL;
+		
+		/** Node of the next element. */
+		private ListNode current;
+		/** Number of remaining elements. */
+		private int remaining;
+		/** Size of the last split batch. */
+		private int batch;
+		
+		/**
+		 * Constructor for class ListSpliterator.
+		 * @param first Node of the first element.
+		 * @param size Number of elements.
+		 */
+		ListSpliterator(ListNode first, int size){
+			current = first;
+			remaining = size;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super Object> action){
+			if(action == null){
+				throw new NullPointerException("Argument must not be null!");
+			}
+			if(remaining == 0){
+				return false;
+			}
+			
+			Object value = current.value;
+			current = current.next;
+			remaining--;
+			action.accept(value);
+			return true;
+		}
+		
+		@Override
+		public void forEachRemaining(Consumer<? super Object> action){
+			if(action == null){
+				throw new NullPointerException("Argument must not be null!");
+			}
+			
+			ListNode node = current;
+			int count = remaining;
+			current = null;
+			remaining = 0;
+			for(; count > 0; count--){
+				action.accept(node.value);
+				node = node.next;
+			}
+		}
+		
+		@Override
+		public Spliterator<Object> trySplit(){
+			if(remaining <= 1){
+				return null;
+			}
+			
+			int n = Math.min(Math.min(batch + BATCH_UNIT, MAX_BATCH),
+					remaining);
+			Object[] values = new Object[n];
+			for(int i = 0; i < n; i++){
+				values[i] = current.value;
+				current = current.next;
+			}
+			batch = n;
+			remaining -= n;
+			return Spliterators.spliterator(values, 0, n, CHARACTERISTICS);
+		}
+		
+		@Override
+		public long estimateSize(){
+			return remaining;
+		}
+		
+		@Override
+		public int characteristics(){
+			return CHARACTERISTICS;
+		}
+	}
 }
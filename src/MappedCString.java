@@ -0,0 +1,507 @@
+package hr.fer.zemris.java.cstr;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Represents a string whose characters are read directly from a byte buffer, usually a memory-mapped region
+ * of a file, so the text never has to be loaded into the heap. It offers the same searching operations as
+ * CString and can be used wherever a CharSequence is expected. Substring operations create new objects which
+ * share the buffer of the original string, with their own offset and length, just like CString views share a
+ * character array.
+ * <p>
+ * Characters are decoded on access, so only charsets with a fixed width are supported: ISO-8859-1 and
+ * US-ASCII use one byte per character, UTF-16BE and UTF-16LE use two bytes per character. In US-ASCII, bytes
+ * above 0x7F are malformed and are read as the replacement character U+FFFD, as the charset's decoder does.
+ *
+ * @author Mislav Gillinger
+ */
+public class MappedCString implements CharSequence {
+
+	/** Size of the regions, in bytes, in which whole files are searched. */
+	public static final long REGION_SIZE = 1L << 30;
+	/** Character read in place of a byte which is not valid in US-ASCII. */
+	private static final char REPLACEMENT = '\uFFFD';
+
+	/** Buffer containing encoded characters of a string. */
+	private ByteBuffer buffer;
+	/** Number of bytes used for one character, 1 or 2. */
+	private int width;
+	/** True if the charset is US-ASCII, so bytes above 0x7F are read as the replacement character. */
+	private boolean ascii;
+	/** Index of starting character in the buffer. */
+	private int offset;
+	/** Length of a string, starting from offset. */
+	private int length;
+
+	/**
+	 * Creates a new instance of a MappedCString which reads all remaining bytes of the given buffer.
+	 * The buffer is not copied.
+	 * @param buffer Buffer containing encoded characters of a string.
+	 * @param charset Charset of the characters in the buffer.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the charset is not supported.
+	 */
+	public MappedCString(ByteBuffer buffer, Charset charset) {
+		if(buffer == null || charset == null){
+			throw new NullPointerException("Arguments must not be null!");
+		}
+
+		this.buffer = buffer.slice();
+		if(StandardCharsets.ISO_8859_1.equals(charset) || StandardCharsets.US_ASCII.equals(charset)){
+			this.width = 1;
+			this.ascii = StandardCharsets.US_ASCII.equals(charset);
+		}
+		else if(StandardCharsets.UTF_16BE.equals(charset)){
+			this.width = 2;
+			this.buffer.order(ByteOrder.BIG_ENDIAN);
+		}
+		else if(StandardCharsets.UTF_16LE.equals(charset)){
+			this.width = 2;
+			this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+		}
+		else{
+			throw new IllegalArgumentException("Charset " + charset + " does not have a fixed width!");
+		}
+
+		this.offset = 0;
+		this.length = this.buffer.remaining() / width;
+	}
+
+	/**
+	 * Creates a new instance of a MappedCString which shares the buffer of the given one.
+	 * @param original String whose buffer is shared.
+	 * @param offset Index of starting character in the buffer.
+	 * @param length Length of a string, starting from offset.
+	 */
+	private MappedCString(MappedCString original, int offset, int length) {
+		this.buffer = original.buffer;
+		this.width = original.width;
+		this.ascii = original.ascii;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	/**
+	 * Maps the whole given file into memory and creates a new MappedCString over it.
+	 * @param file File to be mapped.
+	 * @param charset Charset of the file.
+	 * @return Instance of a new MappedCString.
+	 * @throws IOException if the file can not be mapped.
+	 * @throws IllegalArgumentException if the charset is not supported or the file is too large to be
+	 * 		mapped at once.
+	 */
+	public static MappedCString map(Path file, Charset charset) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			return map(channel, charset, 0, channel.size());
+		}
+	}
+
+	/**
+	 * Maps a region of the given file into memory and creates a new MappedCString over it. Matches which span
+	 * two regions are not found in either of them; whole files of any size can be searched with indexOf.
+	 * @param file File to be mapped.
+	 * @param charset Charset of the file.
+	 * @param position Position in the file, in bytes, where the region starts.
+	 * @param size Size of the region, in bytes.
+	 * @return Instance of a new MappedCString.
+	 * @throws IOException if the file can not be mapped.
+	 * @throws IllegalArgumentException if the charset is not supported or the region is too large to be
+	 * 		mapped at once.
+	 */
+	public static MappedCString map(Path file, Charset charset, long position, long size) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			return map(channel, charset, position, size);
+		}
+	}
+
+	/**
+	 * Maps a region of the given channel into memory and creates a new MappedCString over it. The mapping
+	 * stays valid after the channel is closed.
+	 * @param channel Channel to be mapped.
+	 * @param charset Charset of the channel content.
+	 * @param position Position in the channel, in bytes, where the region starts.
+	 * @param size Size of the region, in bytes.
+	 * @return Instance of a new MappedCString.
+	 * @throws IOException if the channel can not be mapped.
+	 * @throws IllegalArgumentException if the charset is not supported or the region is too large to be
+	 * 		mapped at once.
+	 */
+	public static MappedCString map(FileChannel channel, Charset charset, long position, long size)
+			throws IOException {
+		if(size > Integer.MAX_VALUE){
+			throw new IllegalArgumentException("Region must not be larger than " + Integer.MAX_VALUE + " bytes!");
+		}
+
+		return new MappedCString(channel.map(FileChannel.MapMode.READ_ONLY, position, size), charset);
+	}
+
+	/**
+	 * Searches the whole given file for the given string, region by region, so files of any size can be
+	 * searched. Regions of {@value #REGION_SIZE} bytes are mapped one at a time, and each one overlaps the
+	 * previous one by the length of the string minus one character, so matches which span two regions are
+	 * found as well.
+	 * @param file File to be searched.
+	 * @param charset Charset of the file.
+	 * @param s String to be searched for.
+	 * @return Index of the first character of the first occurrence, counted in characters from the start of
+	 * 		the file, or -1.
+	 * @throws IOException if the file can not be mapped.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the charset is not supported.
+	 */
+	public static long indexOf(Path file, Charset charset, CString s) throws IOException {
+		return indexOf(file, charset, s, REGION_SIZE);
+	}
+
+	/**
+	 * Searches the whole given file for the given string, mapping regions of the given size one at a time.
+	 * Each region overlaps the previous one by the length of the string minus one character, so matches which
+	 * span two regions are found as well.
+	 * @param file File to be searched.
+	 * @param charset Charset of the file.
+	 * @param s String to be searched for.
+	 * @param regionSize Size of a mapped region, in bytes.
+	 * @return Index of the first character of the first occurrence, counted in characters from the start of
+	 * 		the file, or -1.
+	 * @throws IOException if the file can not be mapped.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 * @throws IllegalArgumentException if the charset is not supported, or a region can not hold the string
+	 * 		or is too large to be mapped at once.
+	 */
+	public static long indexOf(Path file, Charset charset, CString s, long regionSize) throws IOException {
+		if(file == null || charset == null || s == null){
+			throw new NullPointerException("Arguments must not be null!");
+		}
+
+		int width = new MappedCString(ByteBuffer.allocate(0), charset).width;
+		long regionChars = regionSize / width;
+		if(regionChars < Math.max(1, s.length()) || regionSize > Integer.MAX_VALUE){
+			throw new IllegalArgumentException("Invalid region size!");
+		}
+
+		if(s.length() == 0){
+			return 0;
+		}
+
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			long total = channel.size() / width;
+			long step = regionChars - (s.length() - 1);
+			for(long start = 0; total - start >= s.length(); start += step){
+				long count = Math.min(regionChars, total - start);
+				int index = map(channel, charset, start * width, count * width).indexOf(s);
+				if(index != -1){
+					return start + index;
+				}
+				if(start + count == total){
+					break;
+				}
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Returns length of this string.
+	 * @return Length of this string.
+	 */
+	@Override
+	public int length(){
+		return length;
+	}
+
+	/**
+	 * Returns a char which stands on a given position in this string.
+	 * @param index Char at this position will be returned.
+	 * @return Char at position index.
+	 * @throws IndexOutOfBoundsException If index is invalid.
+	 */
+	@Override
+	public char charAt(int index){
+		if(index < 0 || index >= length){
+			throw new IndexOutOfBoundsException("Argument index is invalid!");
+		}
+
+		return at(offset + index);
+	}
+
+	/**
+	 * Decodes a character at the given index in the buffer.
+	 * @param index Index of a character in the buffer.
+	 * @return Decoded character.
+	 */
+	private char at(int index){
+		if(width == 1){
+			byte b = buffer.get(index);
+			return ascii && b < 0 ? REPLACEMENT : (char) (b & 0xFF);
+		}
+
+		return buffer.getChar(index << 1);
+	}
+
+	/**
+	 * Returns index of first occurrence of the given char or -1.
+	 * @param c Index of first occurrence of this char will be returned.
+	 * @return Index of first occurrence of the given char or -1.
+	 */
+	public int indexOf(char c){
+		return indexOf(c, 0);
+	}
+
+	/**
+	 * Returns index of first occurrence of the given char, starting the search at the given position, or -1.
+	 * Negative position is treated as 0.
+	 * @param c Index of first occurrence of this char will be returned.
+	 * @param fromIndex Position where the search starts.
+	 * @return Index of first occurrence of the given char or -1.
+	 */
+	public int indexOf(char c, int fromIndex){
+		if(fromIndex < 0){
+			fromIndex = 0;
+		}
+
+		if(width == 1){
+			if(ascii && c == REPLACEMENT){
+				for(int index = offset + fromIndex; index < offset + length; index++){
+					if(buffer.get(index) < 0){
+						return index - offset;
+					}
+				}
+
+				return -1;
+			}
+			if(c > (ascii ? 0x7F : 0xFF)){
+				return -1;
+			}
+
+			byte b = (byte) c;
+			for(int index = offset + fromIndex; index < offset + length; index++){
+				if(buffer.get(index) == b){
+					return index - offset;
+				}
+			}
+
+			return -1;
+		}
+
+		for(int index = offset + fromIndex; index < offset + length; index++){
+			if(buffer.getChar(index << 1) == c){
+				return index - offset;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Returns index of first occurrence of the given string, starting the search at the given position, or -1.
+	 * Negative position is treated as 0.
+	 * @param s String to be searched for.
+	 * @param fromIndex Position where the search starts.
+	 * @return Index of first occurrence of the given string or -1.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public int indexOf(CString s, int fromIndex){
+		if(s == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		if(fromIndex < 0){
+			fromIndex = 0;
+		}
+
+		if(s.length() == 0){
+			return fromIndex <= length ? fromIndex : -1;
+		}
+
+		char first = s.charAt(0);
+		for(int i = indexOf(first, fromIndex); i != -1 && i <= length - s.length(); i = indexOf(first, i + 1)){
+			if(regionMatches(i, s)){
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns index of first occurrence of the given string or -1.
+	 * @param s String to be searched for.
+	 * @return Index of first occurrence of the given string or -1.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public int indexOf(CString s){
+		return indexOf(s, 0);
+	}
+
+	/**
+	 * Checks if this string contains the given starting at any position.
+	 * @param s String which is a potential substring of this string.
+	 * @return True if this string contains the given one, false otherwise.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public boolean contains(CString s){
+		if(s == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		return s.length() != 0 && indexOf(s, 0) != -1;
+	}
+
+	/**
+	 * Checks whether this string begins with the given one.
+	 * @param s String which is a potential beginning of this string.
+	 * @return True if the given string is a beginning of this string, false otherwise.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public boolean startsWith(CString s){
+		if(s == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		return s.length() <= length && regionMatches(0, s);
+	}
+
+	/**
+	 * Checks whether this string ends with the given one.
+	 * @param s String which is a potential end of this string.
+	 * @return True if the given string is an end of this string, false otherwise.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public boolean endsWith(CString s){
+		if(s == null){
+			throw new NullPointerException("Argument must not be null!");
+		}
+
+		return s.length() <= length && regionMatches(length - s.length(), s);
+	}
+
+	/**
+	 * Checks whether all characters of the given string match characters of this string starting
+	 * at the given position.
+	 * @param position Position in this string where comparison starts.
+	 * @param s String whose characters are compared.
+	 * @return True if characters match, false otherwise.
+	 */
+	private boolean regionMatches(int position, CString s){
+		for(int i = offset + position, j = 0; j < s.length(); i++, j++){
+			if(at(i) != s.charAt(j)){
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns new string which represents a part of this string and shares its buffer.
+	 * Position endIndex does not belong to the substring. Complexity is O(1).
+	 * @param startIndex Start point of a new string. Must not be negative.
+	 * @param endIndex End point of a new string. Must not be less than startIndex.
+	 * @return New string which was a part of this string.
+	 * @throws IndexOutOfBoundsException If index is invalid.
+	 */
+	public MappedCString substring(int startIndex, int endIndex){
+		if(startIndex < 0 || endIndex < startIndex || endIndex > length){
+			throw new IndexOutOfBoundsException("Invalid start or end index!");
+		}
+
+		return new MappedCString(this, offset + startIndex, endIndex - startIndex);
+	}
+
+	/**
+	 * Returns new string which represents a part of this string, as required by CharSequence.
+	 * Complexity is O(1), the returned string shares the buffer of this one.
+	 * @param start Start point of a new string.
+	 * @param end End point of a new string, which does not belong to it.
+	 * @return New string which was a part of this string.
+	 * @throws IndexOutOfBoundsException If index is invalid.
+	 */
+	@Override
+	public MappedCString subSequence(int start, int end){
+		return substring(start, end);
+	}
+
+	/**
+	 * Returns new string which represents starting part of this string and is of length n.
+	 * @param n Length of a new string.
+	 * @return New string which represents starting part of this string and is of length n.
+	 * @throws IndexOutOfBoundsException If index is invalid.
+	 */
+	public MappedCString left(int n){
+		if(n < 0 || n > length){
+			throw new IndexOutOfBoundsException("Original string does not contain that much symbols!");
+		}
+
+		return new MappedCString(this, offset, n);
+	}
+
+	/**
+	 * Returns new string which represents ending part of this string and is of length n.
+	 * @param n Length of a new string.
+	 * @return New string which represents ending part of this string and is of length n.
+	 * @throws IndexOutOfBoundsException If index is invalid.
+	 */
+	public MappedCString right(int n){
+		if(n < 0 || n > length){
+			throw new IndexOutOfBoundsException("Original string does not contain that much symbols!");
+		}
+
+		return new MappedCString(this, offset + length - n, n);
+	}
+
+	/**
+	 * Copies characters of this string into a new CString on the heap. One byte wide charsets produce a
+	 * compact CString, unless US-ASCII text contains bytes which are read as the replacement character.
+	 * @return New CString with the same characters as this string.
+	 */
+	public CString toCString(){
+		ByteBuffer region = buffer.duplicate();
+		region.position(offset * width);
+		if(width == 1){
+			byte[] bytes = new byte[length];
+			region.get(bytes);
+			for(int i = 0; ascii && i < length; i++){
+				if(bytes[i] < 0){
+					return new CString(replaceMalformed(bytes));
+				}
+			}
+
+			return CString.fromLatin1(bytes, 0, length);
+		}
+
+		char[] chars = new char[length];
+		region.order(buffer.order()).asCharBuffer().get(chars);
+
+		return new CString(chars);
+	}
+
+	/**
+	 * Decodes the given US-ASCII bytes, replacing the bytes above 0x7F with the replacement character.
+	 * @param bytes Bytes to be decoded.
+	 * @return Decoded characters.
+	 */
+	private static char[] replaceMalformed(byte[] bytes){
+		char[] chars = new char[bytes.length];
+		for(int i = 0; i < bytes.length; i++){
+			chars[i] = bytes[i] < 0 ? REPLACEMENT : (char) bytes[i];
+		}
+
+		return chars;
+	}
+
+	/**
+	 * Converts this string into a String and returns it.
+	 * @return String made out of this string.
+	 */
+	@Override
+	public String toString(){
+		return toCString().toString();
+	}
+}
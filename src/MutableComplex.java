@@ -0,0 +1,301 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+/**
+ * Mutable complex number which performs arithmetic in place. It mirrors the arithmetic of ComplexNumber, but
+ * every operation changes this number and returns it instead of creating a new one, so iterations such as
+ * z = z*z + c run without allocation. Results are the same as those of the corresponding ComplexNumber
+ * operations.
+ * @author Mislav Gillinger
+ * @version 1.0
+ */
+public class MutableComplex {
+
+	/** Real part of a complex number. */
+	double real;
+	/** Imaginary part of a complex number. */
+	double imaginary;
+
+	/**
+	 * Creates a new complex number equal to zero.
+	 */
+	public MutableComplex(){
+	}
+
+	/**
+	 * Creates a new complex number.
+	 * @param real Real part of a complex number.
+	 * @param imaginary Imaginary part of a complex number.
+	 */
+	public MutableComplex(double real, double imaginary){
+		this.real = real;
+		this.imaginary = imaginary;
+	}
+
+	/**
+	 * Creates a new complex number with the value of the given one.
+	 * @param c Complex number whose value is taken.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public MutableComplex(ComplexNumber c){
+		this(c.real, c.imaginary);
+	}
+
+	/**
+	 * Creates an immutable complex number with the value of this one.
+	 * @return Newly made complex number.
+	 */
+	public ComplexNumber toComplexNumber(){
+		return new ComplexNumber(real, imaginary);
+	}
+
+	/**
+	 * Sets the value of this complex number.
+	 * @param real Real part of a complex number.
+	 * @param imaginary Imaginary part of a complex number.
+	 * @return This complex number.
+	 */
+	public MutableComplex set(double real, double imaginary){
+		this.real = real;
+		this.imaginary = imaginary;
+		return this;
+	}
+
+	/**
+	 * Sets the value of this complex number to the value of the given one.
+	 * @param c Complex number whose value is taken.
+	 * @return This complex number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public MutableComplex set(ComplexNumber c){
+		return set(c.real, c.imaginary);
+	}
+
+	/**
+	 * Sets the value of this complex number to the value of the given one.
+	 * @param c Complex number whose value is taken.
+	 * @return This complex number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public MutableComplex set(MutableComplex c){
+		return set(c.real, c.imaginary);
+	}
+
+	/**
+	 * Returns a real part of a complex number.
+	 * @return A real part of a complex number.
+	 */
+	public double getReal(){
+		return real;
+	}
+
+	/**
+	 * Returns an imaginary part of a complex number.
+	 * @return An imaginary part of a complex number.
+	 */
+	public double getImaginary(){
+		return imaginary;
+	}
+
+	/**
+	 * Returns a magnitude of a complex number.
+	 * @return A magnitude of a complex number.
+	 */
+	public double getMagnitude(){
+		return Math.sqrt(real*real + imaginary*imaginary);
+	}
+
+	/**
+	 * Returns an angle of a complex number.
+	 * @return An angle of a complex number.
+	 */
+	public double getAngle(){
+		return Math.atan2(imaginary, real);
+	}
+
+	/**
+	 * Adds the given complex number to this one.
+	 * @param real Real part of the number to be added.
+	 * @param imaginary Imaginary part of the number to be added.
+	 * @return This complex number.
+	 */
+	public MutableComplex add(double real, double imaginary){
+		this.real += real;
+		this.imaginary += imaginary;
+		return this;
+	}
+
+	/**
+	 * Adds the given complex number to this one.
+	 * @param c Complex number to be added.
+	 * @return This complex number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public MutableComplex add(ComplexNumber c){
+		return add(c.real, c.imaginary);
+	}
+
+	/**
+	 * Adds the given complex number to this one.
+	 * @param c Complex number to be added.
+	 * @return This complex number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public MutableComplex add(MutableComplex c){
+		return add(c.real, c.imaginary);
+	}
+
+	/**
+	 * Subtracts the given complex number from this one.
+	 * @param real Real part of the number to be subtracted.
+	 * @param imaginary Imaginary part of the number to be subtracted.
+	 * @return This complex number.
+	 */
+	public MutableComplex sub(double real, double imaginary){
+		this.real -= real;
+		this.imaginary -= imaginary;
+		return this;
+	}
+
+	/**
+	 * Subtracts the given complex number from this one.
+	 * @param c Complex number to be subtracted.
+	 * @return This complex number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public MutableComplex sub(ComplexNumber c){
+		return sub(c.real, c.imaginary);
+	}
+
+	/**
+	 * Subtracts the given complex number from this one.
+	 * @param c Complex number to be subtracted.
+	 * @return This complex number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public MutableComplex sub(MutableComplex c){
+		return sub(c.real, c.imaginary);
+	}
+
+	/**
+	 * Multiplies this complex number with the given one.
+	 * @param real Real part of the number to be multiplied with.
+	 * @param imaginary Imaginary part of the number to be multiplied with.
+	 * @return This complex number.
+	 */
+	public MutableComplex mul(double real, double imaginary){
+		double re = this.real*real - this.imaginary*imaginary;
+		this.imaginary = this.real*imaginary + this.imaginary*real;
+		this.real = re;
+		return this;
+	}
+
+	/**
+	 * Multiplies this complex number with the given one.
+	 * @param c Complex number to be multiplied with.
+	 * @return This complex number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public MutableComplex mul(ComplexNumber c){
+		return mul(c.real, c.imaginary);
+	}
+
+	/**
+	 * Multiplies this complex number with the given one.
+	 * @param c Complex number to be multiplied with.
+	 * @return This complex number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public MutableComplex mul(MutableComplex c){
+		return mul(c.real, c.imaginary);
+	}
+
+	/**
+	 * Multiplies this complex number with itself.
+	 * @return This complex number.
+	 */
+	public MutableComplex square(){
+		return mul(real, imaginary);
+	}
+
+	/**
+	 * Divides this complex number with the given one.
+	 * @param real Real part of the divisor.
+	 * @param imaginary Imaginary part of the divisor.
+	 * @return This complex number.
+	 */
+	public MutableComplex div(double real, double imaginary){
+		double divisor = real*real + imaginary*imaginary;
+		double re = (this.real*real + this.imaginary*imaginary)/divisor;
+		this.imaginary = (this.imaginary*real - this.real*imaginary)/divisor;
+		this.real = re;
+		return this;
+	}
+
+	/**
+	 * Divides this complex number with the given one.
+	 * @param c Complex number by which this one will be divided.
+	 * @return This complex number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public MutableComplex div(ComplexNumber c){
+		return div(c.real, c.imaginary);
+	}
+
+	/**
+	 * Divides this complex number with the given one.
+	 * @param c Complex number by which this one will be divided.
+	 * @return This complex number.
+	 * @throws NullPointerException if null pointer is provided as an argument.
+	 */
+	public MutableComplex div(MutableComplex c){
+		return div(c.real, c.imaginary);
+	}
+
+	/**
+	 * Raises this complex number to the power of the given argument. Like in ComplexNumber, small exponents
+	 * are calculated by repeated squaring and larger ones through polar form.
+	 * @param n The exponent.
+	 * @return This complex number.
+	 * @throws IllegalArgumentException if the exponent is less than 0.
+	 */
+	public MutableComplex power(int n){
+		if (n < 0){
+			throw new IllegalArgumentException("Exponent must be 0 or bigger!");
+		}
+
+		if(n > ComplexNumber.POWER_CROSSOVER){
+			double magnitude = Math.pow(getMagnitude(), n);
+			double angle = getAngle();
+
+			real = magnitude*(Math.cos(n*angle));
+			imaginary = magnitude*(Math.sin(n*angle));
+			return this;
+		}
+
+		double baseRe = real;
+		double baseIm = imaginary;
+		real = 1;
+		imaginary = 0;
+		for(int e = n; e > 0; e >>= 1){
+			if((e & 1) != 0){
+				mul(baseRe, baseIm);
+			}
+			if(e > 1){
+				double temp = baseRe*baseRe - baseIm*baseIm;
+				baseIm = baseRe*baseIm + baseIm*baseRe;
+				baseRe = temp;
+			}
+		}
+
+		return this;
+	}
+
+	/**
+	 * Shapes the complex number in a String format.
+	 * @return String which represents a complex number.
+	 */
+	@Override
+	public String toString(){
+		return toComplexNumber().toString();
+	}
+}
@@ -1,10 +1,24 @@
 package hr.fer.zemris.java.cstr;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.regex.Pattern;
+
 import org.junit.Test;
 
 import hr.fer.zemris.java.cstr.CString;
+import hr.fer.zemris.java.custom.collections.ArrayIndexedCollection;
+import hr.fer.zemris.java.custom.collections.Processor;
 
 public class CStringTests {
 
@@ -95,6 +109,118 @@ public class CStringTests {
 		assertEquals("", "bella ch", string.replaceAll(m1, m2).toString());
 	}
 	
+	@Test
+	public void testCompactFromString() {
+		CString str = CString.fromString("Cheesecake");
+		assertEquals("Latin-1 string is compact", true, str.isCompact());
+		assertEquals("", "cake", str.right(4).toString());
+		assertEquals("", 'k', str.charAt(8));
+		assertEquals("", 8, str.indexOf('k'));
+		assertEquals("", -1, str.indexOf('\u0107'));
+		assertEquals("", false, CString.fromString("Kola\u010d").isCompact());
+	}
+	
+	@Test
+	public void testCompactAddInflates() {
+		CString str = CString.fromString("Kola");
+		CString added = str.add(CString.fromString("\u010d"));
+		assertEquals("", "Kola\u010d", added.toString());
+		assertEquals("", false, added.isCompact());
+	}
+	
+	@Test
+	public void testCompactMixedComparisons() {
+		CString str = CString.fromString("Cheesecake");
+		assertEquals("", true, str.startsWith(new CString("Chee".toCharArray())));
+		assertEquals("", true, new CString("Cheesecake".toCharArray()).endsWith(str.right(4)));
+		assertEquals("", true, CString.fromString("aaab").contains(CString.fromString("aab")));
+	}
+	
+	@Test
+	public void testCompactReplaceAll() {
+		CString str = CString.fromString("Cheesecake").substring(2, 10);
+		assertEquals("", "EEsEcakE", str.replaceAll('e', 'E').toString());
+		assertEquals("", "\u0107\u0107s\u0107cak\u0107", str.replaceAll('e', '\u0107').toString());
+		assertEquals("", "eesebake", str.replaceAll(CString.fromString("c"), CString.fromString("b")).toString());
+		assertEquals("", true, str.replaceAll(CString.fromString("c"), CString.fromString("b")).isCompact());
+	}
+	
+	@Test
+	public void testEqualsAcrossRepresentations() {
+		CString compact = CString.fromString("Jogobella Cheescake");
+		CString chars = new CString("Jogobella Cheescake".toCharArray());
+		assertEquals("", true, compact.equals(chars));
+		assertEquals("", true, chars.equals(compact));
+		assertEquals("", "Jogobella Cheescake".hashCode(), compact.hashCode());
+		assertEquals("", chars.hashCode(), compact.hashCode());
+		assertEquals("", false, compact.equals(chars.left(18)));
+	}
+	
+	@Test
+	public void testIndexOfLongString() {
+		CString str = CString.fromString("Jogobella Cheescake Jogobella Cheescake");
+		assertEquals("", 17, str.indexOf('k'));
+		assertEquals("", 17, new CString(str.toCharArray()).indexOf('k'));
+		assertEquals("", 18, str.right(20).indexOf('k'));
+		assertEquals("", true, str.contains(CString.fromString("cake Jog")));
+		assertEquals("", false, str.contains(CString.fromString("cakes")));
+	}
+	
+	@Test
+	public void testSplit() {
+		ArrayIndexedCollection parts = CString.fromString("a,bc,,d,").split(',');
+		assertEquals("", 5, parts.size());
+		assertEquals("", "bc", parts.get(1).toString());
+		assertEquals("", "", parts.get(2).toString());
+		assertEquals("", "", parts.get(4).toString());
+		
+		parts = new CString("Jogobella::Cheescake".toCharArray()).split(CString.fromString("::"));
+		assertEquals("", 2, parts.size());
+		assertEquals("", "Cheescake", parts.get(1).toString());
+	}
+	
+	@Test
+	public void testTokenizer() {
+		CStringTokenizer tokenizer = new CStringTokenizer(CString.fromString("Jogobella Cheescake"), ' ');
+		assertEquals("", "Jogobella", tokenizer.next().toString());
+		assertEquals("", "Cheescake", tokenizer.next().toString());
+		assertEquals("", false, tokenizer.hasNext());
+	}
+	
+	@Test
+	public void testCharSequenceOutput() throws IOException {
+		CString compact = CString.fromString("Jogobella Cheescake");
+		CString chars = new CString("Jogobella Cheescake".toCharArray(), 4, 8);
+		assertEquals("", "bella Ch", chars.subSequence(0, 8).toString());
+		assertEquals("", true, Pattern.compile("Ch.*ke").matcher(compact).find());
+		
+		StringWriter writer = new StringWriter();
+		compact.writeTo(writer);
+		chars.writeTo(writer);
+		assertEquals("", "Jogobella Cheescakebella Ch", writer.toString());
+		
+		CharBuffer buffer = CharBuffer.allocate(30);
+		compact.writeTo(buffer);
+		chars.appendTo(buffer);
+		buffer.flip();
+		assertEquals("", "Jogobella Cheescakebella Ch", buffer.toString());
+		
+		StringBuilder sb = new StringBuilder();
+		chars.appendTo(sb);
+		compact.left(3).appendTo(sb);
+		assertEquals("", "bella ChJog", sb.toString());
+	}
+	
+	@Test
+	public void testCompareTo() {
+		CString compact = CString.fromString("Cheesecake");
+		CString chars = new CString("Jogobella Cheescake".toCharArray(), 10, 9);
+		assertEquals("", true, compact.compareTo(chars) > 0);
+		assertEquals("", true, chars.compareTo(compact) < 0);
+		assertEquals("", 0, compact.left(4).compareTo(chars.left(4)));
+		assertEquals("", true, compact.left(3).compareTo(compact) < 0);
+	}
+	
 	@Test(expected = NullPointerException.class)
 	public void testNullInputOnDefaultConstructor() {
 		// must throw!
@@ -162,4 +288,775 @@ public class CStringTests {
 		CString.fromString("Cheesecake").replaceAll(null, null);
 
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testMappedCString() throws IOException {
+		Path file = Files.createTempFile("mapped", ".txt");
+		try {
+			Files.write(file, "Jogobella Cheescake".getBytes(StandardCharsets.ISO_8859_1));
+			MappedCString str = MappedCString.map(file, StandardCharsets.ISO_8859_1);
+			assertEquals("", 19, str.length());
+			assertEquals("", "bella", str.substring(4, 9).toString());
+			assertEquals("", "Jog", str.left(3).toString());
+			assertEquals("", "cake", str.right(4).toString());
+			assertEquals("", 10, str.indexOf(CString.fromString("Chees")));
+			assertEquals("", 2, str.substring(8, 19).indexOf(CString.fromString("Chees")));
+			assertEquals("", -1, str.indexOf(CString.fromString("Cake")));
+			assertEquals("", true, str.startsWith(CString.fromString("Jogo")));
+			assertEquals("", false, str.startsWith(CString.fromString("bella")));
+			assertEquals("", true, str.endsWith(CString.fromString("cake")));
+			assertEquals("", true, str.toCString().isCompact());
+			assertEquals("", "bella", MappedCString.map(file, StandardCharsets.ISO_8859_1, 4, 5).toString());
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	@Test
+	public void testMappedCStringUtf16() throws IOException {
+		Path file = Files.createTempFile("mapped", ".txt");
+		try {
+			Files.write(file, "Kola\u010d i kava".getBytes(StandardCharsets.UTF_16LE));
+			MappedCString str = MappedCString.map(file, StandardCharsets.UTF_16LE);
+			assertEquals("", 12, str.length());
+			assertEquals("", '\u010d', str.charAt(4));
+			assertEquals("", 4, str.indexOf('\u010d'));
+			assertEquals("", "kava", str.right(4).toString());
+			assertEquals("", true, str.startsWith(CString.fromString("Kola\u010d")));
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	@Test
+	public void testMappedCStringAsciiHighByte() throws IOException {
+		Path file = Files.createTempFile("mapped", ".txt");
+		try {
+			byte[] bytes = {'c', 'a', 'f', (byte) 0xE9, ' ', 'o', 'k'};
+			Files.write(file, bytes);
+			String expected = new String(bytes, StandardCharsets.US_ASCII);
+			MappedCString str = MappedCString.map(file, StandardCharsets.US_ASCII);
+			assertEquals("", '\uFFFD', str.charAt(3));
+			assertEquals("", 'k', str.charAt(6));
+			assertEquals("", 3, str.indexOf('\uFFFD'));
+			assertEquals("", -1, str.indexOf('\u00e9'));
+			assertEquals("", 2, str.indexOf(CString.fromString("f\uFFFD ")));
+			assertEquals("", expected, str.toString());
+			assertEquals("", false, str.toCString().isCompact());
+			assertEquals("", "caf", str.left(3).toString());
+			assertEquals("", true, str.left(3).toCString().isCompact());
+			
+			MappedCString latin1 = MappedCString.map(file, StandardCharsets.ISO_8859_1);
+			assertEquals("", '\u00e9', latin1.charAt(3));
+			assertEquals("", 3, latin1.indexOf('\u00e9'));
+			assertEquals("", -1, latin1.indexOf('\uFFFD'));
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	@Test
+	public void testMappedIndexOfAcrossRegions() throws IOException {
+		Path file = Files.createTempFile("mapped", ".txt");
+		try {
+			Files.write(file, "xxxxxxxxxxxxxneedlexxxxxxxxxxxxxxxxxxxxxend".getBytes(StandardCharsets.ISO_8859_1));
+			CString needle = CString.fromString("needle");
+			assertEquals("", -1, MappedCString.map(file, StandardCharsets.ISO_8859_1, 0, 16).indexOf(needle));
+			assertEquals("", -1, MappedCString.map(file, StandardCharsets.ISO_8859_1, 16, 16).indexOf(needle));
+			assertEquals("", 13, MappedCString.indexOf(file, StandardCharsets.ISO_8859_1, needle, 16));
+			assertEquals("", 13, MappedCString.indexOf(file, StandardCharsets.ISO_8859_1, needle, 6));
+			assertEquals("", 13, MappedCString.indexOf(file, StandardCharsets.ISO_8859_1, needle));
+			assertEquals("", 40, MappedCString.indexOf(file, StandardCharsets.ISO_8859_1, CString.fromString("end"), 16));
+			assertEquals("", -1, MappedCString.indexOf(file, StandardCharsets.ISO_8859_1, CString.fromString("ends"), 16));
+			
+			Files.write(file, "abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.UTF_16BE));
+			assertEquals("", 6, MappedCString.indexOf(file, StandardCharsets.UTF_16BE, CString.fromString("ghij"), 16));
+			assertEquals("", 22, MappedCString.indexOf(file, StandardCharsets.UTF_16BE, CString.fromString("wxyz"), 16));
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testMappedIndexOfRegionTooSmall() throws IOException {
+		Path file = Files.createTempFile("mapped", ".txt");
+		try {
+			// must throw!
+			MappedCString.indexOf(file, StandardCharsets.ISO_8859_1, CString.fromString("needle"), 5);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Processor which collects the reported values into a collection.
+	 */
+	private static class Collector extends Processor {
+		/** Collected values. */
+		ArrayIndexedCollection values = new ArrayIndexedCollection();
+		
+		@Override
+		public void process(Object value) {
+			values.add(value);
+		}
+	}
+	
+	@Test
+	public void testMatcherAcrossChunks() {
+		CStringMatcher matcher = new CStringMatcher(CString.fromString("cheese"));
+		Collector collector = new Collector();
+		assertEquals("", 0, matcher.feed(CString.fromString("big ch"), collector));
+		assertEquals("", 0, matcher.feed(CString.fromString("ee"), collector));
+		assertEquals("", 1, matcher.feed(CString.fromString("secake"), collector));
+		assertEquals("", 1, collector.values.size());
+		assertEquals("", Long.valueOf(4), collector.values.get(0));
+		assertEquals("", 14, matcher.position());
+		
+		assertEquals("", 1, matcher.feed(new CString("xcheese".toCharArray()), collector));
+		assertEquals("", Long.valueOf(15), collector.values.get(1));
+		assertEquals("", 21, matcher.position());
+	}
+	
+	@Test
+	public void testMatcherOverlapping() {
+		CStringMatcher matcher = new CStringMatcher(CString.fromString("aa"));
+		Collector collector = new Collector();
+		assertEquals("", 3, matcher.feed(CString.fromString("aaaa"), collector));
+		assertEquals("", Long.valueOf(0), collector.values.get(0));
+		assertEquals("", Long.valueOf(1), collector.values.get(1));
+		assertEquals("", Long.valueOf(2), collector.values.get(2));
+		
+		matcher = new CStringMatcher(CString.fromString("aba"));
+		collector = new Collector();
+		matcher.feed(CString.fromString("ab"), collector);
+		matcher.feed(CString.fromString("a"), collector);
+		matcher.feed(CString.fromString("ba"), collector);
+		assertEquals("", 2, collector.values.size());
+		assertEquals("", Long.valueOf(0), collector.values.get(0));
+		assertEquals("", Long.valueOf(2), collector.values.get(1));
+	}
+	
+	@Test
+	public void testMatcherSubstringChunks() {
+		CStringMatcher matcher = new CStringMatcher(CString.fromString("cheese"));
+		Collector collector = new Collector();
+		assertEquals("", 0, matcher.feed(CString.fromString("xxbig chyy").substring(2, 8), collector));
+		assertEquals("", 1, matcher.feed(new CString("\u010deesecake".toCharArray()).substring(1, 8), collector));
+		assertEquals("", Long.valueOf(4), collector.values.get(0));
+		assertEquals("", 13, matcher.position());
+	}
+	
+	@Test
+	public void testMatcherReset() {
+		CStringMatcher matcher = new CStringMatcher(CString.fromString("cake"));
+		Collector collector = new Collector();
+		matcher.feed(CString.fromString("cheeseca"), collector);
+		assertEquals("", 8, matcher.position());
+		matcher.reset();
+		assertEquals("", 0, matcher.position());
+		assertEquals("", 0, matcher.feed(CString.fromString("ke"), collector));
+		assertEquals("", 1, matcher.feed(CString.fromString("cake"), collector));
+		assertEquals("", Long.valueOf(2), collector.values.get(0));
+	}
+
+	@Test
+	public void testHashIndexAgainstIndexOf() {
+		CString[] texts = {
+			CString.fromString("aaaaaaaaaaaaaaaaaaaa"),
+			CString.fromString("abaababaabaababaabab"),
+			new CString("\u010dac\u010dac\u010dacab\u010d".toCharArray())
+		};
+		for(CString text : texts) {
+			CStringHashIndex index = new CStringHashIndex(text);
+			for(int start = 0; start < text.length(); start++) {
+				for(int end = start + 1; end <= text.length() && end <= start + 6; end++) {
+					CString pattern = text.substring(start, end);
+					for(int from = 0; from <= text.length(); from += 3) {
+						assertEquals(pattern.toString(), text.indexOf(pattern, from), index.indexOf(pattern, from));
+					}
+				}
+			}
+			assertEquals("", -1, index.indexOf(CString.fromString("bb"), 0));
+			assertEquals("", false, index.contains(CString.fromString("")));
+		}
+	}
+	
+	@Test
+	public void testHashIndexSubstringEquals() {
+		CString text = CString.fromString("abaababaabaababaabab");
+		CStringHashIndex index = new CStringHashIndex(text);
+		for(int n = 1; n <= 8; n++) {
+			for(int i = 0; i + n <= text.length(); i++) {
+				for(int j = 0; j + n <= text.length(); j++) {
+					boolean equal = text.substring(i, i + n).equals(text.substring(j, j + n));
+					assertEquals(i + " " + j + " " + n, equal, index.substringEquals(i, j, n));
+				}
+			}
+		}
+		assertEquals("", index.hashOf(CString.fromString("abaab")), index.hash(5, 10));
+	}
+
+	/**
+	 * Finds all positions of the pattern in the text with String.indexOf.
+	 * @param text Text to be searched.
+	 * @param pattern Pattern to be searched for.
+	 * @return Positions of all occurrences, overlapping ones included.
+	 */
+	private static int[] occurrences(String text, String pattern) {
+		int[] positions = new int[text.length()];
+		int count = 0;
+		for(int i = text.indexOf(pattern); i != -1; i = text.indexOf(pattern, i + 1)) {
+			positions[count++] = i;
+		}
+		return Arrays.copyOf(positions, count);
+	}
+	
+	/**
+	 * Checks count, locate, contains and lcp of the index against String methods.
+	 * @param text Indexed text.
+	 * @param index Index of the text.
+	 */
+	private static void checkSuffixArray(String text, CStringSuffixArray index) {
+		for(int i = 0; i < text.length(); i++) {
+			String suffix = text.substring(index.suffix(i));
+			if(i > 0) {
+				String previous = text.substring(index.suffix(i - 1));
+				assertEquals("", true, previous.compareTo(suffix) < 0);
+				int common = 0;
+				while(common < suffix.length() && common < previous.length()
+						&& suffix.charAt(common) == previous.charAt(common)) {
+					common++;
+				}
+				assertEquals("", common, index.lcp(i));
+			}
+		}
+		for(int start = 0; start < text.length(); start += 2) {
+			for(int end = start + 1; end <= text.length() && end <= start + 5; end++) {
+				String pattern = text.substring(start, end);
+				int[] expected = occurrences(text, pattern);
+				assertEquals(pattern, expected.length, index.count(new CString(pattern.toCharArray())));
+				assertArrayEquals(expected, index.locate(new CString(pattern.toCharArray())));
+				assertEquals("", true, index.contains(new CString(pattern.toCharArray())));
+			}
+		}
+	}
+	
+	@Test
+	public void testSuffixArrayRepeatedText() {
+		String text = "aaaaaaaaaaaaaaaa";
+		CStringSuffixArray index = new CStringSuffixArray(CString.fromString(text));
+		checkSuffixArray(text, index);
+		assertEquals("", 13, index.count(CString.fromString("aaaa")));
+		assertEquals("", 0, index.count(CString.fromString("aaaaaaaaaaaaaaaaa")));
+		assertEquals("", 0, index.count(CString.fromString("")));
+		assertEquals("", false, index.contains(CString.fromString("b")));
+		
+		text = "mississippi missing mississippi";
+		checkSuffixArray(text, new CStringSuffixArray(CString.fromString(text)));
+	}
+	
+	@Test
+	public void testSuffixArrayNonLatin1() {
+		String text = "\u010dokolada \u0107evapi \u010dokolada \u017eele \u010d";
+		CStringSuffixArray index = new CStringSuffixArray(new CString(text.toCharArray()));
+		checkSuffixArray(text, index);
+		assertEquals("", 3, index.count(new CString("\u010d".toCharArray())));
+		assertArrayEquals(new int[] {0, 16}, index.locate(new CString("\u010dok".toCharArray())));
+	}
+	
+	@Test
+	public void testSuffixArrayParallel() {
+		Random random = new Random(42);
+		char[] chars = new char[20000];
+		for(int i = 0; i < chars.length; i++) {
+			chars[i] = (char) ('a' + random.nextInt(3));
+		}
+		CString text = new CString(chars);
+		CStringSuffixArray sequential = new CStringSuffixArray(text);
+		CStringSuffixArray parallel = new CStringSuffixArray(text, true);
+		for(int i = 0; i < chars.length; i++) {
+			assertEquals("", sequential.suffix(i), parallel.suffix(i));
+			assertEquals("", sequential.lcp(i), parallel.lcp(i));
+		}
+		String string = new String(chars);
+		assertArrayEquals(occurrences(string, "abcab"), parallel.locate(CString.fromString("abcab")));
+	}
+	
+	@Test
+	public void testSuffixArraySaveLoad() throws IOException {
+		CString text = CString.fromString("abracadabra abracadabra");
+		CStringSuffixArray index = new CStringSuffixArray(text);
+		Path file = Files.createTempFile("suffixes", ".bin");
+		try {
+			index.save(file);
+			CStringSuffixArray loaded = CStringSuffixArray.load(text, file);
+			for(int i = 0; i < text.length(); i++) {
+				assertEquals("", index.suffix(i), loaded.suffix(i));
+				assertEquals("", index.lcp(i), loaded.lcp(i));
+			}
+			assertArrayEquals(new int[] {0, 7, 12, 19}, loaded.locate(CString.fromString("abra")));
+			
+			boolean rejected = false;
+			try {
+				CStringSuffixArray.load(CString.fromString("abracadabra abracadabrb"), file);
+			} catch(IOException e) {
+				rejected = true;
+			}
+			assertEquals("Index of another text must be rejected", true, rejected);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Checks that CStringNumbers parses the given string to the same int as Integer.parseInt, or rejects
+	 * both of them.
+	 * @param s String to be parsed.
+	 */
+	private static void checkInt(String s) {
+		String expected;
+		try {
+			expected = String.valueOf(Integer.parseInt(s));
+		} catch(NumberFormatException e) {
+			expected = "NFE";
+		}
+		String actual;
+		try {
+			actual = String.valueOf(CStringNumbers.parseInt(new CString(s.toCharArray())));
+		} catch(NumberFormatException e) {
+			actual = "NFE";
+		}
+		assertEquals(s, expected, actual);
+	}
+	
+	/**
+	 * Checks that CStringNumbers parses the given string to the same long as Long.parseLong, or rejects
+	 * both of them.
+	 * @param s String to be parsed.
+	 */
+	private static void checkLong(String s) {
+		String expected;
+		try {
+			expected = String.valueOf(Long.parseLong(s));
+		} catch(NumberFormatException e) {
+			expected = "NFE";
+		}
+		String actual;
+		try {
+			actual = String.valueOf(CStringNumbers.parseLong(CString.fromString(s)));
+		} catch(NumberFormatException e) {
+			actual = "NFE";
+		}
+		assertEquals(s, expected, actual);
+	}
+	
+	/**
+	 * Checks that CStringNumbers parses the given string to the same double as Double.parseDouble, bit for
+	 * bit, or rejects both of them.
+	 * @param s String to be parsed.
+	 */
+	private static void checkDouble(String s) {
+		String expected;
+		try {
+			expected = Long.toHexString(Double.doubleToRawLongBits(Double.parseDouble(s)));
+		} catch(NumberFormatException e) {
+			expected = "NFE";
+		}
+		String actual;
+		try {
+			actual = Long.toHexString(Double.doubleToRawLongBits(CStringNumbers.parseDouble(CString.fromString(s))));
+		} catch(NumberFormatException e) {
+			actual = "NFE";
+		}
+		assertEquals(s, expected, actual);
+	}
+	
+	@Test
+	public void testParseIntBoundaries() {
+		String[] cases = {"0", "-0", "+0", "42", "+42", "-42", "2147483647", "-2147483648", "2147483648",
+				"-2147483649", "+2147483647", "02147483647", "99999999999", "+", "-", "", "1-", "--1", " 1",
+				"1 ", "12a"};
+		for(String s : cases) {
+			checkInt(s);
+		}
+		assertEquals("", 123, CStringNumbers.parseInt(CString.fromString("x123y"), 1, 4));
+	}
+	
+	@Test(expected = NumberFormatException.class)
+	public void testParseIntNonAsciiDigit() {
+		// must throw, unlike Integer.parseInt!
+		CStringNumbers.parseInt(new CString("\u0661".toCharArray()));
+	}
+	
+	@Test
+	public void testParseLongBoundaries() {
+		String[] cases = {"0", "-1", "9223372036854775807", "-9223372036854775808", "9223372036854775808",
+				"-9223372036854775809", "+9223372036854775807", "18446744073709551616", "+", "-", "", "1L"};
+		for(String s : cases) {
+			checkLong(s);
+		}
+	}
+	
+	@Test
+	public void testParseDoubleBoundaries() {
+		String[] cases = {"0", "-0", "0.0", "1.5", "-2.25", ".5", "5.", "1e22", "1e23", "1e-22", "1e-23",
+				"123456789e22", "123456789e-22", "9007199254740993", "9007199254740992", "12345678901234567890",
+				"0.30000000000000004", "3.141592653589793238462643", "1.7976931348623157e308", "4.9e-324",
+				"2e-324", "1e400", "NaN", "-Infinity", "0x1p3", "1d", "2.5f", "+", "-", "", ".", "e5", "1e",
+				"1e+", "1.2.3", " 1"};
+		for(String s : cases) {
+			checkDouble(s);
+		}
+	}
+	
+	@Test
+	public void testParseInts() {
+		assertArrayEquals(new int[] {1, -22, 333}, CStringNumbers.parseInts(CString.fromString("1,-22,333"), ','));
+		assertArrayEquals(new int[] {1, 2}, CStringNumbers.parseInts(CString.fromString("1,2,"), ','));
+		assertArrayEquals(new long[] {9223372036854775807L, 0},
+				CStringNumbers.parseLongs(CString.fromString("9223372036854775807\t0"), '\t'));
+		
+		boolean rejected = false;
+		try {
+			CStringNumbers.parseInts(CString.fromString("1,,2"), ',');
+		} catch(NumberFormatException e) {
+			rejected = true;
+		}
+		assertEquals("Empty field must be rejected", true, rejected);
+	}
+
+	@Test
+	public void testRopeAgainstStringBuilder() {
+		Random random = new Random(7);
+		CStringRope rope = new CStringRope(CString.fromString(""));
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < 400; i++) {
+			int n = i % 3 == 0 ? 1 + random.nextInt(4) : 30 + random.nextInt(30);
+			char[] chars = new char[n];
+			for(int j = 0; j < n; j++) {
+				chars[j] = (char) (i % 5 == 0 ? '\u0100' + random.nextInt(50) : 'a' + random.nextInt(26));
+			}
+			CString piece = new CString(chars);
+			if(i % 2 == 0) {
+				rope = rope.concat(piece);
+				sb.append(chars);
+			} else {
+				rope = new CStringRope(piece).concat(rope);
+				sb.insert(0, chars);
+			}
+		}
+		
+		String expected = sb.toString();
+		assertEquals("", expected.length(), rope.length());
+		for(int i = 0; i < expected.length(); i++) {
+			assertEquals("", expected.charAt(i), rope.charAt(i));
+		}
+		for(int i = 0; i < 200; i++) {
+			int start = random.nextInt(expected.length());
+			int end = start + random.nextInt(expected.length() - start + 1);
+			CStringRope part = rope.substring(start, end);
+			assertEquals("", expected.substring(start, end), part.toString());
+			if(end - start > 2) {
+				assertEquals("", expected.substring(start + 1, end - 1), part.substring(1, end - start - 1).toString());
+			}
+		}
+		
+		CString flat = rope.toCString();
+		assertEquals("", expected, flat.toString());
+		assertEquals("", true, flat == rope.toCString());
+		
+		CStringRope joined = rope.substring(0, 100).concat(rope.substring(100, expected.length()));
+		assertEquals("", expected, joined.toString());
+		assertEquals("", expected, joined.toCString().toString());
+	}
+
+	@Test
+	public void testRopeCompactFlatten() {
+		CStringRope rope = new CStringRope(CString.fromString(""));
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < 100; i++) {
+			String piece = i % 2 == 0 ? "x" + i : "\u00e9t\u00e9 caf\u00e9 number " + i + " of the rope";
+			rope = rope.concat(CString.fromString(piece));
+			sb.append(piece);
+		}
+		
+		CString flat = rope.toCString();
+		assertEquals("", sb.toString(), flat.toString());
+		assertEquals("", true, flat.isCompact());
+		assertEquals("", true, rope.substring(3, 200).toCString().isCompact());
+		
+		CStringRope mixed = rope.concat(new CString("\u010d".toCharArray())).concat(rope);
+		assertEquals("", false, mixed.toCString().isCompact());
+		assertEquals("", sb + "\u010d" + sb, mixed.toString());
+	}
+
+	@Test
+	public void testCodecUtf8RoundTrip() {
+		String text = "Kola\u010d, \u00e9t\u00e9 \u20ac 100 \ud83d\ude00 \u4e2d\u6587 \u0000end";
+		byte[] expected = text.getBytes(StandardCharsets.UTF_8);
+		
+		ByteBuffer target = ByteBuffer.allocate(expected.length);
+		int position = CStringCodec.encode(CString.fromString(text), 0, target, StandardCharsets.UTF_8);
+		assertEquals("", text.length(), position);
+		assertArrayEquals(expected, target.array());
+		
+		CString decoded = CStringCodec.decode(ByteBuffer.wrap(expected), StandardCharsets.UTF_8);
+		assertEquals("", text, decoded.toString());
+	}
+	
+	@Test
+	public void testCodecSurrogatePairNotSplit() {
+		CString s = CString.fromString("ab\ud83d\ude00c");
+		ByteBuffer target = ByteBuffer.allocate(5);
+		
+		int position = CStringCodec.encode(s, 0, target, StandardCharsets.UTF_8);
+		assertEquals("", 2, position);
+		assertEquals("", 2, target.position());
+		
+		target.clear();
+		position = CStringCodec.encode(s, position, target, StandardCharsets.UTF_8);
+		assertEquals("", 5, position);
+		target.flip();
+		byte[] bytes = new byte[target.remaining()];
+		target.get(bytes);
+		assertArrayEquals("\ud83d\ude00c".getBytes(StandardCharsets.UTF_8), bytes);
+	}
+	
+	@Test
+	public void testCodecStreamedDecode() {
+		byte[] bytes = "a\u20acb".getBytes(StandardCharsets.UTF_8);
+		char[] chars = new char[16];
+		
+		ByteBuffer source = ByteBuffer.allocate(bytes.length);
+		source.put(bytes, 0, 3).flip();
+		CString first = CStringCodec.decode(source, chars, false, StandardCharsets.UTF_8);
+		assertEquals("", "a", first.toString());
+		assertEquals("", 2, source.remaining());
+		
+		source.compact();
+		source.put(bytes, 3, bytes.length - 3).flip();
+		CString second = CStringCodec.decode(source, chars, true, StandardCharsets.UTF_8);
+		assertEquals("", "\u20acb", second.toString());
+		assertEquals("", 0, source.remaining());
+	}
+	
+	@Test
+	public void testCodecTruncatedAtEndOfInput() {
+		ByteBuffer source = ByteBuffer.wrap(new byte[] {'a', (byte) 0xE2, (byte) 0x82});
+		CString decoded = CStringCodec.decode(source, new char[16], true, StandardCharsets.UTF_8);
+		assertEquals("", "a\ufffd", decoded.toString());
+		assertEquals("", 0, source.remaining());
+	}
+	
+	@Test
+	public void testCodecMaximalSubpart() {
+		byte[] surrogate = {(byte) 0xED, (byte) 0xB7};
+		assertEquals("", "\ufffd\ufffd", CStringCodec.decode(ByteBuffer.wrap(surrogate), StandardCharsets.UTF_8).toString());
+		
+		byte[] mixed = {(byte) 0xF7, (byte) 0xF0, (byte) 0xED, (byte) 0xB3, '+'};
+		assertEquals("", "\ufffd\ufffd\ufffd\ufffd+", CStringCodec.decode(ByteBuffer.wrap(mixed), StandardCharsets.UTF_8).toString());
+	}
+	
+	@Test
+	public void testCodecLatin1() {
+		String text = "Caf\u00e9 \u00fcber \u00ff";
+		byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+		
+		CString decoded = CStringCodec.decode(ByteBuffer.wrap(bytes), StandardCharsets.ISO_8859_1);
+		assertEquals("", text, decoded.toString());
+		assertEquals("", true, decoded.isCompact());
+		
+		ByteBuffer target = ByteBuffer.allocate(bytes.length + 1);
+		int position = CStringCodec.encode(CString.fromString(text + "\u20ac"), 0, target, StandardCharsets.ISO_8859_1);
+		assertEquals("", text.length() + 1, position);
+		byte[] expected = Arrays.copyOf(bytes, bytes.length + 1);
+		expected[bytes.length] = '?';
+		assertArrayEquals(expected, target.array());
+	}
+
+	@Test
+	public void testPatternWildcards() {
+		assertEquals("", true, CStringPattern.matches("^a*c$", CString.fromString("ac")));
+		assertEquals("", true, CStringPattern.matches("^a*c$", CString.fromString("abbbc")));
+		assertEquals("", false, CStringPattern.matches("^a*c$", CString.fromString("abbbcd")));
+		assertEquals("", true, CStringPattern.matches("^a?c$", CString.fromString("abc")));
+		assertEquals("", false, CStringPattern.matches("^a?c$", CString.fromString("ac")));
+		assertEquals("", false, CStringPattern.matches("^a?c$", CString.fromString("abbc")));
+		assertEquals("", true, CStringPattern.matches("*", CString.fromString("")));
+		assertEquals("", true, CStringPattern.matches("^$", CString.fromString("")));
+		assertEquals("", false, CStringPattern.matches("^$", CString.fromString("a")));
+	}
+	
+	@Test
+	public void testPatternAnchors() {
+		assertEquals("", true, CStringPattern.matches("bc", CString.fromString("abcd")));
+		assertEquals("", false, CStringPattern.matches("^bc", CString.fromString("abcd")));
+		assertEquals("", true, CStringPattern.matches("^ab", CString.fromString("abcd")));
+		assertEquals("", false, CStringPattern.matches("bc$", CString.fromString("abcd")));
+		assertEquals("", true, CStringPattern.matches("cd$", CString.fromString("abcd")));
+		assertEquals("", true, CStringPattern.matches("^*.txt$", CString.fromString("notes.txt")));
+		assertEquals("", false, CStringPattern.matches("^*.txt$", CString.fromString("notes.txt.bak")));
+	}
+	
+	@Test
+	public void testPatternClasses() {
+		assertEquals("", true, CStringPattern.matches("^[abc]$", CString.fromString("b")));
+		assertEquals("", false, CStringPattern.matches("^[abc]$", CString.fromString("d")));
+		assertEquals("", true, CStringPattern.matches("^[a-z0-9]$", CString.fromString("7")));
+		assertEquals("", false, CStringPattern.matches("^[a-z0-9]$", CString.fromString("A")));
+		assertEquals("", true, CStringPattern.matches("^[!abc]$", CString.fromString("d")));
+		assertEquals("", false, CStringPattern.matches("^[!abc]$", CString.fromString("a")));
+		assertEquals("", true, CStringPattern.matches("^[^abc]$", CString.fromString("\u010d")));
+		assertEquals("", false, CStringPattern.matches("^[^abc]$", CString.fromString("c")));
+		assertEquals("", true, CStringPattern.matches("^[]a]$", CString.fromString("]")));
+		assertEquals("", true, CStringPattern.matches("^[]a]$", CString.fromString("a")));
+		assertEquals("", false, CStringPattern.matches("^[]a]$", CString.fromString("b")));
+		assertEquals("", true, CStringPattern.matches("^[!]]$", CString.fromString("x")));
+		assertEquals("", false, CStringPattern.matches("^[!]]$", CString.fromString("]")));
+	}
+	
+	@Test
+	public void testPatternEscapes() {
+		assertEquals("", true, CStringPattern.matches("^a\\*b$", CString.fromString("a*b")));
+		assertEquals("", false, CStringPattern.matches("^a\\*b$", CString.fromString("axb")));
+		assertEquals("", true, CStringPattern.matches("^\\?$", CString.fromString("?")));
+		assertEquals("", false, CStringPattern.matches("^\\?$", CString.fromString("x")));
+		assertEquals("", true, CStringPattern.matches("\\^a\\$", CString.fromString("x^a$y")));
+		assertEquals("", true, CStringPattern.matches("^[\\]]$", CString.fromString("]")));
+		assertEquals("", true, CStringPattern.matches("^\\\\$", CString.fromString("\\")));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testPatternTrailingEscape() {
+		CStringPattern.compile("ab\\");
+		// must throw!
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testPatternUnclosedClass() {
+		CStringPattern.compile("a[bc");
+		// must throw!
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testPatternTooComplex() {
+		CStringPattern.compile("*a????????????");
+		// must throw!
+	}
+	
+	@Test
+	public void testPatternFilter() {
+		ArrayIndexedCollection strings = new ArrayIndexedCollection();
+		strings.add(CString.fromString("a.txt"));
+		strings.add(CString.fromString("b.java"));
+		strings.add(CString.fromString("c.txt"));
+		strings.add(CString.fromString("txt"));
+		
+		ArrayIndexedCollection result = CStringPattern.compile("?.txt$").filter(strings);
+		assertEquals("", 2, result.size());
+		assertEquals("", "a.txt", result.get(0).toString());
+		assertEquals("", "c.txt", result.get(1).toString());
+		assertEquals("", 0, CStringPattern.compile("z").filter(strings).size());
+		assertEquals("", 4, strings.size());
+	}
+	
+	@Test
+	public void testSortSmall() {
+		CString[] strings = randomStrings(new Random(35), 10, 3, 6);
+		checkSorted(strings, false);
+		checkSorted(new CString[0], false);
+		checkSorted(new CString[] {CString.fromString("b"), CString.fromString("")}, false);
+	}
+	
+	@Test
+	public void testSortMixedRepresentations() {
+		CString[] strings = randomStrings(new Random(36), 500, 4, 12);
+		checkSorted(strings, false);
+	}
+	
+	@Test
+	public void testSortSharedPrefixes() {
+		StringBuilder prefix = new StringBuilder();
+		for(int i = 0; i < 200; i++){
+			prefix.append((char) ('a' + i % 3));
+		}
+		Random random = new Random(37);
+		CString[] strings = randomStrings(random, 300, 2, 4);
+		for(int i = 0; i < strings.length; i++){
+			String s = (random.nextBoolean() ? prefix : prefix.substring(0, 150)) + strings[i].toString();
+			strings[i] = i % 2 == 0 ? CString.fromString(s) : new CString(s.toCharArray());
+		}
+		checkSorted(strings, false);
+	}
+	
+	@Test
+	public void testSortEqualKeys() {
+		CString[] strings = new CString[100];
+		for(int i = 0; i < strings.length; i++){
+			strings[i] = i % 3 == 0 ? CString.fromString("same") : new CString("xsamex".toCharArray()).substring(1, 5);
+		}
+		checkSorted(strings, false);
+		for(int i = 0; i < strings.length; i++){
+			assertEquals("", "same", strings[i].toString());
+		}
+	}
+	
+	@Test
+	public void testSortParallel() {
+		CString[] strings = randomStrings(new Random(38), 20000, 1, 10);
+		checkSorted(strings, true);
+	}
+	
+	@Test
+	public void testSortCollection() {
+		CString[] strings = randomStrings(new Random(39), 1000, 2, 8);
+		ArrayIndexedCollection collection = new ArrayIndexedCollection();
+		for(CString s : strings){
+			collection.add(s);
+		}
+		
+		CStringSorter.sort(collection);
+		Arrays.sort(strings);
+		assertEquals("", strings.length, collection.size());
+		for(int i = 0; i < strings.length; i++){
+			assertEquals("", strings[i].toString(), collection.get(i).toString());
+		}
+	}
+	
+	@Test(expected = NullPointerException.class)
+	public void testSortNull() {
+		CStringSorter.sort((CString[]) null);
+		// must throw!
+	}
+	
+	private static void checkSorted(CString[] strings, boolean parallel) {
+		String[] expected = new String[strings.length];
+		for(int i = 0; i < strings.length; i++){
+			expected[i] = strings[i].toString();
+		}
+		Arrays.sort(expected);
+		
+		CStringSorter.sort(strings, parallel);
+		for(int i = 0; i < strings.length; i++){
+			assertEquals("", expected[i], strings[i].toString());
+		}
+	}
+	
+	/**
+	 * Random strings over a small alphabet which includes a non Latin-1 character, made alternately as compact
+	 * strings, char[] strings and substring views of both.
+	 */
+	private static CString[] randomStrings(Random random, int count, int minLength, int maxLength) {
+		char[] alphabet = {'a', 'b', 'c', '\u00e9', '\u010d'};
+		CString[] strings = new CString[count];
+		for(int i = 0; i < count; i++){
+			char[] chars = new char[minLength + random.nextInt(maxLength - minLength + 1) + 2];
+			for(int j = 0; j < chars.length; j++){
+				chars[j] = alphabet[random.nextInt(i % 2 == 0 ? 4 : 5)];
+			}
+			CString s = i % 2 == 0 ? CString.fromString(new String(chars)) : new CString(chars);
+			strings[i] = i % 4 < 2 ? s.substring(1, chars.length - 1) : s;
+		}
+		return strings;
+	}
+}
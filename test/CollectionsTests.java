@@ -0,0 +1,145 @@
+package hr.fer.zemris.java.custom.collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+public class CollectionsTests {
+
+	private static final int REQUIRED = Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED
+			| Spliterator.NONNULL;
+
+	@Test
+	public void testArrayCollectionGrowth() {
+		ArrayIndexedCollection collection = new ArrayIndexedCollection();
+		for(int i = 0; i < 100; i++) {
+			collection.add(Integer.valueOf(i));
+			assertEquals("", i + 1, collection.size());
+		}
+		for(int i = 0; i < 100; i++) {
+			assertEquals("", Integer.valueOf(i), collection.get(i));
+		}
+		
+		ArrayIndexedCollection small = new ArrayIndexedCollection(1);
+		for(int i = 0; i < 40; i++) {
+			small.insert(Integer.valueOf(i), 0);
+		}
+		assertEquals("", 40, small.size());
+		assertEquals("", Integer.valueOf(39), small.get(0));
+		assertEquals("", Integer.valueOf(0), small.get(39));
+	}
+	
+	@Test
+	public void testStreams() {
+		Object[] expected = values(5000);
+		Collection[] collections = {filled(new ArrayIndexedCollection(), expected),
+				filled(new LinkedListIndexedCollection(), expected)};
+		for(Collection collection : collections) {
+			assertEquals("", expected.length, collection.stream().count());
+			assertEquals("", expected.length, collection.parallelStream().count());
+			assertArrayEquals(expected, collection.stream().toArray());
+			assertArrayEquals(expected, collection.parallelStream().toArray());
+		}
+	}
+	
+	@Test
+	public void testEmptyStreams() {
+		Collection[] collections = {new ArrayIndexedCollection(), new LinkedListIndexedCollection()};
+		for(Collection collection : collections) {
+			assertEquals("", 0, collection.stream().count());
+			assertEquals("", 0, collection.parallelStream().count());
+			assertArrayEquals(new Object[0], collection.parallelStream().toArray());
+			assertEquals("", null, collection.spliterator().trySplit());
+			assertEquals("", 0, collection.spliterator().estimateSize());
+		}
+	}
+	
+	@Test
+	public void testCharacteristics() {
+		Object[] values = values(10);
+		Collection[] collections = {filled(new ArrayIndexedCollection(), values),
+				filled(new LinkedListIndexedCollection(), values), new ArrayIndexedCollection(),
+				new LinkedListIndexedCollection()};
+		for(Collection collection : collections) {
+			Spliterator<Object> spliterator = collection.spliterator();
+			assertEquals("", REQUIRED, spliterator.characteristics() & REQUIRED);
+			assertEquals("", collection.size(), spliterator.getExactSizeIfKnown());
+		}
+		
+		Spliterator<Object> split = filled(new LinkedListIndexedCollection(), values(5000)).spliterator().trySplit();
+		assertEquals("", REQUIRED, split.characteristics() & REQUIRED);
+	}
+	
+	@Test
+	public void testListSpliteratorSplitting() {
+		for(int n : new int[] {1, 2, 1023, 1024, 1025, 5000, 20000}) {
+			Object[] values = values(n);
+			Spliterator<Object> spliterator = filled(new LinkedListIndexedCollection(), values).spliterator();
+			Collector collector = new Collector(n);
+			
+			Spliterator<Object> prefix;
+			while((prefix = spliterator.trySplit()) != null) {
+				int before = collector.count;
+				long size = prefix.estimateSize();
+				prefix.forEachRemaining(collector);
+				assertEquals("", size, collector.count - before);
+				assertEquals("", n - collector.count, spliterator.estimateSize());
+			}
+			while(spliterator.tryAdvance(collector)) {
+			}
+			
+			assertEquals("", n, collector.count);
+			assertArrayEquals(values, collector.values);
+		}
+	}
+	
+	@Test
+	public void testArraySpliteratorSplitting() {
+		Object[] values = values(1000);
+		Spliterator<Object> spliterator = filled(new ArrayIndexedCollection(), values).spliterator();
+		Spliterator<Object> prefix = spliterator.trySplit();
+		assertEquals("", 1000, prefix.estimateSize() + spliterator.estimateSize());
+		
+		Collector collector = new Collector(1000);
+		prefix.forEachRemaining(collector);
+		spliterator.forEachRemaining(collector);
+		assertArrayEquals(values, collector.values);
+	}
+	
+	private static Object[] values(int n) {
+		Object[] values = new Object[n];
+		for(int i = 0; i < n; i++) {
+			values[i] = Integer.valueOf(i);
+		}
+		return values;
+	}
+	
+	private static Collection filled(Collection collection, Object[] values) {
+		for(Object value : values) {
+			collection.add(value);
+		}
+		return collection;
+	}
+	
+	private static class Collector implements Consumer<Object> {
+		
+		private final Object[] values;
+		private int count;
+		
+		Collector(int n) {
+			values = new Object[n];
+		}
+		
+		@Override
+		public void accept(Object value) {
+			if(count == values.length) {
+				throw new AssertionError("Too many elements");
+			}
+			values[count++] = value;
+		}
+	}
+}
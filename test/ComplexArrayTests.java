@@ -0,0 +1,194 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ComplexArrayTests {
+
+	private static final int N = 37;
+
+	@Test
+	public void testConversions() {
+		ComplexNumber[] numbers = {new ComplexNumber(1, 2), new ComplexNumber(-3, 0.5), new ComplexNumber(0, -1)};
+		ComplexArray array = ComplexArray.fromComplexNumbers(numbers);
+		assertEquals("", 3, array.length());
+		ComplexNumber[] back = array.toComplexNumbers();
+		assertEquals("", 3, back.length);
+		for(int i = 0; i < 3; i++) {
+			check(numbers[i], array.get(i));
+			check(numbers[i], back[i]);
+		}
+		
+		assertEquals("", 0, ComplexArray.fromComplexNumbers(new ComplexNumber[0]).length());
+		assertEquals("", 0, new ComplexArray(0).toComplexNumbers().length);
+		
+		double[] re = {1, 2};
+		double[] im = {3, 4};
+		ComplexArray backed = new ComplexArray(re, im);
+		backed.set(1, 5, 6);
+		assertEquals("", 5, re[1], 0);
+		assertSame(re, backed.getRealParts());
+		
+		ComplexArray copy = backed.copy();
+		copy.set(0, new ComplexNumber(9, 9));
+		assertEquals("", 1, backed.get(0).getReal(), 0);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testDifferentPartLengths() {
+		new ComplexArray(new double[2], new double[3]);
+		// must throw!
+	}
+	
+	@Test
+	public void testBinaryOperations() {
+		Random random = new Random(42);
+		ComplexArray a = random(random);
+		ComplexArray b = random(random);
+		ComplexNumber[] x = a.toComplexNumbers();
+		ComplexNumber[] y = b.toComplexNumbers();
+		
+		ComplexArray result = new ComplexArray(N);
+		assertSame(result, a.add(b, result));
+		for(int i = 0; i < N; i++) {
+			check(x[i].add(y[i]), result.get(i));
+		}
+		a.sub(b, result);
+		for(int i = 0; i < N; i++) {
+			check(x[i].sub(y[i]), result.get(i));
+		}
+		a.mul(b, result);
+		for(int i = 0; i < N; i++) {
+			check(x[i].mul(y[i]), result.get(i));
+		}
+		a.div(b, result);
+		for(int i = 0; i < N; i++) {
+			check(x[i].div(y[i]), result.get(i));
+		}
+		check(a, x);
+		check(b, y);
+	}
+	
+	@Test
+	public void testInPlaceOperations() {
+		Random random = new Random(42);
+		ComplexArray b = random(random);
+		ComplexNumber[] x = random(random).toComplexNumbers();
+		ComplexNumber[] y = b.toComplexNumbers();
+		
+		ComplexArray a = ComplexArray.fromComplexNumbers(x);
+		assertSame(a, a.add(b));
+		for(int i = 0; i < N; i++) {
+			check(x[i].add(y[i]), a.get(i));
+		}
+		a = ComplexArray.fromComplexNumbers(x);
+		assertSame(a, a.sub(b));
+		for(int i = 0; i < N; i++) {
+			check(x[i].sub(y[i]), a.get(i));
+		}
+		a = ComplexArray.fromComplexNumbers(x);
+		assertSame(a, a.mul(b));
+		for(int i = 0; i < N; i++) {
+			check(x[i].mul(y[i]), a.get(i));
+		}
+		a = ComplexArray.fromComplexNumbers(x);
+		assertSame(a, a.div(b));
+		for(int i = 0; i < N; i++) {
+			check(x[i].div(y[i]), a.get(i));
+		}
+		
+		a = ComplexArray.fromComplexNumbers(x);
+		a.mul(a);
+		for(int i = 0; i < N; i++) {
+			check(x[i].mul(x[i]), a.get(i));
+		}
+		a = ComplexArray.fromComplexNumbers(x);
+		b.sub(a, a);
+		for(int i = 0; i < N; i++) {
+			check(y[i].sub(x[i]), a.get(i));
+		}
+	}
+	
+	@Test
+	public void testMulAdd() {
+		Random random = new Random(42);
+		ComplexArray acc = random(random);
+		ComplexArray a = random(random);
+		ComplexArray b = random(random);
+		ComplexNumber[] before = acc.toComplexNumbers();
+		assertSame(acc, acc.mulAdd(a, b));
+		for(int i = 0; i < N; i++) {
+			check(before[i].add(a.get(i).mul(b.get(i))), acc.get(i));
+		}
+	}
+	
+	@Test
+	public void testScaleAndConjugate() {
+		Random random = new Random(42);
+		ComplexArray a = random(random);
+		ComplexNumber[] x = a.toComplexNumbers();
+		
+		ComplexArray scaled = a.scale(-2.5, new ComplexArray(N));
+		ComplexArray conjugate = a.conjugate(new ComplexArray(N));
+		for(int i = 0; i < N; i++) {
+			check(new ComplexNumber(x[i].getReal() * -2.5, x[i].getImaginary() * -2.5), scaled.get(i));
+			check(new ComplexNumber(x[i].getReal(), -x[i].getImaginary()), conjugate.get(i));
+		}
+		check(a, x);
+		
+		assertSame(a, a.scale(0.5));
+		assertSame(a, a.conjugate());
+		for(int i = 0; i < N; i++) {
+			check(new ComplexNumber(x[i].getReal() * 0.5, -x[i].getImaginary() * 0.5), a.get(i));
+		}
+	}
+	
+	@Test
+	public void testMagnitudeAndAngle() {
+		Random random = new Random(42);
+		ComplexArray a = random(random);
+		double[] magnitudes = a.magnitude();
+		double[] angles = new double[N];
+		assertSame(angles, a.angle(angles));
+		for(int i = 0; i < N; i++) {
+			assertEquals("", a.get(i).getMagnitude(), magnitudes[i], 0);
+			assertEquals("", a.get(i).getAngle(), angles[i], 0);
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testDifferentLengths() {
+		new ComplexArray(3).add(new ComplexArray(4));
+		// must throw!
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testDifferentResultLength() {
+		new ComplexArray(3).scale(2, new ComplexArray(2));
+		// must throw!
+	}
+	
+	private static ComplexArray random(Random random) {
+		ComplexArray array = new ComplexArray(N);
+		for(int i = 0; i < N; i++) {
+			array.set(i, random.nextGaussian(), random.nextGaussian());
+		}
+		return array;
+	}
+	
+	private static void check(ComplexNumber expected, ComplexNumber actual) {
+		assertEquals("", expected.getReal(), actual.getReal(), 0);
+		assertEquals("", expected.getImaginary(), actual.getImaginary(), 0);
+	}
+	
+	private static void check(ComplexArray array, ComplexNumber[] expected) {
+		assertEquals("", expected.length, array.length());
+		for(int i = 0; i < expected.length; i++) {
+			check(expected[i], array.get(i));
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ComplexCodecTests {
+
+	@Test
+	public void testChannelRoundTrip() throws IOException {
+		for(int n : new int[] {0, 1, 4095, 4096, 10000}) {
+			ComplexArray array = random(n);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			ComplexCodec.write(array, Channels.newChannel(out));
+			byte[] bytes = out.toByteArray();
+			assertEquals("", n * ComplexCodec.BYTES, bytes.length);
+			
+			ComplexArray read = ComplexCodec.read(Channels.newChannel(new ByteArrayInputStream(bytes)));
+			checkEquals(array, read);
+		}
+	}
+	
+	@Test
+	public void testSmallBuffers() throws IOException {
+		ComplexArray array = random(100);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ComplexCodec.write(array, Channels.newChannel(out), ByteBuffer.allocate(ComplexCodec.BYTES + 5));
+		ComplexArray read = ComplexCodec.read(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())),
+				ByteBuffer.allocate(ComplexCodec.BYTES + 3));
+		checkEquals(array, read);
+	}
+	
+	@Test
+	public void testLittleEndian() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ComplexCodec.write(new ComplexArray(new double[] {1.5}, new double[] {-2}), Channels.newChannel(out));
+		ByteBuffer bytes = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+		assertEquals("", 1.5, bytes.getDouble(), 0);
+		assertEquals("", -2, bytes.getDouble(), 0);
+	}
+	
+	@Test(expected = IOException.class)
+	public void testTruncatedChannel() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ComplexCodec.write(random(3), Channels.newChannel(out));
+		byte[] bytes = out.toByteArray();
+		ComplexCodec.read(Channels.newChannel(new ByteArrayInputStream(bytes, 0, bytes.length - 1)));
+		// must throw!
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testBufferTooSmall() throws IOException {
+		ComplexCodec.write(random(3), Channels.newChannel(new ByteArrayOutputStream()), ByteBuffer.allocate(15));
+		// must throw!
+	}
+	
+	@Test
+	public void testSaveLoad() throws IOException {
+		Path file = Files.createTempFile("complex", ".bin");
+		try {
+			for(int n : new int[] {1, 1000, 100000}) {
+				ComplexArray array = random(n);
+				ComplexCodec.save(array, file);
+				assertEquals("", (long) n * ComplexCodec.BYTES, Files.size(file));
+				checkEquals(array, ComplexCodec.load(file));
+				
+				try(SeekableByteChannel channel = Files.newByteChannel(file)) {
+					checkEquals(array, ComplexCodec.read(channel));
+				}
+			}
+			
+			ComplexCodec.save(random(0), file);
+			assertEquals("", 0, ComplexCodec.load(file).length());
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	@Test
+	public void testLoadTruncated() throws IOException {
+		Path file = Files.createTempFile("complex", ".bin");
+		try {
+			ComplexCodec.save(random(10), file);
+			byte[] bytes = Files.readAllBytes(file);
+			Files.write(file, Arrays.copyOf(bytes, bytes.length - 8));
+			try {
+				ComplexCodec.load(file);
+				fail("Truncated file was loaded");
+			} catch(IOException e) {
+				// expected
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	private static ComplexArray random(int n) {
+		Random random = new Random(n);
+		ComplexArray array = new ComplexArray(n);
+		for(int i = 0; i < n; i++) {
+			array.set(i, random.nextGaussian(), i % 5 == 0 ? Double.NaN : random.nextGaussian());
+		}
+		return array;
+	}
+	
+	private static void checkEquals(ComplexArray expected, ComplexArray actual) {
+		assertEquals("", expected.length(), actual.length());
+		for(int i = 0; i < expected.length(); i++) {
+			assertEquals("", Double.doubleToRawLongBits(expected.get(i).getReal()),
+					Double.doubleToRawLongBits(actual.get(i).getReal()));
+			assertEquals("", Double.doubleToRawLongBits(expected.get(i).getImaginary()),
+					Double.doubleToRawLongBits(actual.get(i).getImaginary()));
+		}
+	}
+}
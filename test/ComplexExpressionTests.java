@@ -0,0 +1,91 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ComplexExpressionTests {
+
+	private static final ComplexNumber Z = new ComplexNumber(1.5, -0.75);
+	private static final ComplexNumber ONE = ComplexNumber.fromReal(1);
+	private static final ComplexNumber TWO = ComplexNumber.fromReal(2);
+	private static final ComplexNumber THREE = ComplexNumber.fromReal(3);
+	private static final ComplexNumber ZERO = ComplexNumber.fromReal(0);
+
+	@Test
+	public void testPrecedence() {
+		checkValue("-z^2", ZERO.sub(Z.power(2)));
+		checkValue("2*-z", TWO.mul(ZERO.sub(Z)));
+		checkValue("(z+1)^2", Z.add(ONE).power(2));
+		checkValue("z/2/3", Z.div(TWO).div(THREE));
+		checkValue("1-z-3", ONE.sub(Z).sub(THREE));
+		checkValue("z^3 - 1 / (z + i)", Z.power(3).sub(ONE.div(Z.add(ComplexNumber.fromImaginary(1)))));
+		checkValue("-(z*2i) + +z", ZERO.sub(Z.mul(ComplexNumber.fromImaginary(2))).add(Z));
+		checkValue("z^0", ONE);
+	}
+	
+	@Test
+	public void testConstants() {
+		checkValue("2*3-4/8", ComplexNumber.fromReal(5.5));
+		checkValue("(1+i)^2", ComplexNumber.fromImaginary(2));
+		checkValue("--2.5", ComplexNumber.fromReal(2.5));
+		checkValue("  z  ", Z);
+	}
+	
+	@Test
+	public void testInvalidFormulas() {
+		String[] invalid = {"", "   ", "z^2^2", "2z", "z^-1", "z^1.5", "(z+1", "z+1)", "((z)", "z+", "*z", "z**2",
+				"x", "()", "z 1"};
+		for(String formula : invalid) {
+			try {
+				ComplexExpression.compile(formula);
+				fail("Accepted \"" + formula + "\"");
+			} catch(IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+	
+	@Test(expected = NullPointerException.class)
+	public void testNullFormula() {
+		ComplexExpression.compile(null);
+		// must throw!
+	}
+	
+	@Test
+	public void testBatchAgainstSingle() {
+		ComplexExpression expression = ComplexExpression.compile("(z^3 - 2*z + i) / (z*z + 1.5)");
+		Random random = new Random(42);
+		int n = 100000;
+		ComplexArray z = new ComplexArray(n);
+		for(int i = 0; i < n; i++) {
+			z.set(i, random.nextGaussian(), random.nextGaussian());
+		}
+		
+		ComplexArray sequential = expression.evaluate(z, new ComplexArray(n), false);
+		ComplexArray parallel = expression.evaluate(z, new ComplexArray(n), true);
+		for(int i = 0; i < n; i++) {
+			ComplexNumber single = expression.evaluate(z.get(i));
+			assertEquals("", single.getReal(), sequential.get(i).getReal(), 0);
+			assertEquals("", single.getImaginary(), sequential.get(i).getImaginary(), 0);
+			assertEquals("", single.getReal(), parallel.get(i).getReal(), 0);
+			assertEquals("", single.getImaginary(), parallel.get(i).getImaginary(), 0);
+		}
+		
+		ComplexArray inPlace = z.copy();
+		expression.evaluate(inPlace, inPlace, true);
+		for(int i = 0; i < n; i++) {
+			assertEquals("", sequential.get(i).getReal(), inPlace.get(i).getReal(), 0);
+			assertEquals("", sequential.get(i).getImaginary(), inPlace.get(i).getImaginary(), 0);
+		}
+	}
+	
+	private static void checkValue(String formula, ComplexNumber expected) {
+		ComplexNumber actual = ComplexExpression.compile(formula).evaluate(Z);
+		assertEquals(formula, expected.getReal(), actual.getReal(), 1e-12);
+		assertEquals(formula, expected.getImaginary(), actual.getImaginary(), 1e-12);
+	}
+}
@@ -0,0 +1,137 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ComplexKernelsTests {
+
+	private static final int N = 40;
+	private static final int FROM = 3;
+	private static final int TO = 37;
+
+	@Test
+	public void testMul() {
+		Random random = new Random(42);
+		double[] ar = random(random), ai = random(random), br = random(random), bi = random(random);
+		double[] or = random(random), oi = random(random);
+		double[] orBefore = or.clone(), oiBefore = oi.clone();
+		ComplexKernels.mul(ar, ai, br, bi, or, oi, FROM, TO);
+		for(int i = 0; i < N; i++) {
+			if(i < FROM || i >= TO) {
+				assertEquals("", orBefore[i], or[i], 0);
+				assertEquals("", oiBefore[i], oi[i], 0);
+				continue;
+			}
+			ComplexNumber expected = new ComplexNumber(ar[i], ai[i]).mul(new ComplexNumber(br[i], bi[i]));
+			assertEquals("", expected.getReal(), or[i], 0);
+			assertEquals("", expected.getImaginary(), oi[i], 0);
+		}
+		
+		double[] xr = ar.clone(), xi = ai.clone();
+		ComplexKernels.mul(xr, xi, br, bi, xr, xi, FROM, TO);
+		assertEquals("", true, Arrays.equals(Arrays.copyOfRange(or, FROM, TO), Arrays.copyOfRange(xr, FROM, TO)));
+		assertEquals("", true, Arrays.equals(Arrays.copyOfRange(oi, FROM, TO), Arrays.copyOfRange(xi, FROM, TO)));
+		
+		double[] yr = br.clone(), yi = bi.clone();
+		ComplexKernels.mul(ar, ai, yr, yi, yr, yi, FROM, TO);
+		assertEquals("", true, Arrays.equals(Arrays.copyOfRange(or, FROM, TO), Arrays.copyOfRange(yr, FROM, TO)));
+		assertEquals("", true, Arrays.equals(Arrays.copyOfRange(oi, FROM, TO), Arrays.copyOfRange(yi, FROM, TO)));
+		
+		double[] sr = ar.clone(), si = ai.clone();
+		ComplexKernels.mul(sr, si, sr, si, sr, si, FROM, TO);
+		for(int i = FROM; i < TO; i++) {
+			ComplexNumber expected = new ComplexNumber(ar[i], ai[i]).mul(new ComplexNumber(ar[i], ai[i]));
+			assertEquals("", expected.getReal(), sr[i], 0);
+			assertEquals("", expected.getImaginary(), si[i], 0);
+		}
+	}
+	
+	@Test
+	public void testDiv() {
+		Random random = new Random(42);
+		double[] ar = random(random), ai = random(random), br = random(random), bi = random(random);
+		double[] or = random(random), oi = random(random);
+		double[] orBefore = or.clone(), oiBefore = oi.clone();
+		ComplexKernels.div(ar, ai, br, bi, or, oi, FROM, TO);
+		for(int i = 0; i < N; i++) {
+			if(i < FROM || i >= TO) {
+				assertEquals("", orBefore[i], or[i], 0);
+				assertEquals("", oiBefore[i], oi[i], 0);
+				continue;
+			}
+			ComplexNumber expected = new ComplexNumber(ar[i], ai[i]).div(new ComplexNumber(br[i], bi[i]));
+			assertEquals("", expected.getReal(), or[i], 0);
+			assertEquals("", expected.getImaginary(), oi[i], 0);
+		}
+		
+		double[] xr = ar.clone(), xi = ai.clone();
+		ComplexKernels.div(xr, xi, br, bi, xr, xi, FROM, TO);
+		double[] yr = br.clone(), yi = bi.clone();
+		ComplexKernels.div(ar, ai, yr, yi, yr, yi, FROM, TO);
+		for(int i = FROM; i < TO; i++) {
+			assertEquals("", or[i], xr[i], 0);
+			assertEquals("", oi[i], xi[i], 0);
+			assertEquals("", or[i], yr[i], 0);
+			assertEquals("", oi[i], yi[i], 0);
+		}
+	}
+	
+	@Test
+	public void testMagnitude() {
+		Random random = new Random(42);
+		double[] ar = random(random), ai = random(random);
+		double[] out = new double[N];
+		ComplexKernels.magnitude(ar, ai, out, FROM, TO);
+		for(int i = 0; i < N; i++) {
+			double expected = i < FROM || i >= TO ? 0 : new ComplexNumber(ar[i], ai[i]).getMagnitude();
+			assertEquals("", expected, out[i], 0);
+		}
+		
+		double[] re = ar.clone();
+		ComplexKernels.magnitude(re, ai, re, FROM, TO);
+		for(int i = FROM; i < TO; i++) {
+			assertEquals("", out[i], re[i], 0);
+		}
+	}
+	
+	@Test
+	public void testMulAdd() {
+		Random random = new Random(42);
+		double[] ar = random(random), ai = random(random), br = random(random), bi = random(random);
+		double[] accr = random(random), acci = random(random);
+		double[] accrBefore = accr.clone(), acciBefore = acci.clone();
+		ComplexKernels.mulAdd(ar, ai, br, bi, accr, acci, FROM, TO);
+		for(int i = 0; i < N; i++) {
+			if(i < FROM || i >= TO) {
+				assertEquals("", accrBefore[i], accr[i], 0);
+				assertEquals("", acciBefore[i], acci[i], 0);
+				continue;
+			}
+			ComplexNumber expected = new ComplexNumber(accrBefore[i], acciBefore[i])
+					.add(new ComplexNumber(ar[i], ai[i]).mul(new ComplexNumber(br[i], bi[i])));
+			assertEquals("", expected.getReal(), accr[i], 0);
+			assertEquals("", expected.getImaginary(), acci[i], 0);
+		}
+		
+		double[] xr = ar.clone(), xi = ai.clone();
+		ComplexKernels.mulAdd(xr, xi, br, bi, xr, xi, FROM, TO);
+		for(int i = FROM; i < TO; i++) {
+			ComplexNumber a = new ComplexNumber(ar[i], ai[i]);
+			ComplexNumber expected = a.add(a.mul(new ComplexNumber(br[i], bi[i])));
+			assertEquals("", expected.getReal(), xr[i], 0);
+			assertEquals("", expected.getImaginary(), xi[i], 0);
+		}
+	}
+	
+	private static double[] random(Random random) {
+		double[] values = new double[N];
+		for(int i = 0; i < N; i++) {
+			values[i] = random.nextGaussian() * 10;
+		}
+		return values;
+	}
+}
@@ -0,0 +1,164 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ComplexMatrixTests {
+
+	@Test
+	public void testSingularMatrix() {
+		ComplexMatrix matrix = real(new double[][] {{1, 2, 3}, {4, 5, 6}, {7, 8, 9}});
+		ComplexMatrix.LUDecomposition lu = matrix.lu(false);
+		assertEquals("", true, lu.isSingular());
+		assertEquals("", 0, lu.determinant().getMagnitude(), 0);
+		
+		ComplexMatrix zero = new ComplexMatrix(4, 4);
+		assertEquals("", true, zero.lu(false).isSingular());
+		
+		ComplexMatrix tiny = real(new double[][] {{1e-150, 0}, {0, 1e-150}});
+		assertEquals("", false, tiny.lu(false).isSingular());
+	}
+	
+	@Test(expected = ArithmeticException.class)
+	public void testSolveSingular() {
+		ComplexMatrix matrix = real(new double[][] {{1, 2, 3}, {4, 5, 6}, {7, 8, 9}});
+		matrix.solve(new ComplexArray(new double[] {1, 2, 4}, new double[3]));
+		// must throw!
+	}
+	
+	@Test
+	public void testSolveResidual() {
+		Random random = new Random(42);
+		for(int n : new int[] {1, 5, 70, 200}) {
+			ComplexMatrix matrix = random(n, n, random);
+			ComplexArray b = new ComplexArray(n);
+			for(int i = 0; i < n; i++) {
+				b.set(i, random.nextGaussian(), random.nextGaussian());
+			}
+			
+			ComplexArray serial = matrix.lu(false).solve(b);
+			ComplexArray parallel = matrix.lu(true).solve(b);
+			ComplexArray residual = matrix.multiply(serial);
+			for(int i = 0; i < n; i++) {
+				assertEquals("", b.get(i).getReal(), residual.get(i).getReal(), 1e-9);
+				assertEquals("", b.get(i).getImaginary(), residual.get(i).getImaginary(), 1e-9);
+				assertEquals("", serial.get(i).getReal(), parallel.get(i).getReal(), 1e-12);
+				assertEquals("", serial.get(i).getImaginary(), parallel.get(i).getImaginary(), 1e-12);
+			}
+		}
+	}
+	
+	@Test
+	public void testDeterminantSign() {
+		ComplexMatrix swapped = real(new double[][] {{0, 1}, {1, 0}});
+		assertEquals("", -1, swapped.lu(false).determinant().getReal(), 1e-15);
+		
+		ComplexMatrix cycle = real(new double[][] {{0, 0, 2}, {3, 0, 0}, {0, 4, 0}});
+		assertEquals("", 24, cycle.lu(false).determinant().getReal(), 1e-12);
+		
+		ComplexMatrix pivoted = real(new double[][] {{1, 2}, {3, 4}});
+		assertEquals("", -2, pivoted.lu(false).determinant().getReal(), 1e-12);
+		
+		ComplexMatrix complex = ComplexMatrix.fromComplexNumbers(new ComplexNumber[][] {
+				{new ComplexNumber(0, 1), new ComplexNumber(2, 0)},
+				{new ComplexNumber(1, 1), new ComplexNumber(0, -1)}});
+		ComplexNumber det = complex.lu(false).determinant();
+		assertEquals("", -1, det.getReal(), 1e-12);
+		assertEquals("", -2, det.getImaginary(), 1e-12);
+	}
+	
+	@Test
+	public void testMultiply() {
+		Random random = new Random(42);
+		int[][] sizes = {{1, 1, 1}, {3, 5, 2}, {65, 63, 129}, {150, 100, 150}};
+		for(int[] size : sizes) {
+			ComplexMatrix a = random(size[0], size[1], random);
+			ComplexMatrix b = random(size[1], size[2], random);
+			ComplexMatrix serial = a.multiply(b, new ComplexMatrix(size[0], size[2]), false);
+			ComplexMatrix parallel = a.multiply(b, new ComplexMatrix(size[0], size[2]), true);
+			for(int i = 0; i < size[0]; i++) {
+				for(int j = 0; j < size[2]; j++) {
+					double re = 0;
+					double im = 0;
+					for(int k = 0; k < size[1]; k++) {
+						ComplexNumber x = a.get(i, k);
+						ComplexNumber y = b.get(k, j);
+						re += x.getReal()*y.getReal() - x.getImaginary()*y.getImaginary();
+						im += x.getReal()*y.getImaginary() + x.getImaginary()*y.getReal();
+					}
+					assertEquals("", re, serial.get(i, j).getReal(), 1e-10);
+					assertEquals("", im, serial.get(i, j).getImaginary(), 1e-10);
+					assertEquals("", serial.get(i, j).getReal(), parallel.get(i, j).getReal(), 1e-12);
+					assertEquals("", serial.get(i, j).getImaginary(), parallel.get(i, j).getImaginary(), 1e-12);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testMultiplyVector() {
+		Random random = new Random(42);
+		ComplexMatrix a = random(67, 130, random);
+		ComplexArray x = new ComplexArray(130);
+		for(int i = 0; i < 130; i++) {
+			x.set(i, random.nextGaussian(), random.nextGaussian());
+		}
+		
+		ComplexMatrix column = new ComplexMatrix(130, 1, x.getRealParts(), x.getImaginaryParts());
+		ComplexMatrix expected = a.multiply(column);
+		ComplexArray serial = a.multiply(x);
+		ComplexArray parallel = a.multiply(x, new ComplexArray(67), true);
+		for(int i = 0; i < 67; i++) {
+			assertEquals("", expected.get(i, 0).getReal(), serial.get(i).getReal(), 1e-10);
+			assertEquals("", expected.get(i, 0).getImaginary(), serial.get(i).getImaginary(), 1e-10);
+			assertEquals("", serial.get(i).getReal(), parallel.get(i).getReal(), 1e-12);
+			assertEquals("", serial.get(i).getImaginary(), parallel.get(i).getImaginary(), 1e-12);
+		}
+	}
+	
+	@Test
+	public void testTranspose() {
+		ComplexMatrix a = random(70, 131, new Random(42));
+		ComplexMatrix transpose = a.transpose();
+		ComplexMatrix conjugate = a.conjugateTranspose();
+		assertEquals("", 131, transpose.getRows());
+		assertEquals("", 70, transpose.getColumns());
+		for(int i = 0; i < 70; i++) {
+			for(int j = 0; j < 131; j++) {
+				assertEquals("", a.get(i, j).getReal(), transpose.get(j, i).getReal(), 0);
+				assertEquals("", a.get(i, j).getImaginary(), transpose.get(j, i).getImaginary(), 0);
+				assertEquals("", a.get(i, j).getReal(), conjugate.get(j, i).getReal(), 0);
+				assertEquals("", -a.get(i, j).getImaginary(), conjugate.get(j, i).getImaginary(), 0);
+			}
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testMultiplyDimensions() {
+		new ComplexMatrix(2, 3).multiply(new ComplexMatrix(2, 3));
+		// must throw!
+	}
+	
+	private static ComplexMatrix real(double[][] values) {
+		ComplexMatrix matrix = new ComplexMatrix(values.length, values[0].length);
+		for(int i = 0; i < values.length; i++) {
+			for(int j = 0; j < values[i].length; j++) {
+				matrix.set(i, j, values[i][j], 0);
+			}
+		}
+		return matrix;
+	}
+	
+	private static ComplexMatrix random(int rows, int columns, Random random) {
+		ComplexMatrix matrix = new ComplexMatrix(rows, columns);
+		for(int i = 0; i < rows; i++) {
+			for(int j = 0; j < columns; j++) {
+				matrix.set(i, j, random.nextGaussian(), random.nextGaussian());
+			}
+		}
+		return matrix;
+	}
+}
@@ -0,0 +1,419 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.cstr.CString;
+
+public class ComplexNumberTests {
+
+	@Test
+	public void testParseForms() {
+		checkParse("2.5", 2.5, 0);
+		checkParse("-3i", 0, -3);
+		checkParse("i", 0, 1);
+		checkParse("-i", 0, -1);
+		checkParse("+i", 0, 1);
+		checkParse("1-i", 1, -1);
+		checkParse("4+i", 4, 1);
+		checkParse("-2.71-3.15i", -2.71, -3.15);
+		checkParse("1.5E3-2.5E-1i", 1500, -0.25);
+		checkParse("1e+2+.5i", 100, 0.5);
+	}
+	
+	@Test
+	public void testParseWhitespace() {
+		checkParse(" 1+2i", 1, 2);
+		checkParse("1+2i ", 1, 2);
+		checkParse("\t-i\n", 0, -1);
+		checkParse("  3  ", 3, 0);
+	}
+	
+	@Test
+	public void testParseSpecialValues() {
+		assertEquals("", true, Double.isNaN(ComplexNumber.parse("NaN").getReal()));
+		checkParse("Infinity", Double.POSITIVE_INFINITY, 0);
+		checkParse("-Infinity", Double.NEGATIVE_INFINITY, 0);
+		checkParse("1-Infinityi", 1, Double.NEGATIVE_INFINITY);
+		
+		ComplexNumber c = ComplexNumber.parse("NaN+NaNi");
+		assertEquals("", true, Double.isNaN(c.getReal()));
+		assertEquals("", true, Double.isNaN(c.getImaginary()));
+	}
+	
+	@Test
+	public void testParseMalformed() {
+		String[] malformed = {"", " ", "1+2", "2i3", "1++2i", "i2", "1 + 2i", "1+2ii", "e5", ".", "1e", "1+2j",
+				"Nan", "Inf", "--1", "1i+2"};
+		for(String s : malformed) {
+			try {
+				ComplexNumber.parse(s);
+				fail("Accepted \"" + s + "\"");
+			} catch(NumberFormatException e) {
+				// expected
+			}
+		}
+	}
+	
+	@Test(expected = NullPointerException.class)
+	public void testParseNull() {
+		ComplexNumber.parse(null);
+		// must throw!
+	}
+	
+	@Test
+	public void testToStringHalfEven() {
+		Locale previous = Locale.getDefault();
+		Locale.setDefault(Locale.US);
+		try {
+			assertEquals("", "0.12+0.14i", new ComplexNumber(0.125, 0.135).toString());
+			assertEquals("", "0.38-0.62i", new ComplexNumber(0.375, -0.625).toString());
+			assertEquals("", "2+3i", new ComplexNumber(2, 3).toString());
+			assertEquals("", "1.5-0.01i", new ComplexNumber(1.5, -0.005001).toString());
+		} finally {
+			Locale.setDefault(previous);
+		}
+	}
+	
+	@Test
+	public void testToStringNegativeZero() {
+		Locale previous = Locale.getDefault();
+		Locale.setDefault(Locale.US);
+		try {
+			assertEquals("", "-0+0i", new ComplexNumber(-0.001, 0.001).toString());
+			assertEquals("", "0-0i", new ComplexNumber(0, -0.001).toString());
+			assertEquals("", "0+0i", new ComplexNumber(0, 0).toString());
+		} finally {
+			Locale.setDefault(previous);
+		}
+	}
+	
+	@Test
+	public void testToStringSpecialValues() {
+		Locale previous = Locale.getDefault();
+		Locale.setDefault(Locale.US);
+		try {
+			double[] values = {Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 1};
+			for(double real : values) {
+				for(double imaginary : values) {
+					ComplexNumber c = new ComplexNumber(real, imaginary);
+					assertEquals("", format(c, new DecimalFormat("#.##")), c.toString());
+				}
+			}
+		} finally {
+			Locale.setDefault(previous);
+		}
+	}
+	
+	@Test
+	public void testToStringLocale() {
+		Locale previous = Locale.getDefault();
+		Locale.setDefault(Locale.GERMANY);
+		try {
+			assertEquals("", "1,5-2,25i", new ComplexNumber(1.5, -2.25).toString());
+			assertEquals("", "1,5-2,25i", new ComplexFormatter(2, Locale.GERMANY).format(new ComplexNumber(1.5, -2.25)));
+			assertEquals("", "1.5-2.25i", new ComplexFormatter(2, Locale.US).format(new ComplexNumber(1.5, -2.25)));
+		} finally {
+			Locale.setDefault(previous);
+		}
+		assertEquals("", "1.5-2.25i", new ComplexFormatter(2, Locale.US).format(new ComplexNumber(1.5, -2.25)));
+	}
+	
+	@Test
+	public void testToStringAgainstDecimalFormat() {
+		Locale previous = Locale.getDefault();
+		Locale.setDefault(Locale.US);
+		try {
+			DecimalFormat decimalFormat = new DecimalFormat("#.##");
+			Random random = new Random(42);
+			for(int i = 0; i < 10000; i++) {
+				double real = i % 2 == 0 ? random.nextInt(2000) / 1000.0 - 1 : (random.nextDouble() - 0.5) * 1e6;
+				double imaginary = i % 3 == 0 ? random.nextInt(20000) / 8000.0 - 1 : random.nextGaussian();
+				ComplexNumber c = new ComplexNumber(real, imaginary);
+				assertEquals("", format(c, decimalFormat), c.toString());
+			}
+		} finally {
+			Locale.setDefault(previous);
+		}
+	}
+	
+	@Test
+	public void testFormatterPrecision() {
+		ComplexFormatter formatter = new ComplexFormatter(4, Locale.US);
+		DecimalFormat decimalFormat = new DecimalFormat("#.####", DecimalFormatSymbols.getInstance(Locale.US));
+		ComplexNumber c = new ComplexNumber(Math.PI, -Math.E);
+		assertEquals("", "3.1416-2.7183i", formatter.format(c));
+		assertEquals("", format(c, decimalFormat), formatter.format(c));
+		assertEquals("", "3-3i", new ComplexFormatter(0, Locale.US).format(c));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testFormatterInvalidPrecision() {
+		new ComplexFormatter(ComplexFormatter.MAX_PRECISION + 1);
+		// must throw!
+	}
+	
+	private static String format(ComplexNumber c, DecimalFormat decimalFormat) {
+		String sign = c.getImaginary() < 0 ? "" : "+";
+		return decimalFormat.format(c.getReal()) + sign + decimalFormat.format(c.getImaginary()) + "i";
+	}
+	
+	@Test
+	public void testParseAgainstParseDouble() {
+		Random random = new Random(42);
+		for(int i = 0; i < 20000; i++) {
+			double value;
+			switch(i % 4) {
+				case 0: value = random.nextGaussian(); break;
+				case 1: value = random.nextInt(1000000) / 1000.0; break;
+				case 2: value = Double.longBitsToDouble(random.nextLong()); break;
+				default: value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(60) - 30); break;
+			}
+			if(Double.isNaN(value) || Double.isInfinite(value)) {
+				continue;
+			}
+			String s = Double.toString(Math.abs(value));
+			checkParse(s, Double.parseDouble(s), 0);
+			checkParse("-1+" + s + "i", -1, Double.parseDouble(s));
+		}
+		checkParse("0.1", 0.1, 0);
+		checkParse("123456789012345678901234567890", 123456789012345678901234567890.0, 0);
+		checkParse("4.9e-324", Double.MIN_VALUE, 0);
+		checkParse("1e400", Double.POSITIVE_INFINITY, 0);
+		checkParse("-0", -0.0, 0);
+		assertEquals("", Double.doubleToLongBits(-0.0), Double.doubleToLongBits(ComplexNumber.parse("-0.0").getReal()));
+	}
+	
+	@Test
+	public void testParseRanges() {
+		char[] data = "xx 1-2i yy".toCharArray();
+		ComplexNumber c = ComplexParser.parse(data, 2, 6);
+		assertEquals("", 1, c.getReal(), 0);
+		assertEquals("", -2, c.getImaginary(), 0);
+		
+		c = ComplexParser.parse(new StringBuilder("3+4i,5"), 0, 4);
+		assertEquals("", 3, c.getReal(), 0);
+		assertEquals("", 4, c.getImaginary(), 0);
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testParseInvalidRange() {
+		ComplexParser.parse("1+2i", 2, 5);
+		// must throw!
+	}
+	
+	@Test
+	public void testParseAll() throws IOException {
+		String text = " 1+2i\t-i\n\n3.5  -2.5e1-1e-1i\r\ni ";
+		double[][] expected = {{1, 2}, {0, -1}, {3.5, 0}, {-25, -0.1}, {0, 1}};
+		
+		checkArray(expected, ComplexParser.parseAll(CString.fromString(text)));
+		checkArray(expected, ComplexParser.parseAll(new StringReader(text)));
+		
+		CharBuffer heap = CharBuffer.wrap(("ignored " + text).toCharArray());
+		heap.position(8);
+		checkArray(expected, ComplexParser.parseAll(heap));
+		assertEquals("", 0, heap.remaining());
+		
+		CharBuffer direct = ByteBuffer.allocateDirect(text.length() * 2).asCharBuffer();
+		direct.put(text).flip();
+		checkArray(expected, ComplexParser.parseAll(direct));
+		assertEquals("", 0, direct.remaining());
+		
+		checkArray(new double[0][], ComplexParser.parseAll(new StringReader(" \n ")));
+	}
+	
+	@Test
+	public void testParseAllChunkBoundaries() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		int n = 0;
+		while(sb.length() < 3 * (1 << 16)) {
+			sb.append(n).append('+').append(n % 7).append(".25i").append(n % 3 == 0 ? "\n" : " ");
+			n++;
+		}
+		
+		ComplexArray array = ComplexParser.parseAll(new StringReader(sb.toString()));
+		assertEquals("", n, array.length());
+		for(int i = 0; i < n; i++) {
+			assertEquals("", i, array.get(i).getReal(), 0);
+			assertEquals("", i % 7 + 0.25, array.get(i).getImaginary(), 0);
+		}
+		
+		for(int shift = -3; shift <= 3; shift++) {
+			StringBuilder padded = new StringBuilder();
+			for(int i = 0; i < (1 << 16) - 4 + shift; i++) {
+				padded.append(' ');
+			}
+			padded.append("123.5-7i 8");
+			ComplexArray parsed = ComplexParser.parseAll(new StringReader(padded.toString()));
+			assertEquals("", 2, parsed.length());
+			assertEquals("", 123.5, parsed.get(0).getReal(), 0);
+			assertEquals("", -7, parsed.get(0).getImaginary(), 0);
+			assertEquals("", 8, parsed.get(1).getReal(), 0);
+		}
+	}
+	
+	@Test
+	public void testParseAllLongToken() throws IOException {
+		StringBuilder sb = new StringBuilder("1 ");
+		for(int i = 0; i < 3 * (1 << 16); i++) {
+			sb.append('0');
+		}
+		sb.append("1.5-2i 7i");
+		
+		ComplexArray array = ComplexParser.parseAll(new StringReader(sb.toString()));
+		assertEquals("", 3, array.length());
+		assertEquals("", 1, array.get(0).getReal(), 0);
+		assertEquals("", 1.5, array.get(1).getReal(), 0);
+		assertEquals("", -2, array.get(1).getImaginary(), 0);
+		assertEquals("", 7, array.get(2).getImaginary(), 0);
+	}
+	
+	@Test(expected = NumberFormatException.class)
+	public void testParseAllMalformed() throws IOException {
+		ComplexParser.parseAll(new StringReader("1+2i 3+ 4"));
+		// must throw!
+	}
+	
+	@Test
+	public void testLoad() throws IOException {
+		Path file = Files.createTempFile("complex", ".txt");
+		try {
+			Files.write(file, "1+1i\n-2.5\n3i".getBytes(StandardCharsets.UTF_8));
+			checkArray(new double[][] {{1, 1}, {-2.5, 0}, {0, 3}}, ComplexParser.load(file));
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	private static void checkArray(double[][] expected, ComplexArray actual) {
+		assertEquals("", expected.length, actual.length());
+		for(int i = 0; i < expected.length; i++) {
+			assertEquals("", expected[i][0], actual.get(i).getReal(), 0);
+			assertEquals("", expected[i][1], actual.get(i).getImaginary(), 0);
+		}
+	}
+	
+	@Test
+	public void testPowerSmall() {
+		ComplexNumber c = new ComplexNumber(1.5, -2.5);
+		checkExact(1, 0, c.power(0));
+		checkExact(1, 0, new ComplexNumber(0, 0).power(0));
+		checkExact(1.5, -2.5, c.power(1));
+		checkExact(16, 0, new ComplexNumber(1, 1).power(8));
+		checkExact(-4, 0, new ComplexNumber(1, 1).power(4));
+		checkExact(-119, 120, new ComplexNumber(2, -3).power(4));
+		checkExact(0, -1, new ComplexNumber(0, 1).power(63));
+	}
+	
+	@Test
+	public void testPowerAroundCrossover() {
+		checkExact(4294967296.0, 0, new ComplexNumber(1, 1).power(ComplexNumber.POWER_CROSSOVER));
+		ComplexNumber above = new ComplexNumber(1, 1).power(ComplexNumber.POWER_CROSSOVER + 1);
+		assertEquals("", 4294967296.0, above.getReal(), 4294967296.0 * 1e-13);
+		assertEquals("", 4294967296.0, above.getImaginary(), 4294967296.0 * 1e-13);
+		
+		Random random = new Random(42);
+		for(int i = 0; i < 200; i++) {
+			ComplexNumber c = ComplexNumber.fromMagnitudeAndAngle(0.95 + random.nextDouble() * 0.1,
+					random.nextDouble() * 2 * Math.PI);
+			for(int n = 60; n <= 70; n++) {
+				ComplexNumber expected = new ComplexNumber(1, 0);
+				for(int k = 0; k < n; k++) {
+					expected = expected.mul(c);
+				}
+				ComplexNumber actual = c.power(n);
+				double scale = expected.getMagnitude();
+				assertEquals("", expected.getReal(), actual.getReal(), scale * 1e-12);
+				assertEquals("", expected.getImaginary(), actual.getImaginary(), scale * 1e-12);
+			}
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativePower() {
+		new ComplexNumber(1, 1).power(-1);
+		// must throw!
+	}
+	
+	@Test
+	public void testRoots() {
+		Random random = new Random(42);
+		for(int i = 0; i < 100; i++) {
+			ComplexNumber c = new ComplexNumber(random.nextGaussian() * 10, random.nextGaussian() * 10);
+			int n = 1 + random.nextInt(12);
+			ComplexNumber[] roots = c.root(n);
+			assertEquals("", n, roots.length);
+			double magnitude = Math.pow(c.getMagnitude(), 1.0 / n);
+			for(int k = 0; k < n; k++) {
+				double angle = (c.getAngle() + 2 * k * Math.PI) / n;
+				assertEquals("", magnitude * Math.cos(angle), roots[k].getReal(), magnitude * 1e-14);
+				assertEquals("", magnitude * Math.sin(angle), roots[k].getImaginary(), magnitude * 1e-14);
+				
+				ComplexNumber back = roots[k].power(n);
+				assertEquals("", c.getReal(), back.getReal(), c.getMagnitude() * 1e-13);
+				assertEquals("", c.getImaginary(), back.getImaginary(), c.getMagnitude() * 1e-13);
+			}
+		}
+		
+		ComplexNumber[] fourth = new ComplexNumber(16, 0).root(4);
+		checkExact(2, 0, fourth[0]);
+		assertEquals("", 0, fourth[1].getReal(), 1e-15);
+		assertEquals("", 2, fourth[1].getImaginary(), 1e-15);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidRoot() {
+		new ComplexNumber(1, 1).root(0);
+		// must throw!
+	}
+	
+	@Test
+	public void testRootsOfUnityCache() {
+		double[][] unity = ComplexNumber.rootsOfUnity(7);
+		assertSame(unity, ComplexNumber.rootsOfUnity(7));
+		assertEquals("", 1, unity[0][0], 0);
+		assertEquals("", 0, unity[1][0], 0);
+		for(int k = 0; k < 7; k++) {
+			assertEquals("", Math.cos(2 * k * Math.PI / 7), unity[0][k], 1e-15);
+			assertEquals("", Math.sin(2 * k * Math.PI / 7), unity[1][k], 1e-15);
+		}
+		
+		for(int n = 1000; n < 1040; n++) {
+			assertEquals("", n, ComplexNumber.rootsOfUnity(n)[0].length);
+		}
+		double[][] recalculated = ComplexNumber.rootsOfUnity(7);
+		assertTrue(recalculated != unity);
+		for(int k = 0; k < 7; k++) {
+			assertEquals("", unity[0][k], recalculated[0][k], 0);
+			assertEquals("", unity[1][k], recalculated[1][k], 0);
+		}
+	}
+	
+	private static void checkExact(double real, double imaginary, ComplexNumber c) {
+		assertEquals("", real, c.getReal(), 0);
+		assertEquals("", imaginary, c.getImaginary(), 0);
+	}
+	
+	private static void checkParse(String s, double real, double imaginary) {
+		ComplexNumber c = ComplexNumber.parse(s);
+		assertEquals(s, real, c.getReal(), 0);
+		assertEquals(s, imaginary, c.getImaginary(), 0);
+	}
+}
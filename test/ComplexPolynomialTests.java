@@ -0,0 +1,165 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ComplexPolynomialTests {
+
+	@Test
+	public void testFromRootsAndDerivative() {
+		ComplexPolynomial p = ComplexPolynomial.fromRoots(c(1, 0), c(2, 0), c(3, 0));
+		assertEquals("", 3, p.degree());
+		checkCoefficients(p, -6, 11, -6, 1);
+		
+		ComplexPolynomial d = p.derivative();
+		assertEquals("", 2, d.degree());
+		checkCoefficients(d, 11, -12, 3);
+		checkCoefficients(d.derivative().derivative(), 6);
+		checkCoefficients(d.derivative().derivative().derivative(), 0);
+		
+		ComplexPolynomial q = ComplexPolynomial.fromRoots(c(0, 1), c(0, -1));
+		checkCoefficients(q, 1, 0, 1);
+		assertEquals("", 0, ComplexPolynomial.fromRoots().degree());
+	}
+	
+	@Test
+	public void testTrimming() {
+		ComplexPolynomial p = new ComplexPolynomial(c(1, 0), c(2, 0), c(0, 0), c(0, 0));
+		assertEquals("", 1, p.degree());
+		assertEquals("", 0, p.getCoefficient(3).getMagnitude(), 0);
+		assertEquals("", 1, p.roots().length);
+		assertEquals("", -0.5, p.roots()[0].getReal(), 1e-15);
+		
+		ComplexPolynomial zero = new ComplexPolynomial(c(0, 0), c(0, 0));
+		assertEquals("", 0, zero.degree());
+	}
+	
+	@Test
+	public void testDegreeZero() {
+		ComplexPolynomial p = new ComplexPolynomial(c(3, -1));
+		assertEquals("", 0, p.degree());
+		assertEquals("", 0, p.roots().length);
+		assertEquals("", 3, p.evaluate(c(5, 7)).getReal(), 0);
+		assertEquals("", -1, p.evaluate(c(5, 7)).getImaginary(), 0);
+		assertEquals("", 0, p.derivative().degree());
+		assertEquals("", 0, p.derivative().evaluate(c(1, 1)).getMagnitude(), 0);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoCoefficients() {
+		new ComplexPolynomial();
+		// must throw!
+	}
+	
+	@Test
+	public void testRoots() {
+		ComplexNumber[] roots = {c(1, 0), c(-2, 1), c(0.5, -3), c(0, 2), c(-1, -1)};
+		checkRoots(roots, ComplexPolynomial.fromRoots(roots).roots(), 1e-10);
+	}
+	
+	@Test
+	public void testMultipleRoots() {
+		ComplexNumber root = c(2, 2);
+		checkRoots(new ComplexNumber[] {root, root}, ComplexPolynomial.fromRoots(root, root).roots(), 1e-6);
+		
+		ComplexNumber[] roots = {c(1, 0), c(1, 0), c(1, 0), c(-1, 0)};
+		checkRoots(roots, ComplexPolynomial.fromRoots(roots).roots(), 1e-4);
+	}
+	
+	@Test
+	public void testZeroConstantTerm() {
+		ComplexNumber[] roots = {c(0, 0), c(1, 0), c(-1, 0), c(0, 2)};
+		ComplexPolynomial p = ComplexPolynomial.fromRoots(roots);
+		assertEquals("", 0, p.getCoefficient(0).getMagnitude(), 0);
+		checkRoots(roots, p.roots(), 1e-10);
+		
+		ComplexPolynomial monomial = new ComplexPolynomial(c(0, 0), c(0, 0), c(0, 0), c(2, 0));
+		checkRoots(new ComplexNumber[] {c(0, 0), c(0, 0), c(0, 0)}, monomial.roots(), 1e-10);
+	}
+	
+	@Test
+	public void testBatchRoots() {
+		Random random = new Random(42);
+		ComplexPolynomial[] polynomials = new ComplexPolynomial[300];
+		for(int i = 0; i < polynomials.length; i++) {
+			ComplexNumber[] coefficients = new ComplexNumber[2 + random.nextInt(10)];
+			for(int j = 0; j < coefficients.length; j++) {
+				coefficients[j] = c(random.nextGaussian(), random.nextGaussian());
+			}
+			polynomials[i] = new ComplexPolynomial(coefficients);
+		}
+		
+		ComplexNumber[][] serial = ComplexPolynomial.roots(polynomials, false);
+		ComplexNumber[][] parallel = ComplexPolynomial.roots(polynomials, true);
+		for(int i = 0; i < polynomials.length; i++) {
+			assertEquals("", polynomials[i].degree(), serial[i].length);
+			assertEquals("", serial[i].length, parallel[i].length);
+			for(int k = 0; k < serial[i].length; k++) {
+				assertEquals("", serial[i][k].getReal(), parallel[i][k].getReal(), 0);
+				assertEquals("", serial[i][k].getImaginary(), parallel[i][k].getImaginary(), 0);
+				double scale = 0;
+				double magnitude = serial[i][k].getMagnitude();
+				for(int j = polynomials[i].degree(); j >= 0; j--) {
+					scale = scale*magnitude + polynomials[i].getCoefficient(j).getMagnitude();
+				}
+				ComplexNumber value = polynomials[i].evaluate(serial[i][k]);
+				assertEquals("", 0, value.getMagnitude() / scale, 1e-12);
+			}
+		}
+	}
+	
+	@Test
+	public void testEvaluateInPlace() {
+		Random random = new Random(42);
+		ComplexPolynomial p = ComplexPolynomial.fromRoots(c(1, 2), c(-3, 0.5), c(0, -1), c(2, 2));
+		int n = 20000;
+		ComplexArray points = new ComplexArray(n);
+		for(int i = 0; i < n; i++) {
+			points.set(i, random.nextGaussian(), random.nextGaussian());
+		}
+		
+		ComplexArray expected = p.evaluate(points);
+		ComplexArray original = points.copy();
+		p.evaluate(points, points, true);
+		for(int i = 0; i < n; i++) {
+			ComplexNumber single = p.evaluate(original.get(i));
+			assertEquals("", single.getReal(), expected.get(i).getReal(), 0);
+			assertEquals("", single.getImaginary(), expected.get(i).getImaginary(), 0);
+			assertEquals("", single.getReal(), points.get(i).getReal(), 0);
+			assertEquals("", single.getImaginary(), points.get(i).getImaginary(), 0);
+		}
+	}
+	
+	private static ComplexNumber c(double real, double imaginary) {
+		return new ComplexNumber(real, imaginary);
+	}
+	
+	private static void checkCoefficients(ComplexPolynomial p, double... expected) {
+		assertEquals("", expected.length - 1, p.degree());
+		for(int i = 0; i < expected.length; i++) {
+			assertEquals("", expected[i], p.getCoefficient(i).getReal(), 1e-12);
+			assertEquals("", 0, p.getCoefficient(i).getImaginary(), 1e-12);
+		}
+	}
+	
+	private static void checkRoots(ComplexNumber[] expected, ComplexNumber[] actual, double delta) {
+		assertEquals("", expected.length, actual.length);
+		boolean[] used = new boolean[actual.length];
+		for(ComplexNumber root : expected) {
+			int best = -1;
+			double distance = Double.POSITIVE_INFINITY;
+			for(int k = 0; k < actual.length; k++) {
+				double d = actual[k].sub(root).getMagnitude();
+				if(!used[k] && d < distance) {
+					distance = d;
+					best = k;
+				}
+			}
+			used[best] = true;
+			assertEquals("", 0, distance, delta);
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FFTTests {
+
+	@Test
+	public void testAgainstNaiveDft() {
+		Random random = new Random(42);
+		for(int n = 1; n <= 300; n++) {
+			ComplexArray x = random(n, random);
+			ComplexArray expected = naive(x);
+			ComplexArray actual = FFT.transform(x.copy());
+			assertClose(expected, actual, 1e-12 * n + 1e-12);
+		}
+		for(int n : new int[] {509, 512, 1000, 1024, 1031}) {
+			ComplexArray x = random(n, random);
+			assertClose(naive(x), FFT.transform(x.copy()), 1e-9);
+		}
+	}
+	
+	@Test
+	public void testInverse() {
+		Random random = new Random(42);
+		for(int n : new int[] {1, 2, 3, 7, 16, 100, 127, 1024, 1031}) {
+			ComplexArray x = random(n, random);
+			ComplexArray y = FFT.inverse(FFT.transform(x.copy()));
+			assertClose(x, y, 1e-12);
+		}
+	}
+	
+	@Test
+	public void testComplexNumbers() {
+		ComplexNumber[] numbers = {new ComplexNumber(1, 0), new ComplexNumber(0, 0), new ComplexNumber(0, 0)};
+		ComplexNumber[] transform = FFT.transform(numbers);
+		for(ComplexNumber c : transform) {
+			assertEquals("", 1, c.getReal(), 1e-15);
+			assertEquals("", 0, c.getImaginary(), 1e-15);
+		}
+	}
+	
+	@Test
+	public void testReal() {
+		Random random = new Random(42);
+		for(int n : new int[] {1, 2, 3, 4, 5, 6, 15, 16, 99, 100, 128, 1031}) {
+			double[] x = new double[n];
+			for(int i = 0; i < n; i++) {
+				x[i] = random.nextGaussian();
+			}
+			
+			ComplexArray spectrum = FFT.transformReal(x);
+			ComplexArray full = FFT.transform(new ComplexArray(x.clone(), new double[n]));
+			assertEquals("", n / 2 + 1, spectrum.length());
+			for(int k = 0; k <= n / 2; k++) {
+				assertEquals("", full.get(k).getReal(), spectrum.get(k).getReal(), 1e-10);
+				assertEquals("", full.get(k).getImaginary(), spectrum.get(k).getImaginary(), 1e-10);
+			}
+			
+			double[] y = FFT.inverseReal(spectrum, n);
+			assertEquals("", n, y.length);
+			for(int i = 0; i < n; i++) {
+				assertEquals("", x[i], y[i], 1e-12);
+			}
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testInverseRealLength() {
+		FFT.inverseReal(new ComplexArray(3), 6);
+		// must throw!
+	}
+	
+	@Test
+	public void testParallelRadix2() {
+		checkParallel(1 << 17);
+	}
+	
+	@Test
+	public void testParallelBluestein() {
+		checkParallel(70001);
+	}
+	
+	@Test
+	public void testParallelReal() {
+		Random random = new Random(42);
+		int n = 1 << 18;
+		double[] x = new double[n];
+		for(int i = 0; i < n; i++) {
+			x[i] = random.nextGaussian();
+		}
+		
+		ComplexArray serial = FFT.transformReal(x, false);
+		ComplexArray parallel = FFT.transformReal(x, true);
+		assertClose(serial, parallel, 1e-9);
+		double[] y = FFT.inverseReal(parallel, n, true);
+		for(int i = 0; i < n; i++) {
+			assertEquals("", x[i], y[i], 1e-11);
+		}
+	}
+	
+	private static void checkParallel(int n) {
+		Random random = new Random(42);
+		ComplexArray x = random(n, random);
+		ComplexArray serial = FFT.transform(x.copy(), false);
+		ComplexArray parallel = FFT.transform(x.copy(), true);
+		assertClose(serial, parallel, 1e-9);
+		
+		for(int k : new int[] {0, 1, 12345 % n, n / 2, n - 1}) {
+			double re = 0;
+			double im = 0;
+			for(int j = 0; j < n; j++) {
+				double angle = -2 * Math.PI * ((long) j * k % n) / n;
+				re += x.get(j).getReal()*Math.cos(angle) - x.get(j).getImaginary()*Math.sin(angle);
+				im += x.get(j).getReal()*Math.sin(angle) + x.get(j).getImaginary()*Math.cos(angle);
+			}
+			assertEquals("", re, parallel.get(k).getReal(), 1e-8);
+			assertEquals("", im, parallel.get(k).getImaginary(), 1e-8);
+		}
+		
+		assertClose(x, FFT.inverse(parallel, true), 1e-12);
+	}
+	
+	private static ComplexArray naive(ComplexArray x) {
+		int n = x.length();
+		ComplexArray result = new ComplexArray(n);
+		for(int k = 0; k < n; k++) {
+			double re = 0;
+			double im = 0;
+			for(int j = 0; j < n; j++) {
+				double angle = -2 * Math.PI * ((long) j * k % n) / n;
+				re += x.get(j).getReal()*Math.cos(angle) - x.get(j).getImaginary()*Math.sin(angle);
+				im += x.get(j).getReal()*Math.sin(angle) + x.get(j).getImaginary()*Math.cos(angle);
+			}
+			result.set(k, re, im);
+		}
+		return result;
+	}
+	
+	private static ComplexArray random(int n, Random random) {
+		ComplexArray array = new ComplexArray(n);
+		for(int i = 0; i < n; i++) {
+			array.set(i, random.nextGaussian(), random.nextGaussian());
+		}
+		return array;
+	}
+	
+	private static void assertClose(ComplexArray expected, ComplexArray actual, double delta) {
+		assertEquals("", expected.length(), actual.length());
+		for(int i = 0; i < expected.length(); i++) {
+			assertEquals("", expected.get(i).getReal(), actual.get(i).getReal(), delta);
+			assertEquals("", expected.get(i).getImaginary(), actual.get(i).getImaginary(), delta);
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import hr.fer.zemris.java.custom.collections.Processor;
+
+public class IterationEngineTests {
+
+	@Test
+	public void testMandelbrot() {
+		int width = 150;
+		int height = 97;
+		int maxIterations = 200;
+		IterationEngine engine = new IterationEngine(new ForkJoinPool(3), 16);
+		int[] out = engine.render(IterationEngine.mandelbrot(maxIterations), -2, 1, -1.2, 1.2, width, height);
+		
+		double reStep = 3.0 / (width - 1);
+		double imStep = 2.4 / (height - 1);
+		for(int y = 0; y < height; y++) {
+			for(int x = 0; x < width; x++) {
+				double re = -2 + x*reStep;
+				double im = 1.2 - y*imStep;
+				ComplexNumber c = new ComplexNumber(re, im);
+				ComplexNumber z = new ComplexNumber(0, 0);
+				int expected = maxIterations;
+				for(int i = 0; i < maxIterations; i++) {
+					if(z.getReal()*z.getReal() + z.getImaginary()*z.getImaginary() > 4) {
+						expected = i;
+						break;
+					}
+					z = z.mul(z).add(c);
+				}
+				assertEquals("", expected, out[y*width + x]);
+			}
+		}
+	}
+	
+	@Test
+	public void testNewton() {
+		int width = 101;
+		int height = 101;
+		ComplexNumber a = new ComplexNumber(1, 1);
+		IterationEngine.Kernel kernel = IterationEngine.newton(a, 5, 50);
+		int[] out = new IterationEngine(new ForkJoinPool(2), 7).render(kernel, -2, 2, -2, 2, width, height);
+		
+		double step = 4.0 / (width - 1);
+		int[] counts = new int[6];
+		for(int y = 0; y < height; y++) {
+			for(int x = 0; x < width; x++) {
+				int expected = kernel.iterate(-2 + x*step, 2 - y*step);
+				assertEquals("", expected, out[y*width + x]);
+				counts[expected]++;
+			}
+		}
+		for(int k = 1; k <= 5; k++) {
+			assertEquals("", true, counts[k] > 0);
+		}
+		
+		ComplexNumber[] roots = a.root(5);
+		for(int k = 0; k < 5; k++) {
+			double re = roots[k].getReal() + 1e-3;
+			double im = roots[k].getImaginary() - 1e-3;
+			assertEquals("", k + 1, kernel.iterate(re, im));
+		}
+	}
+	
+	@Test
+	public void testProgress() {
+		final AtomicReference<IterationEngine.Rendering> reference = new AtomicReference<>();
+		final AtomicInteger reports = new AtomicInteger();
+		final double[] max = new double[1];
+		Processor progress = new Processor() {
+			@Override
+			public void process(Object value) {
+				double fraction = ((Double) value).doubleValue();
+				synchronized(max) {
+					max[0] = Math.max(max[0], fraction);
+				}
+				reports.incrementAndGet();
+				IterationEngine.Rendering rendering = reference.get();
+				if(rendering != null) {
+					rendering.isDone();
+				}
+			}
+		};
+		
+		int width = 200;
+		int height = 150;
+		IterationEngine engine = new IterationEngine(new ForkJoinPool(4), 32);
+		IterationEngine.Rendering rendering = engine.start(IterationEngine.mandelbrot(100), -2, 1, -1, 1,
+				width, height, new int[width * height], progress);
+		reference.set(rendering);
+		rendering.await();
+		
+		assertEquals("", true, rendering.isDone());
+		assertEquals("", 1.0, rendering.getProgress(), 0);
+		assertEquals("", 1.0, max[0], 0);
+		assertEquals("", 7 * 5, reports.get());
+	}
+	
+	@Test
+	public void testCancel() throws InterruptedException {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch cancelled = new CountDownLatch(1);
+		IterationEngine.Kernel kernel = new IterationEngine.Kernel() {
+			@Override
+			public int iterate(double re, double im) {
+				started.countDown();
+				try {
+					cancelled.await();
+				} catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return 1;
+			}
+		};
+		
+		int size = 64;
+		int[] out = new int[size * size];
+		IterationEngine engine = new IterationEngine(new ForkJoinPool(2), 4);
+		IterationEngine.Rendering rendering = engine.start(kernel, 0, 1, 0, 1, size, size, out, null);
+		started.await();
+		rendering.cancel();
+		cancelled.countDown();
+		rendering.await();
+		
+		assertEquals("", true, rendering.isCancelled());
+		assertEquals("", true, rendering.isDone());
+		assertEquals("", 1.0, rendering.getProgress(), 0);
+		int filled = 0;
+		for(int value : out) {
+			filled += value;
+		}
+		assertEquals("", true, filled > 0);
+		assertEquals("", true, filled <= 2 * 4 * 4);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testBufferTooSmall() {
+		new IterationEngine().start(IterationEngine.mandelbrot(10), -2, 1, -1, 1, 10, 10, new int[99], null);
+		// must throw!
+	}
+}
@@ -0,0 +1,95 @@
+package hr.fer.zemris.java.tecaj.hw2;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MutableComplexTests {
+
+	@Test
+	public void testArithmeticAgainstComplexNumber() {
+		Random random = new Random(42);
+		for(int i = 0; i < 5000; i++) {
+			ComplexNumber a = random(random);
+			ComplexNumber b = random(random);
+			MutableComplex mb = new MutableComplex(b);
+			
+			check(a.add(b), new MutableComplex(a).add(b));
+			check(a.add(b), new MutableComplex(a).add(b.getReal(), b.getImaginary()));
+			check(a.add(b), new MutableComplex(a).add(mb));
+			check(a.sub(b), new MutableComplex(a).sub(b));
+			check(a.sub(b), new MutableComplex(a).sub(b.getReal(), b.getImaginary()));
+			check(a.sub(b), new MutableComplex(a).sub(mb));
+			check(a.mul(b), new MutableComplex(a).mul(b));
+			check(a.mul(b), new MutableComplex(a).mul(b.getReal(), b.getImaginary()));
+			check(a.mul(b), new MutableComplex(a).mul(mb));
+			check(a.div(b), new MutableComplex(a).div(b));
+			check(a.div(b), new MutableComplex(a).div(b.getReal(), b.getImaginary()));
+			check(a.div(b), new MutableComplex(a).div(mb));
+			check(a.mul(a), new MutableComplex(a).square());
+			
+			MutableComplex self = new MutableComplex(a);
+			check(a.mul(a), self.mul(self));
+			self.set(a);
+			check(a.div(a), self.div(self));
+			
+			assertEquals("", a.getMagnitude(), new MutableComplex(a).getMagnitude(), 0);
+			assertEquals("", a.getAngle(), new MutableComplex(a).getAngle(), 0);
+		}
+	}
+	
+	@Test
+	public void testPowerAgainstComplexNumber() {
+		Random random = new Random(42);
+		int[] exponents = {0, 1, 2, 3, 7, 8, 31, 63, 64, 65, 66, 100, 1000};
+		for(int i = 0; i < 500; i++) {
+			ComplexNumber a = new ComplexNumber(random.nextGaussian() * 0.5 + 0.5, random.nextGaussian() * 0.5);
+			for(int n : exponents) {
+				check(a.power(n), new MutableComplex(a).power(n));
+			}
+		}
+		
+		ComplexNumber gaussian = new ComplexNumber(1, 1);
+		for(int n = 0; n <= ComplexNumber.POWER_CROSSOVER + 2; n++) {
+			check(gaussian.power(n), new MutableComplex(gaussian).power(n));
+		}
+	}
+	
+	@Test
+	public void testChainedOperations() {
+		ComplexNumber c = new ComplexNumber(-0.4, 0.6);
+		ComplexNumber z = new ComplexNumber(0, 0);
+		MutableComplex mz = new MutableComplex();
+		for(int i = 0; i < 50; i++) {
+			z = z.mul(z).add(c);
+			mz.square().add(c);
+			check(z, mz);
+		}
+		
+		ComplexNumber result = mz.toComplexNumber();
+		assertEquals("", z.getReal(), result.getReal(), 0);
+		assertEquals("", z.getImaginary(), result.getImaginary(), 0);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativePower() {
+		new MutableComplex(1, 1).power(-1);
+		// must throw!
+	}
+	
+	private static ComplexNumber random(Random random) {
+		switch(random.nextInt(4)) {
+			case 0: return new ComplexNumber(random.nextInt(7) - 3, random.nextInt(7) - 3);
+			case 1: return new ComplexNumber(random.nextGaussian() * 1e150, random.nextGaussian() * 1e-150);
+			default: return new ComplexNumber(random.nextGaussian(), random.nextGaussian());
+		}
+	}
+	
+	private static void check(ComplexNumber expected, MutableComplex actual) {
+		assertEquals("", Double.doubleToLongBits(expected.getReal()), Double.doubleToLongBits(actual.getReal()));
+		assertEquals("", Double.doubleToLongBits(expected.getImaginary()),
+				Double.doubleToLongBits(actual.getImaginary()));
+	}
+}